@@ -0,0 +1,134 @@
+package com.sdtp.bench;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.ContentStore;
+import com.sdtp.store.content.DeflateContentStore;
+import com.sdtp.store.content.SlabContentStore;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Memory per document and put/read throughput for each way of holding bodies: plain heap strings,
+ * deflate on the heap at two levels, direct slabs, and deflate into direct slabs. Bodies are
+ * generated prose-like text, every document its own string. Memory is the retained heap growth
+ * after a full GC plus live off-heap bytes, divided by the document count; it includes the
+ * document objects and indexes, which are the same in every row.
+ * <pre>
+ * java -Xmx8g -cp target/benchmarks.jar com.sdtp.bench.ContentCompressionBenchmark --documents 200000 --content-length 2048
+ * </pre>
+ */
+public final class ContentCompressionBenchmark {
+
+    private static final int SLAB_BYTES = 64 << 20;
+    private static final int THRESHOLD = 512;
+    private static final String[] ROWS = {"heap", "deflate-1", "deflate-6", "direct", "direct+deflate-6"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int documents = Integer.parseInt(options.getOrDefault("documents", "200000"));
+        int contentLength = Integer.parseInt(options.getOrDefault("content-length", "2048"));
+        int reads = Integer.parseInt(options.getOrDefault("reads", String.valueOf(documents)));
+
+        System.out.printf("%,d documents of %,d characters%n", documents, contentLength);
+        System.out.printf("%-17s %12s %12s %12s %12s %12s%n",
+                "storage", "bytes/doc", "heap/doc", "off-heap/doc", "puts/s", "reads/s");
+        for (String row : ROWS) {
+            run(row, documents, contentLength, reads);
+        }
+    }
+
+    private static void run(String row, int documents, int contentLength, int reads) throws IOException {
+        SlabContentStore slabs = row.startsWith("direct") ? new SlabContentStore(null, SLAB_BYTES) : null;
+        ContentStore bodies = switch (row) {
+            case "heap" -> null;
+            case "deflate-1" -> new DeflateContentStore(null, 1);
+            case "deflate-6" -> new DeflateContentStore(null, 6);
+            case "direct" -> slabs;
+            case "direct+deflate-6" -> new DeflateContentStore(slabs, 6);
+            default -> throw new IllegalArgumentException(row);
+        };
+        UUID[] ids = new UUID[documents];
+        long heapBefore = usedHeap();
+        InMemoryDocumentStore store = bodies == null
+                ? new InMemoryDocumentStore()
+                : new InMemoryDocumentStore(bodies, THRESHOLD);
+
+        Text text = new Text(42);
+        long putNanos = 0;
+        for (int i = 0; i < documents; i++) {
+            Document doc = new Document("Document " + i, text.next(contentLength), "tenant-" + (i % 16), "user");
+            ids[i] = doc.getId();
+            long start = System.nanoTime();
+            store.put(doc);
+            putNanos += System.nanoTime() - start;
+        }
+
+        long heap = usedHeap() - heapBefore;
+        long offHeap = slabs == null ? 0 : slabs.liveBytes();
+
+        Random random = new Random(7);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            checksum += store.get(ids[random.nextInt(documents)]).getContentBytes().remaining();
+        }
+        long readNanos = System.nanoTime() - start;
+
+        System.out.printf("%-17s %12.0f %12.0f %12.0f %12.0f %12.0f%n", row,
+                (double) (heap + offHeap) / documents, (double) heap / documents, (double) offHeap / documents,
+                documents / (putNanos / 1e9), reads / (readNanos / 1e9));
+        if (checksum < 0) System.out.println(checksum);
+        store.close();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Words drawn with a skewed frequency from a fixed vocabulary, which compresses about like
+     * ordinary prose.
+     */
+    private static final class Text {
+
+        private final Random random;
+        private final String[] words = new String[4096];
+
+        Text(long seed) {
+            random = new Random(seed);
+            for (int i = 0; i < words.length; i++) {
+                StringBuilder word = new StringBuilder();
+                int length = 2 + random.nextInt(9);
+                for (int c = 0; c < length; c++) {
+                    word.append((char) ('a' + random.nextInt(26)));
+                }
+                words[i] = word.toString();
+            }
+        }
+
+        String next(int length) {
+            StringBuilder body = new StringBuilder(length + 16);
+            while (body.length() < length) {
+                // Cubing a uniform draw favours the low indexes, roughly like word frequencies
+                double u = random.nextDouble();
+                body.append(words[(int) (u * u * u * words.length)]).append(random.nextInt(12) == 0 ? ". " : " ");
+            }
+            body.setLength(length);
+            return body.toString();
+        }
+    }
+}
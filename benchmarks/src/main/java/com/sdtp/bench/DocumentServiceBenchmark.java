@@ -0,0 +1,208 @@
+package com.sdtp.bench;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.model.Document;
+import com.sdtp.model.DocumentPage;
+import com.sdtp.service.DocumentCursor;
+import com.sdtp.service.DocumentService;
+import com.sdtp.store.DocumentStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Service-level hot paths against a pre-populated store. Run a subset with e.g.
+ * {@code java -jar target/benchmarks.jar DocumentServiceBenchmark.getDocumentById -p documents=1000000 -p store=MEMORY}.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g", "-XX:+UseG1GC"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DocumentServiceBenchmark {
+
+    static final int TENANTS = 16;
+    static final int USERS_PER_TENANT = 64;
+    static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int documents;
+
+    @Param({"MEMORY", "DIRECT", "DURABLE"})
+    StoreKind store;
+
+    @Param({"512"})
+    int contentLength;
+
+    DocumentStore documentStore;
+    DocumentService service;
+    UUID[] ids;
+    AuthContext[] admins;
+    AuthContext[][] viewers;
+    String content;
+    Path directory;
+    final Queue<List<UUID>> createdByThread = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        directory = Files.createTempDirectory("document-bench");
+        documentStore = store.open(directory);
+        service = new DocumentService(documentStore);
+        content = "x".repeat(contentLength);
+
+        admins = new AuthContext[TENANTS];
+        viewers = new AuthContext[TENANTS][USERS_PER_TENANT];
+        for (int t = 0; t < TENANTS; t++) {
+            admins[t] = new AuthContext(tenant(t), "admin-" + t, AuthContext.ROLE_ADMIN, 0);
+            for (int u = 0; u < USERS_PER_TENANT; u++) {
+                viewers[t][u] = new AuthContext(tenant(t), user(u), AuthContext.ROLE_VIEWER, 0);
+            }
+        }
+
+        // Straight into the store: populating through the service would only add Uni overhead
+        ids = new UUID[documents];
+        IntStream.range(0, documents).parallel().forEach(i -> {
+            Document doc = new Document("Document " + i, content, tenant(i % TENANTS),
+                    user((i / TENANTS) % USERS_PER_TENANT));
+            documentStore.put(doc);
+            ids[i] = doc.getId();
+        });
+
+        // Initialise Mutiny's context propagation once here; concurrent first use from workers races
+        service.getDocumentById(ids[0], admins[0]).await().indefinitely();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (documentStore instanceof Closeable closeable) {
+            closeable.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeCreated() {
+        // Runs once all threads finished the iteration, so the lists are no longer written
+        for (List<UUID> created : createdByThread) {
+            for (UUID id : created) {
+                documentStore.remove(id);
+            }
+            created.clear();
+        }
+    }
+
+    /**
+     * Per-thread record of created documents, removed after each iteration so the store stays at
+     * {@link #documents} and heap use does not grow with the run length.
+     */
+    @State(Scope.Thread)
+    public static class Created {
+        final List<UUID> ids = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void register(DocumentServiceBenchmark benchmark) {
+            benchmark.createdByThread.add(ids);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Document createDocument(Created created) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Document doc = new Document("Created", content, null, null);
+        Document saved = service.createDocument(doc, admins[random.nextInt(TENANTS)]).await().indefinitely();
+        created.ids.add(saved.getId());
+        return saved;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Document getDocumentById() {
+        int i = ThreadLocalRandom.current().nextInt(documents);
+        return service.getDocumentById(ids[i], admins[i % TENANTS]).await().indefinitely();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DocumentPage<Document> tenantPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String cursor = DocumentCursor.encode(ids[random.nextInt(documents)]);
+        AuthContext viewer = viewers[random.nextInt(TENANTS)][random.nextInt(USERS_PER_TENANT)];
+        return service.getTenantDocumentsPage(cursor, PAGE_SIZE, viewer).await().indefinitely();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DocumentPage<Document> newestPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AuthContext viewer = viewers[random.nextInt(TENANTS)][random.nextInt(USERS_PER_TENANT)];
+        return service.getTenantDocumentsByCreation(null, null, true, null, PAGE_SIZE, viewer).await().indefinitely();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DocumentPage<Document> userPage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String cursor = DocumentCursor.encode(ids[random.nextInt(documents)]);
+        AuthContext viewer = viewers[random.nextInt(TENANTS)][random.nextInt(USERS_PER_TENANT)];
+        return service.getUserDocumentsPage(cursor, PAGE_SIZE, viewer).await().indefinitely();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Document> tenantList() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return service.getAllDocumentsForTenant(viewers[random.nextInt(TENANTS)][0]).await().indefinitely();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Document> userList() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        AuthContext viewer = viewers[random.nextInt(TENANTS)][random.nextInt(USERS_PER_TENANT)];
+        return service.getDocumentsByUser(viewer).await().indefinitely();
+    }
+
+    static String tenant(int t) {
+        return "tenant-" + t;
+    }
+
+    static String user(int u) {
+        return "user-" + u;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sdtp.bench;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.model.Document;
+import com.sdtp.service.DocumentService;
+import com.sdtp.service.StoreExecutor;
+import com.sdtp.store.DocumentStore;
+import com.sdtp.store.DocumentStoreConfig.Execution.Mode;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the Vert.x event loop is stalled while it issues {@code createDocument} calls,
+ * once per execution mode. A 1 ms periodic timer on the same event loop records how late it fires;
+ * with inline execution every durable write holds the loop for its group commit.
+ * <pre>
+ * java -cp target/benchmarks.jar com.sdtp.bench.EventLoopStallBenchmark --store DURABLE --operations 20000
+ * </pre>
+ */
+public final class EventLoopStallBenchmark {
+
+    private static final long PROBE_MILLIS = 1;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        StoreKind store = StoreKind.valueOf(options.getOrDefault("store", "DURABLE"));
+        int operations = Integer.parseInt(options.getOrDefault("operations", "20000"));
+        int inFlight = Integer.parseInt(options.getOrDefault("in-flight", "64"));
+        String[] modes = options.getOrDefault("modes", "event-loop,worker,virtual").split(",");
+
+        System.out.printf("%-11s %-8s %10s %12s %12s %12s %14s%n",
+                "mode", "ran-on", "ops/s", "stall p50", "stall p99", "stall max", "stalled total");
+        for (String name : modes) {
+            Mode mode = Mode.valueOf(name.trim().toUpperCase().replace('-', '_'));
+            run(store, mode, operations, inFlight);
+        }
+        System.exit(0);
+    }
+
+    private static void run(StoreKind kind, Mode mode, int operations, int inFlight) throws Exception {
+        Path directory = Files.createTempDirectory("document-stall");
+        DocumentStore store = kind.open(directory);
+        StoreExecutor executor = new StoreExecutor(mode, 64, 10_000, store.writesBlock(), store.readsBlock());
+        DocumentService service = new DocumentService(store, DocumentMetrics.NOOP, executor);
+        AuthContext admin = new AuthContext("tenant-0", "admin", AuthContext.ROLE_ADMIN, 0);
+
+        // One event loop, and no blocked-thread warnings: blocking it is what is being measured
+        Vertx vertx = Vertx.vertx(new VertxOptions()
+                .setEventLoopPoolSize(1)
+                .setMaxEventLoopExecuteTime(TimeUnit.MINUTES.toNanos(10)));
+        Context context = vertx.getOrCreateContext();
+        Histogram stalls = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+        CompletableFuture<Long> done = new CompletableFuture<>();
+
+        context.runOnContext(ignored -> {
+            long[] expected = {System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_MILLIS)};
+            long timer = vertx.setPeriodic(PROBE_MILLIS, id -> {
+                long now = System.nanoTime();
+                stalls.recordValue(Math.min(Math.max(0, now - expected[0]), stalls.getHighestTrackableValue()));
+                expected[0] = now + TimeUnit.MILLISECONDS.toNanos(PROBE_MILLIS);
+            });
+
+            long start = System.nanoTime();
+            int[] issued = {0};
+            int[] completed = {0};
+            Runnable[] issue = new Runnable[1];
+            issue[0] = () -> {
+                if (issued[0] >= operations) return;
+                issued[0]++;
+                service.createDocument(new Document("Stall", "x".repeat(512), null, null), admin)
+                        .subscribe().with(doc -> context.runOnContext(v -> {
+                            if (++completed[0] == operations) {
+                                vertx.cancelTimer(timer);
+                                done.complete(System.nanoTime() - start);
+                            } else {
+                                issue[0].run();
+                            }
+                        }), done::completeExceptionally);
+            };
+            for (int i = 0; i < inFlight; i++) {
+                issue[0].run();
+            }
+        });
+
+        long elapsed = done.get(10, TimeUnit.MINUTES);
+        vertx.close().toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+        if (store instanceof Closeable closeable) {
+            closeable.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        System.out.printf("%-11s %-8s %10.0f %10.3fms %10.3fms %10.3fms %12.1fms%n",
+                mode.name().toLowerCase().replace('_', '-'),
+                executor.mode().name().toLowerCase().replace('_', '-'),
+                operations / (elapsed / 1e9),
+                millis(stalls.getValueAtPercentile(50)),
+                millis(stalls.getValueAtPercentile(99)),
+                millis(stalls.getMaxValue()),
+                millis((long) (stalls.getMean() * stalls.getTotalCount())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
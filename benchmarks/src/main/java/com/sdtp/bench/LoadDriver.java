@@ -0,0 +1,278 @@
+package com.sdtp.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdtp.grpc.DocumentProcessorGrpc;
+import com.sdtp.grpc.DocumentProcessorOuterClass.DocumentRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.stub.MetadataUtils;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Load driver for a running service: logs in, preloads documents over REST, then drives one
+ * workload from {@code --concurrency} threads and reports throughput and latency percentiles.
+ * <p>
+ * Closed-loop by default. With {@code --rate} every thread follows a fixed schedule and latency is
+ * measured from the intended send time, so a stalled server is not hidden by coordinated omission.
+ * <pre>
+ * java -cp target/benchmarks.jar com.sdtp.bench.LoadDriver --workload grpc-process --concurrency 64 --duration 30
+ * </pre>
+ * Workloads: {@code rest-get}, {@code rest-create}, {@code rest-page}, {@code rest-page-summary}
+ * (the same page without bodies), {@code rest-newest} (the newest summaries), {@code grpc-process},
+ * {@code rest-login} (password logins) and {@code rest-refresh} (each thread renews its own token chain).
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final HttpClient http;
+    private String token;
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = "http://" + option("host", "localhost") + ":" + option("port", "8080");
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        String workload = option("workload", "rest-get");
+        int concurrency = Integer.parseInt(option("concurrency", "64"));
+        int preload = Integer.parseInt(option("documents", "10000"));
+        int contentLength = Integer.parseInt(option("content-length", "512"));
+        long warmupSeconds = Long.parseLong(option("warmup", "10"));
+        long durationSeconds = Long.parseLong(option("duration", "30"));
+        double rate = Double.parseDouble(option("rate", "0"));
+
+        String username = option("username", "adminA");
+        String password = option("password", "adminApass");
+        token = login(username, password).get("token").asText();
+        String content = "x".repeat(contentLength);
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        ManagedChannel channel = null;
+        try {
+            System.out.printf("Preloading %d documents...%n", preload);
+            AtomicReferenceArray<String> ids = preload(pool, concurrency, preload, content);
+
+            Operation operation;
+            switch (workload) {
+                case "rest-get" -> operation = () -> expect(200, get("/documents/" + randomId(ids)));
+                case "rest-create" -> operation = () -> expect(201, post("/documents", document(content)));
+                case "rest-page" -> operation = () -> expect(200, get("/documents/tenant?limit=100"));
+                case "rest-page-summary" -> operation = () -> expect(200, get("/documents/tenant?limit=100&view=summary"));
+                case "rest-newest" -> operation = () -> expect(200, get("/documents/tenant/created?limit=20&view=summary"));
+                case "rest-login" -> operation = () -> login(username, password);
+                case "rest-refresh" -> {
+                    ThreadLocal<String> refreshTokens = new ThreadLocal<>();
+                    operation = () -> {
+                        String refreshToken = refreshTokens.get();
+                        JsonNode tokens = refreshToken == null
+                                ? login(username, password)
+                                : anonymousPost("/login/refresh", MAPPER.writeValueAsString(Map.of("refreshToken", refreshToken)));
+                        refreshTokens.set(tokens.get("refreshToken").asText());
+                    };
+                }
+                case "grpc-process" -> {
+                    channel = ManagedChannelBuilder.forAddress(option("host", "localhost"),
+                            Integer.parseInt(option("grpc-port", option("port", "8080")))).usePlaintext().build();
+                    Metadata headers = new Metadata();
+                    headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer " + token);
+                    DocumentProcessorGrpc.DocumentProcessorBlockingStub stub = DocumentProcessorGrpc
+                            .newBlockingStub(channel)
+                            .withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+                    boolean includeContent = Boolean.parseBoolean(option("include-content", "true"));
+                    operation = () -> stub.process(DocumentRequest.newBuilder()
+                            .setDocumentId(randomId(ids))
+                            .setIncludeContent(includeContent)
+                            .build());
+                }
+                default -> throw new IllegalArgumentException("Unknown workload " + workload);
+            }
+
+            System.out.printf("Warming up %s for %ds...%n", workload, warmupSeconds);
+            drive(pool, concurrency, operation, warmupSeconds, rate);
+            System.out.printf("Measuring %s for %ds at concurrency %d%s...%n", workload, durationSeconds, concurrency,
+                    rate > 0 ? ", target " + rate + " ops/s" : "");
+            Result result = drive(pool, concurrency, operation, durationSeconds, rate);
+            result.print(workload, durationSeconds);
+        } finally {
+            pool.shutdownNow();
+            if (channel != null) {
+                channel.shutdownNow();
+            }
+        }
+    }
+
+    private Result drive(ExecutorService pool, int concurrency, Operation operation, long seconds, double rate)
+            throws Exception {
+        Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        // Each thread owns an equal share of the target rate
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+
+        List<Future<?>> workers = new ArrayList<>(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            long offset = interval * t / concurrency;
+            workers.add(pool.submit(() -> {
+                long intended = start + offset;
+                while (true) {
+                    if (interval > 0) {
+                        long now = System.nanoTime();
+                        if (intended > now) {
+                            TimeUnit.NANOSECONDS.sleep(intended - now);
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                    }
+                    if (intended >= end) break;
+                    try {
+                        operation.call();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    recorder.recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS));
+                    intended += interval;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        return new Result(recorder.getIntervalHistogram(), errors.get());
+    }
+
+    private AtomicReferenceArray<String> preload(ExecutorService pool, int concurrency, int count, String content)
+            throws Exception {
+        AtomicReferenceArray<String> ids = new AtomicReferenceArray<>(count);
+        AtomicLong next = new AtomicLong();
+        List<Future<?>> loaders = new ArrayList<>(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            loaders.add(pool.submit(() -> {
+                for (long i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    HttpResponse<String> response = post("/documents", document(content));
+                    expect(201, response);
+                    ids.set((int) i, MAPPER.readTree(response.body()).get("id").asText());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> loader : loaders) {
+            loader.get();
+        }
+        return ids;
+    }
+
+    private JsonNode login(String username, String password) throws IOException, InterruptedException {
+        return anonymousPost("/login", MAPPER.writeValueAsString(Map.of("username", username, "password", password)));
+    }
+
+    private JsonNode anonymousPost(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        expect(200, response);
+        return MAPPER.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String document(String content) throws IOException {
+        return MAPPER.writeValueAsString(Map.of("title", "Load test", "content", content));
+    }
+
+    private static String randomId(AtomicReferenceArray<String> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.length()));
+    }
+
+    private static void expect(int status, HttpResponse<String> response) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void call() throws Exception;
+    }
+
+    private record Result(Histogram latencies, long errors) {
+
+        void print(String workload, long seconds) {
+            long count = latencies.getTotalCount();
+            System.out.printf("%n%s: %d requests, %d errors, %.1f ops/s%n", workload, count, errors,
+                    (double) count / seconds);
+            System.out.printf("latency ms  p50=%.3f  p90=%.3f  p99=%.3f  p99.9=%.3f  max=%.3f%n",
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sdtp.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the service, JVM or native: starts the command after {@code --} a number of
+ * times and reports, per run and as medians, the time until the first HTTP response (an
+ * unauthenticated {@code GET /documents/tenant}, answered 401 once the stack is up), the time
+ * until the first successful login, and the resident set size once both are done (Linux only).
+ * A durable store started with data includes its snapshot load in both times. The command runs
+ * in {@code --dir}, the current directory by default; an AppCDS archive is only used when the jar
+ * is started from where the archive was created.
+ * <pre>
+ * java -cp target/benchmarks.jar com.sdtp.bench.StartupBenchmark --runs 5 -- java -jar ../target/quarkus-app/quarkus-run.jar
+ * java -cp target/benchmarks.jar com.sdtp.bench.StartupBenchmark --runs 5 --dir ../target/quarkus-app -- java -XX:SharedArchiveFile=app-cds.jsa -jar quarkus-run.jar
+ * java -cp target/benchmarks.jar com.sdtp.bench.StartupBenchmark --runs 5 -- ../target/document-service-1.0-SNAPSHOT-runner
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final long POLL_MILLIS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            throw new IllegalArgumentException("Expected [--option value ...] -- <command to start the service>");
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < separator; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        List<String> command = Arrays.asList(args).subList(separator + 1, args.length);
+        File directory = new File(options.getOrDefault("dir", "."));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        String baseUrl = "http://" + options.getOrDefault("host", "localhost") + ":" + options.getOrDefault("port", "8080");
+        String login = "{\"username\":\"" + options.getOrDefault("username", "adminA")
+                + "\",\"password\":\"" + options.getOrDefault("password", "adminApass") + "\"}";
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout", "120")));
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/documents/tenant")).GET().build();
+        HttpRequest loginRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(login))
+                .build();
+
+        System.out.println(String.join(" ", command));
+        System.out.printf("%-5s %18s %18s %10s%n", "run", "first response ms", "first login ms", "RSS MiB");
+        List<Double> responses = new ArrayList<>();
+        List<Double> logins = new ArrayList<>();
+        List<Double> rss = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .directory(directory)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                awaitResponse(http, probe, process, start + timeoutNanos);
+                double response = (System.nanoTime() - start) / 1e6;
+                HttpResponse<Void> loggedIn = http.send(loginRequest, HttpResponse.BodyHandlers.discarding());
+                if (loggedIn.statusCode() != 200) {
+                    throw new IllegalStateException("Login failed with status " + loggedIn.statusCode());
+                }
+                double first = (System.nanoTime() - start) / 1e6;
+                double mib = residentMiB(process.pid());
+                responses.add(response);
+                logins.add(first);
+                rss.add(mib);
+                System.out.printf("%-5d %18.0f %18.0f %10.1f%n", run, response, first, mib);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+        System.out.printf("%-5s %18.0f %18.0f %10.1f%n", "p50", median(responses), median(logins), median(rss));
+    }
+
+    private static void awaitResponse(HttpClient http, HttpRequest probe, Process process, long deadline)
+            throws IOException, InterruptedException {
+        while (true) {
+            try {
+                http.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (ConnectException e) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with status " + process.exitValue());
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Service did not answer in time");
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return the process's resident set size, or NaN where {@code /proc} is not available
+     */
+    private static double residentMiB(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) return Double.NaN;
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024.0;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sdtp.bench;
+
+import com.sdtp.store.DocumentStore;
+import com.sdtp.store.DurableDocumentStore;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.SlabContentStore;
+import com.sdtp.store.wal.FsyncPolicy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Store engines a benchmark can run against, mirroring the {@code document.store.*} configuration.
+ */
+public enum StoreKind {
+    /** Heap-only partitions, the default engine. */
+    MEMORY,
+    /** Heap partitions with bodies of 1 KiB and more kept in direct slabs. */
+    DIRECT,
+    /** Heap partitions behind the write-ahead log, fsync on the default interval. */
+    DURABLE;
+
+    private static final int SLAB_BYTES = 64 << 20;
+    private static final int OFF_HEAP_THRESHOLD = 1024;
+    private static final long SEGMENT_BYTES = 64L << 20;
+
+    /**
+     * @param directory scratch directory for engines that persist, ignored by the others
+     */
+    public DocumentStore open(Path directory) {
+        return switch (this) {
+            case MEMORY -> new InMemoryDocumentStore();
+            case DIRECT -> new InMemoryDocumentStore(new SlabContentStore(null, SLAB_BYTES), OFF_HEAP_THRESHOLD);
+            // Snapshots are pushed past the run so they never land inside a measurement
+            case DURABLE -> new DurableDocumentStore(new InMemoryDocumentStore(), directory, FsyncPolicy.INTERVAL,
+                    Duration.ofMillis(50), SEGMENT_BYTES, Duration.ofDays(1));
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.sdtp.bench;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.TieredContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Hit ratio, heap per document and read throughput of {@code tiered} body storage for a range of
+ * heap cache sizes, given as a share of all body bytes. Reads are skewed towards a small set of
+ * documents, roughly like a working set; every read of an evicted body goes to its segment file.
+ * <pre>
+ * java -Xmx8g -cp target/benchmarks.jar com.sdtp.bench.TieredContentBenchmark --documents 200000 --content-length 2048
+ * </pre>
+ */
+public final class TieredContentBenchmark {
+
+    private static final int SEGMENT_BYTES = 64 << 20;
+    private static final int THRESHOLD = 512;
+    private static final double[] HOT_SHARES = {0.01, 0.05, 0.2, 0.5, 1.0};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int documents = Integer.parseInt(options.getOrDefault("documents", "200000"));
+        int contentLength = Integer.parseInt(options.getOrDefault("content-length", "2048"));
+        int reads = Integer.parseInt(options.getOrDefault("reads", String.valueOf(documents * 5)));
+
+        System.out.printf("%,d documents of %,d characters, %,d skewed reads%n", documents, contentLength, reads);
+        System.out.printf("%-10s %12s %12s %12s %12s%n", "hot share", "hit ratio", "heap/doc", "disk/doc", "reads/s");
+        for (double share : HOT_SHARES) {
+            run(share, documents, contentLength, reads);
+        }
+    }
+
+    private static void run(double share, int documents, int contentLength, int reads) throws IOException {
+        Path directory = Files.createTempDirectory("tiered-bench");
+        long hotBytes = (long) (share * documents * contentLength);
+        TieredContentStore bodies = new TieredContentStore(directory, SEGMENT_BYTES, hotBytes);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bodies.bindTo(registry);
+
+        UUID[] ids = new UUID[documents];
+        long heapBefore = usedHeap();
+        InMemoryDocumentStore store = new InMemoryDocumentStore(bodies, THRESHOLD);
+        Random random = new Random(42);
+        for (int i = 0; i < documents; i++) {
+            Document doc = new Document("Document " + i, body(random, contentLength), "tenant-" + (i % 16), "user");
+            ids[i] = doc.getId();
+            store.put(doc);
+        }
+        long heap = usedHeap() - heapBefore;
+        double hitsBefore = gets(registry, "hit");
+        double missesBefore = gets(registry, "miss");
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            // Cubing a uniform draw sends most reads to the low indexes
+            double u = random.nextDouble();
+            checksum += store.get(ids[(int) (u * u * u * documents)]).getContentBytes().remaining();
+        }
+        long readNanos = System.nanoTime() - start;
+
+        double hits = gets(registry, "hit") - hitsBefore;
+        double misses = gets(registry, "miss") - missesBefore;
+        System.out.printf("%-10s %12.3f %12.0f %12.0f %12.0f%n", Math.round(share * 100) + "%",
+                hits / (hits + misses), (double) heap / documents, (double) bodies.liveBytes() / documents,
+                reads / (readNanos / 1e9));
+        if (checksum < 0) System.out.println(checksum);
+        store.close();
+        Files.deleteIfExists(directory);
+    }
+
+    private static double gets(SimpleMeterRegistry registry, String result) {
+        return registry.get("cache.gets").tag("result", result).functionCounter().count();
+    }
+
+    private static String body(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
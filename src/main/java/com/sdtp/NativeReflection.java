@@ -0,0 +1,26 @@
+package com.sdtp;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Classes a native image cannot discover by itself. Caffeine picks a generated cache class and
+ * node class for each combination of builder options and instantiates them by name, so every
+ * combination the service builds is listed: weighed with statistics ({@code ResponseCache},
+ * {@code TieredContentStore}), sized with variable expiry ({@code AuthContextCache}) and sized
+ * with expiry after write ({@code TokenIssuer}). Variable expiry has {@code PSAWMS} listed as
+ * well as {@code PSWMS}, which this Caffeine version loads for it. A new cache configuration needs
+ * its classes added; {@code NativeCachesIT} runs every cache in the built application.
+ */
+@RegisterForReflection(classNames = {
+        "com.github.benmanes.caffeine.cache.SSSMW",
+        "com.github.benmanes.caffeine.cache.PSMW",
+        "com.github.benmanes.caffeine.cache.SSMSA",
+        "com.github.benmanes.caffeine.cache.SSMSW",
+        "com.github.benmanes.caffeine.cache.PSWMS",
+        "com.github.benmanes.caffeine.cache.PSAWMS"
+})
+final class NativeReflection {
+
+    private NativeReflection() {
+    }
+}
@@ -0,0 +1,181 @@
+package com.sdtp.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control keyed by tenant: a token bucket bounds each tenant's request rate and a counter
+ * bounds its requests in progress, so one tenant cannot take every worker and event-loop turn.
+ * Both are single atomics updated by compare-and-set; admitting a request never takes a lock.
+ * <p>
+ * The bucket is kept as a generic cell rate algorithm: one timestamp, the time at which the
+ * bucket would be full again, is advanced by {@code cost / rate} per admitted request, and a
+ * request is shed when that would put it more than {@code burst / rate} ahead of now.
+ */
+@ApplicationScoped
+public class TenantLimiter {
+
+    private static final Logger LOG = Logger.getLogger(TenantLimiter.class);
+
+    /** Permit for requests that are not limited; releasing it does nothing. */
+    private static final Permit UNLIMITED = new Permit(null);
+
+    /**
+     * Quota of one tenant; a rate or concurrency of 0 or less means unlimited.
+     */
+    public static final class Limits {
+
+        final double rate;
+        final int burst;
+        final int maxConcurrent;
+
+        public Limits(double rate, int burst, int maxConcurrent) {
+            this.rate = rate;
+            this.burst = Math.max(1, burst);
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    private final boolean enabled;
+    private final MeterRegistry registry;
+    private final Limits defaults;
+    private final Map<String, Limits> overrides;
+    private final ConcurrentHashMap<String, TenantState> tenants = new ConcurrentHashMap<>();
+
+    @Inject
+    TenantLimiter(TenantLimitsConfig config, MeterRegistry registry) {
+        this(config.enabled(), registry, new Limits(config.rate(), config.burst(), config.maxConcurrent()),
+                overrides(config));
+        LOG.infof(enabled
+                ? "Tenant limits: %.0f req/s, burst %d, %d concurrent by default; %d tenant overrides"
+                : "Tenant limits disabled", defaults.rate, defaults.burst, defaults.maxConcurrent, overrides.size());
+    }
+
+    public TenantLimiter(boolean enabled, MeterRegistry registry, Limits defaults, Map<String, Limits> overrides) {
+        this.enabled = enabled;
+        this.registry = registry;
+        this.defaults = defaults;
+        this.overrides = overrides;
+    }
+
+    /**
+     * Admit {@code cost} requests' worth of work for a tenant and hold one concurrency slot until
+     * the returned permit is released.
+     *
+     * @throws TenantOverloadedException when the tenant is over its rate or concurrency quota
+     */
+    public Permit acquire(String tenantId, int cost) {
+        if (!enabled || tenantId == null) return UNLIMITED;
+
+        TenantState state = tenants.computeIfAbsent(tenantId, this::newState);
+        if (state.limits.maxConcurrent > 0 && state.inFlight.incrementAndGet() > state.limits.maxConcurrent) {
+            state.inFlight.decrementAndGet();
+            state.concurrencyLimited.increment();
+            throw new TenantOverloadedException("Too many concurrent requests for tenant " + tenantId, 1);
+        }
+
+        long waitNanos = state.limits.rate > 0 ? state.take(cost, System.nanoTime()) : 0;
+        if (waitNanos > 0) {
+            if (state.limits.maxConcurrent > 0) state.inFlight.decrementAndGet();
+            state.rateLimited.increment();
+            throw new TenantOverloadedException("Request rate exceeded for tenant " + tenantId,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        state.admitted.increment();
+        return state.limits.maxConcurrent > 0 ? new Permit(state) : UNLIMITED;
+    }
+
+    private TenantState newState(String tenantId) {
+        return new TenantState(tenantId, overrides.getOrDefault(tenantId, defaults), registry);
+    }
+
+    private static Map<String, Limits> overrides(TenantLimitsConfig config) {
+        Map<String, Limits> limits = new HashMap<>();
+        config.tenant().forEach((tenantId, quota) -> limits.put(tenantId, new Limits(
+                quota.rate().orElse(config.rate()),
+                quota.burst().orElse(config.burst()),
+                quota.maxConcurrent().orElse(config.maxConcurrent()))));
+        return limits;
+    }
+
+    /**
+     * A tenant's concurrency slot; release it exactly when the request's work is done. Extra
+     * releases are ignored.
+     */
+    public static final class Permit {
+
+        private final TenantState state;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(TenantState state) {
+            this.state = state;
+        }
+
+        public void release() {
+            if (state != null && released.compareAndSet(false, true)) {
+                state.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    static final class TenantState {
+
+        final Limits limits;
+        final AtomicInteger inFlight = new AtomicInteger();
+        // Theoretical arrival time: when the bucket would be full again, in System.nanoTime() units
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+        private final long nanosPerToken;
+        private final long toleranceNanos;
+        final Counter admitted;
+        final Counter rateLimited;
+        final Counter concurrencyLimited;
+
+        TenantState(String tenantId, Limits limits, MeterRegistry registry) {
+            this.limits = limits;
+            this.nanosPerToken = limits.rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / limits.rate) : 0;
+            this.toleranceNanos = nanosPerToken * limits.burst;
+            this.admitted = decisions(registry, tenantId, "admitted");
+            this.rateLimited = decisions(registry, tenantId, "rate-limited");
+            this.concurrencyLimited = decisions(registry, tenantId, "concurrency-limited");
+            Gauge.builder("tenant.requests.active", inFlight, AtomicInteger::get)
+                    .description("Admitted requests in progress per tenant")
+                    .tag("tenant", tenantId)
+                    .register(registry);
+        }
+
+        /**
+         * @return 0 when {@code cost} tokens were taken, otherwise how long until they would be available
+         */
+        long take(int cost, long now) {
+            // A single request never needs more than a full bucket
+            long charge = nanosPerToken * Math.min(cost, limits.burst);
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + charge;
+                long wait = next - now - toleranceNanos;
+                if (wait > 0) return wait;
+                if (fullAt.compareAndSet(current, next)) return 0;
+            }
+        }
+
+        private static Counter decisions(MeterRegistry registry, String tenantId, String decision) {
+            return Counter.builder("tenant.admission")
+                    .description("Admission decisions per tenant")
+                    .tag("tenant", tenantId)
+                    .tag("decision", decision)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.sdtp.admission;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+/**
+ * Per-tenant admission quotas. Every tenant gets the defaults unless it has an entry under
+ * {@code tenant.limits.tenant."<tenant_id>"}; a rate or concurrency of 0 means unlimited.
+ */
+@ConfigMapping(prefix = "tenant.limits")
+public interface TenantLimitsConfig {
+
+    /**
+     * Whether REST requests and gRPC lookups are admitted through the limiter at all.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Sustained requests per second per tenant.
+     */
+    @WithDefault("1000")
+    double rate();
+
+    /**
+     * Requests a tenant may issue at once after being idle, on top of the sustained rate.
+     */
+    @WithDefault("2000")
+    int burst();
+
+    /**
+     * Requests of one tenant in progress at the same time.
+     */
+    @WithDefault("256")
+    int maxConcurrent();
+
+    /**
+     * Overrides by tenant id; unset values fall back to the defaults above.
+     */
+    Map<String, Quota> tenant();
+
+    interface Quota {
+
+        OptionalDouble rate();
+
+        OptionalInt burst();
+
+        OptionalInt maxConcurrent();
+    }
+}
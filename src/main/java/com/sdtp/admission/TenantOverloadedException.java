@@ -0,0 +1,22 @@
+package com.sdtp.admission;
+
+/**
+ * A tenant is over its quota and the request was shed before doing any work. Thrown on the hot
+ * path of an overloaded tenant, so it carries no stack trace.
+ */
+public class TenantOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TenantOverloadedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Whole seconds after which a retry can succeed, at least 1.
+     */
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
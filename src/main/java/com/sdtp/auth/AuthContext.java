@@ -0,0 +1,105 @@
+package com.sdtp.auth;
+
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.ws.rs.ForbiddenException;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import java.util.Set;
+
+/**
+ * Immutable, pre-parsed view of a verified caller: tenant, principal name and a role bitset.
+ * Built once per token (see {@link AuthContextCache}) so the document hot path never touches
+ * JWT claims or role sets.
+ */
+public final class AuthContext {
+
+    public static final int ROLE_ADMIN = 1;
+    public static final int ROLE_VIEWER = 1 << 1;
+
+    private final String tenantId;
+    private final String principal;
+    private final int roles;
+    private final long expiresAt;
+
+    public AuthContext(String tenantId, String principal, int roles, long expiresAt) {
+        if (tenantId == null) {
+            throw new ForbiddenException("Token carries no tenant");
+        }
+        this.tenantId = tenantId;
+        this.principal = principal;
+        this.roles = roles;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Parse a token without caching.
+     */
+    public static AuthContext of(JsonWebToken jwt) {
+        return new AuthContext(jwt.getClaim("tenant_id"), jwt.getName(), roleBits(jwt.getGroups()), expiry(jwt));
+    }
+
+    /**
+     * Parse a security identity (gRPC path) without caching; roles come from the identity.
+     */
+    public static AuthContext of(SecurityIdentity identity) {
+        long expiresAt = 0;
+        String tenantId;
+        if (identity.getPrincipal() instanceof JsonWebToken jwt) {
+            tenantId = jwt.getClaim("tenant_id");
+            expiresAt = expiry(jwt);
+        } else {
+            tenantId = identity.getAttribute("tenant_id");
+        }
+        return new AuthContext(tenantId, identity.getPrincipal().getName(), roleBits(identity.getRoles()), expiresAt);
+    }
+
+    private static long expiry(JsonWebToken jwt) {
+        // Not getExpirationTime(): it unboxes and fails on tokens without "exp"
+        Object exp = jwt.getClaim(Claims.exp);
+        return exp instanceof Number number ? number.longValue() : 0;
+    }
+
+    static int roleBits(Set<String> groups) {
+        int bits = 0;
+        if (groups != null) {
+            if (groups.contains("admin")) bits |= ROLE_ADMIN;
+            if (groups.contains("viewer")) bits |= ROLE_VIEWER;
+        }
+        return bits;
+    }
+
+    public String tenantId() {
+        return tenantId;
+    }
+
+    public String principal() {
+        return principal;
+    }
+
+    public int roles() {
+        return roles;
+    }
+
+    /**
+     * Token expiry in epoch seconds, or 0 when the token does not carry one.
+     */
+    public long expiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isAdmin() {
+        return (roles & ROLE_ADMIN) != 0;
+    }
+
+    /**
+     * Admin or viewer.
+     */
+    public boolean canRead() {
+        return (roles & (ROLE_ADMIN | ROLE_VIEWER)) != 0;
+    }
+
+    public boolean ownsTenant(String documentTenantId) {
+        return tenantId.equals(documentTenantId);
+    }
+}
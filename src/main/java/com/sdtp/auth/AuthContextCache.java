@@ -0,0 +1,80 @@
+package com.sdtp.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of {@link AuthContext}s keyed by token id ({@code jti}); entries expire with
+ * their token. Tokens without an id are parsed on every call.
+ */
+@ApplicationScoped
+public class AuthContextCache {
+
+    /** Upper bound for tokens that carry no expiry. */
+    private static final long MAX_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    private final Cache<String, AuthContext> contexts;
+
+    public AuthContextCache() {
+        this(10_000);
+    }
+
+    @Inject
+    public AuthContextCache(@ConfigProperty(name = "auth.context-cache.max-size", defaultValue = "10000") long maxSize) {
+        this.contexts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, AuthContext>() {
+                    @Override
+                    public long expireAfterCreate(String key, AuthContext context, long currentTime) {
+                        return ttlNanos(context);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, AuthContext context, long currentTime, long currentDuration) {
+                        return ttlNanos(context);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, AuthContext context, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public AuthContext resolve(JsonWebToken jwt) {
+        String tokenId = jwt.getTokenID();
+        if (tokenId == null) {
+            return AuthContext.of(jwt);
+        }
+        return contexts.get(tokenId, id -> AuthContext.of(jwt));
+    }
+
+    public AuthContext resolve(SecurityIdentity identity) {
+        if (identity.getPrincipal() instanceof JsonWebToken jwt && jwt.getTokenID() != null) {
+            return contexts.get(jwt.getTokenID(), id -> AuthContext.of(identity));
+        }
+        return AuthContext.of(identity);
+    }
+
+    public long size() {
+        return contexts.estimatedSize();
+    }
+
+    private static long ttlNanos(AuthContext context) {
+        if (context.expiresAt() <= 0) {
+            return MAX_TTL_NANOS;
+        }
+        long remaining = Duration.ofSeconds(context.expiresAt() - System.currentTimeMillis() / 1000).toNanos();
+        return Math.max(0, Math.min(remaining, MAX_TTL_NANOS));
+    }
+}
@@ -1,11 +1,12 @@
 package com.sdtp.auth;
 
-import io.smallrye.jwt.build.Jwt;
+import com.sdtp.metrics.AuthMetrics;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @Path("/login")
@@ -13,28 +14,54 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 public class AuthController {
 
+    @Inject
+    AuthMetrics authMetrics;
+
+    @Inject
+    LoginService loginService;
+
     public static class LoginRequest {
         public String username;
         public String password;
     }
 
+    public static class RefreshRequest {
+        public String refreshToken;
+    }
+
+    @POST
+    public Uni<Response> login(LoginRequest request) {
+        return loginService.login(request.username, request.password).map(tokens -> {
+            if (tokens == null) {
+                authMetrics.invalidCredentials();
+                return unauthorized("Invalid credentials");
+            }
+            return ok(tokens);
+        });
+    }
+
+    /**
+     * Trade a refresh token for a new access token and refresh token; each refresh token works once.
+     */
     @POST
-    public Response login(LoginRequest request) {
-        var user = UserStore.getByUsername(request.username);
-        if (user == null || !user.password.equals(request.password)) {
-            return Response.status(Response.Status.UNAUTHORIZED).entity(Map.of("error", "Invalid credentials")).build();
+    @Path("/refresh")
+    public Response refresh(RefreshRequest request) {
+        TokenIssuer.Tokens tokens = loginService.refresh(request.refreshToken);
+        if (tokens == null) {
+            authMetrics.invalidRefreshToken();
+            return unauthorized("Invalid refresh token");
         }
+        return ok(tokens);
+    }
+
+    private static Response ok(TokenIssuer.Tokens tokens) {
+        return Response.ok(Map.of(
+                "token", tokens.token(),
+                "refreshToken", tokens.refreshToken(),
+                "expiresIn", tokens.expiresIn())).build();
+    }
 
-        // Build JWT
-        String token = Jwt.claim("tenant_id", user.tenantId)
-                .groups(user.roles)
-                .subject(user.username)
-                .issuer("doc-service")
-                .expiresIn(1800L)
-                .sign();
-
-        Map<String, String> resp = new HashMap<>();
-        resp.put("token", token);
-        return Response.ok(resp).build();
+    private static Response unauthorized(String error) {
+        return Response.status(Response.Status.UNAUTHORIZED).entity(Map.of("error", error)).build();
     }
 }
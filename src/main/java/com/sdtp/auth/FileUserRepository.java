@@ -0,0 +1,104 @@
+package com.sdtp.auth;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Accounts read from a text file, one per line:
+ * <pre>
+ * username:tenant_id:role[,role...]:password_hash
+ * </pre>
+ * Blank lines and lines starting with {@code #} are skipped. The file named by
+ * {@code auth.users.file} is used when set, the bundled {@code users.txt} otherwise. It is read on
+ * the first lookup and indexed by username; later lookups are a single hash-map read.
+ */
+@ApplicationScoped
+public class FileUserRepository implements UserRepository {
+
+    private static final Logger LOG = Logger.getLogger(FileUserRepository.class);
+    private static final String BUNDLED = "users.txt";
+
+    private final Optional<Path> file;
+    private volatile Map<String, User> users;
+
+    @Inject
+    public FileUserRepository(@ConfigProperty(name = "auth.users.file") Optional<String> file) {
+        this.file = file.map(Path::of);
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        if (username == null) return null;
+        Map<String, User> loaded = users;
+        if (loaded == null) {
+            loaded = load();
+        }
+        return loaded.get(username);
+    }
+
+    private synchronized Map<String, User> load() {
+        if (users == null) {
+            try (InputStream in = open()) {
+                users = parse(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read users from " + source(), e);
+            }
+            LOG.infof("Loaded %d users from %s", users.size(), source());
+        }
+        return users;
+    }
+
+    private InputStream open() throws IOException {
+        if (file.isPresent()) {
+            return Files.newInputStream(file.get());
+        }
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(BUNDLED);
+        if (in == null) {
+            throw new IOException(BUNDLED + " is not on the classpath");
+        }
+        return in;
+    }
+
+    private String source() {
+        return file.map(Path::toString).orElse("classpath:" + BUNDLED);
+    }
+
+    private static Map<String, User> parse(InputStream in) throws IOException {
+        Map<String, User> parsed = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int number = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            number++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] fields = line.split(":", 4);
+            if (fields.length != 4 || fields[0].isEmpty() || fields[1].isEmpty()) {
+                throw new IOException("Malformed user entry on line " + number);
+            }
+            Set<String> roles = new LinkedHashSet<>(Arrays.asList(fields[2].split(",")));
+            roles.remove("");
+            if (parsed.put(fields[0], new User(fields[0], fields[3], fields[1], roles)) != null) {
+                throw new IOException("Duplicate user " + fields[0] + " on line " + number);
+            }
+        }
+        return parsed;
+    }
+}
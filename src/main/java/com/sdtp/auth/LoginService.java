@@ -0,0 +1,90 @@
+package com.sdtp.auth;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password logins and token refreshes. Checking a password costs a full PBKDF2 derivation, so it
+ * runs on a small pool of its own with a bounded queue: a login storm queues there and is then
+ * turned away with 503, instead of occupying the event loop or the workers that serve documents.
+ */
+@ApplicationScoped
+public class LoginService {
+
+    private final UserRepository users;
+    private final TokenIssuer tokens;
+    private final PasswordHasher hasher;
+    private final ExecutorService pool;
+    // Checked for unknown users, so they take as long to reject as a wrong password
+    private final String unknownUserHash;
+
+    @Inject
+    LoginService(UserRepository users, TokenIssuer tokens,
+                 @ConfigProperty(name = "auth.password.iterations", defaultValue = "210000") int iterations,
+                 @ConfigProperty(name = "auth.login.threads", defaultValue = "4") int threads,
+                 @ConfigProperty(name = "auth.login.queue", defaultValue = "256") int queue) {
+        this(users, tokens, new PasswordHasher(iterations), hashingPool(threads, queue));
+    }
+
+    public LoginService(UserRepository users, TokenIssuer tokens, PasswordHasher hasher, ExecutorService pool) {
+        this.users = users;
+        this.tokens = tokens;
+        this.hasher = hasher;
+        this.pool = pool;
+        this.unknownUserHash = hasher.hash("");
+    }
+
+    /**
+     * Tokens for a valid username and password, or a {@code null} item when they do not match.
+     */
+    public Uni<TokenIssuer.Tokens> login(String username, String password) {
+        return Uni.createFrom().item(() -> {
+                    User user = users.findByUsername(username);
+                    boolean valid = hasher.verify(password, user != null ? user.passwordHash() : unknownUserHash);
+                    return valid && user != null ? tokens.issue(user) : null;
+                })
+                .runSubscriptionOn(pool)
+                .onFailure(RejectedExecutionException.class)
+                .transform(e -> new ServiceUnavailableException("Too many logins in progress"));
+    }
+
+    /**
+     * A new token pair in exchange for a refresh token, or {@code null} when the token is not
+     * redeemable or its user no longer exists. Roles and tenant are read again from the repository.
+     */
+    public TokenIssuer.Tokens refresh(String refreshToken) {
+        String username = tokens.redeem(refreshToken);
+        User user = username != null ? users.findByUsername(username) : null;
+        return user != null ? tokens.issue(user) : null;
+    }
+
+    @PreDestroy
+    void close() {
+        pool.shutdown();
+    }
+
+    private static ExecutorService hashingPool(int threads, int queue) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "login-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), factory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
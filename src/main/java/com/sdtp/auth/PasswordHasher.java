@@ -0,0 +1,84 @@
+package com.sdtp.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, encoded as
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} with unpadded base64 parts. The iteration count
+ * travels with each hash, so raising it only affects hashes created afterwards.
+ * <p>
+ * Generate an entry for the users file with
+ * {@code java -cp target/classes com.sdtp.auth.PasswordHasher <password>}.
+ */
+public final class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String SCHEME = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int iterations;
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return SCHEME + '$' + iterations + '$' + ENCODER.encodeToString(salt) + '$'
+                + ENCODER.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Whether {@code password} matches {@code encoded}; malformed hashes never match. Costs one
+     * full derivation, so callers run it off the event loop.
+     */
+    public boolean verify(String password, String encoded) {
+        if (password == null || encoded == null) return false;
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !SCHEME.equals(parts[0])) return false;
+        try {
+            int rounds = Integer.parseInt(parts[1]);
+            byte[] salt = DECODER.decode(parts[2]);
+            byte[] expected = DECODER.decode(parts[3]);
+            if (rounds < 1 || expected.length == 0) return false;
+            return MessageDigest.isEqual(expected, derive(password, salt, rounds));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: PasswordHasher <password> [iterations]");
+            System.exit(2);
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        System.out.println(new PasswordHasher(rounds).hash(args[0]));
+    }
+}
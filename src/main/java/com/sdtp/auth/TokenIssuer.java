@@ -0,0 +1,183 @@
+package com.sdtp.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.smallrye.jwt.build.Jwt;
+import io.smallrye.jwt.util.KeyUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jose4j.jwk.JsonWebKey;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Signs access tokens and keeps the refresh tokens that renew them. The HS256 key is read once;
+ * {@code Jwt...sign()} without a key would load it from its configured location on every call.
+ * <p>
+ * Refresh tokens are random and single-use: redeeming one removes it and hands out a new pair.
+ * Only their SHA-256 is kept, in memory, so they do not survive a restart and a heap dump does not
+ * leak them.
+ */
+@ApplicationScoped
+public class TokenIssuer {
+
+    public static final String ISSUER = "doc-service";
+    /** Role of tokens cluster nodes present to each other; it grants no document access. */
+    public static final String ROLE_REPLICA = "replica";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecretKey key;
+    private final Duration tokenLifespan;
+    // SHA-256 of a refresh token -> username
+    private final Cache<String, String> refreshTokens;
+    private volatile ReplicaToken replicaToken;
+
+    @Inject
+    TokenIssuer(@ConfigProperty(name = "smallrye.jwt.sign.key.location") String keyLocation,
+                @ConfigProperty(name = "auth.token.lifespan", defaultValue = "30m") Duration tokenLifespan,
+                @ConfigProperty(name = "auth.refresh-token.lifespan", defaultValue = "7d") Duration refreshLifespan,
+                @ConfigProperty(name = "auth.refresh-token.max-size", defaultValue = "100000") long maxRefreshTokens) {
+        this(signingKey(keyLocation), tokenLifespan, refreshLifespan, maxRefreshTokens);
+    }
+
+    public TokenIssuer(SecretKey key, Duration tokenLifespan, Duration refreshLifespan, long maxRefreshTokens) {
+        this.key = key;
+        this.tokenLifespan = tokenLifespan;
+        this.refreshTokens = Caffeine.newBuilder()
+                .maximumSize(maxRefreshTokens)
+                .expireAfterWrite(refreshLifespan)
+                .build();
+    }
+
+    /**
+     * A signed access token for {@code user} and a fresh refresh token.
+     */
+    public Tokens issue(User user) {
+        String token = Jwt.claim("tenant_id", user.tenantId())
+                .groups(user.roles())
+                .subject(user.username())
+                .issuer(ISSUER)
+                .expiresIn(tokenLifespan)
+                .sign(key);
+
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String refreshToken = ENCODER.encodeToString(secret);
+        refreshTokens.put(digest(refreshToken), user.username());
+        return new Tokens(token, refreshToken, tokenLifespan.toSeconds());
+    }
+
+    /**
+     * A token for node {@code nodeId} to call other nodes of the cluster with. Every node signs
+     * with the same key, so every node accepts it.
+     */
+    public String issueReplicaToken(String nodeId) {
+        return Jwt.groups(ROLE_REPLICA)
+                .subject("node:" + nodeId)
+                .issuer(ISSUER)
+                .expiresIn(tokenLifespan)
+                .sign(key);
+    }
+
+    /**
+     * {@link #issueReplicaToken} signed once and reused until a tenth of its lifespan is left, so
+     * calls between nodes do not each sign a token. Two callers renewing at once both sign one;
+     * either token is valid.
+     */
+    public String replicaToken(String nodeId) {
+        ReplicaToken current = replicaToken;
+        long now = System.nanoTime();
+        if (current == null || !current.nodeId.equals(nodeId) || now - current.renewAt >= 0) {
+            current = new ReplicaToken(nodeId, issueReplicaToken(nodeId), now + tokenLifespan.toNanos() / 10 * 9);
+            replicaToken = current;
+        }
+        return current.token;
+    }
+
+    /**
+     * Consume a refresh token; the username it was issued to, or {@code null} when it is unknown,
+     * expired or already used.
+     */
+    public String redeem(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) return null;
+        return refreshTokens.asMap().remove(digest(refreshToken));
+    }
+
+    private static String digest(String refreshToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+            return ENCODER.encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SecretKey signingKey(String location) {
+        try {
+            List<JsonWebKey> keys = KeyUtils.loadJsonWebKeys(KeyUtils.readKeyContent(location));
+            if (keys == null || keys.isEmpty() || !(keys.get(0).getKey() instanceof SecretKey key)) {
+                throw new IllegalStateException(location + " does not hold an HS256 secret key");
+            }
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the token signing key from " + location, e);
+        }
+    }
+
+    private static final class ReplicaToken {
+
+        private final String nodeId;
+        private final String token;
+        // System.nanoTime() after which a new token is signed
+        private final long renewAt;
+
+        ReplicaToken(String nodeId, String token, long renewAt) {
+            this.nodeId = nodeId;
+            this.token = token;
+            this.renewAt = renewAt;
+        }
+    }
+
+    /**
+     * What a successful login or refresh returns.
+     */
+    public static final class Tokens {
+
+        private final String token;
+        private final String refreshToken;
+        private final long expiresIn;
+
+        Tokens(String token, String refreshToken, long expiresIn) {
+            this.token = token;
+            this.refreshToken = refreshToken;
+            this.expiresIn = expiresIn;
+        }
+
+        public String token() {
+            return token;
+        }
+
+        public String refreshToken() {
+            return refreshToken;
+        }
+
+        /**
+         * Access token lifetime in seconds.
+         */
+        public long expiresIn() {
+            return expiresIn;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.sdtp.auth;
+
+import java.util.Set;
+
+/**
+ * A login account: its tenant, roles and salted password hash (see {@link PasswordHasher}).
+ */
+public final class User {
+
+    private final String username;
+    private final String passwordHash;
+    private final String tenantId;
+    private final Set<String> roles;
+
+    public User(String username, String passwordHash, String tenantId, Set<String> roles) {
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.tenantId = tenantId;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public String passwordHash() {
+        return passwordHash;
+    }
+
+    public String tenantId() {
+        return tenantId;
+    }
+
+    public Set<String> roles() {
+        return roles;
+    }
+}
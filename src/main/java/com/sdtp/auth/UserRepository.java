@@ -0,0 +1,13 @@
+package com.sdtp.auth;
+
+/**
+ * Source of login accounts. {@link FileUserRepository} is the default; another store plugs in as
+ * a CDI alternative.
+ */
+public interface UserRepository {
+
+    /**
+     * The account named {@code username}, or {@code null} when there is none.
+     */
+    User findByUsername(String username);
+}
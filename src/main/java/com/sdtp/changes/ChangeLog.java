@@ -0,0 +1,262 @@
+package com.sdtp.changes;
+
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.Document;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-process change log: every document write is recorded, per tenant, in a ring of the last
+ * {@code capacity} events numbered from 1. Appending takes the tenant's lock only to number and
+ * place the event; reads are lock-free. A tenant's ring starts small and doubles as events
+ * arrive, up to {@code capacity}, so tenants that write little, or only subscribe, hold little.
+ * <p>
+ * Subscribers hold no buffer of their own. Each one is a cursor into the ring that is advanced
+ * only as far as it has demand, so a slow consumer costs nothing but its position. One that falls
+ * more than {@code capacity} events behind has lost changes and fails with
+ * {@link ChangesExpiredException}.
+ * <p>
+ * Writes are logged while the store still holds them, so a tenant's events are in the order the
+ * store applied its writes: events for one document carry increasing versions, and nothing
+ * follows a document's deletion until it is stored again.
+ */
+@ApplicationScoped
+public class ChangeLog {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int INITIAL_RING = 16;
+
+    private final int capacity;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, TenantLog> tenants = new ConcurrentHashMap<>();
+
+    @Inject
+    public ChangeLog(@ConfigProperty(name = "document.changes.capacity", defaultValue = "8192") int capacity) {
+        this(capacity, Infrastructure.getDefaultExecutor());
+    }
+
+    /**
+     * @param executor where subscribers are fed when new events arrive, so writers never run consumer code
+     */
+    public ChangeLog(int capacity, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Change log capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    /**
+     * Record a write of {@code document}, which must have its tenant set.
+     */
+    public void append(ChangeEvent.Type type, Document document) {
+        tenants.computeIfAbsent(document.getTenantId(), TenantLog::new).append(type, document);
+    }
+
+    /**
+     * Sequence of the tenant's latest event, 0 before the first.
+     */
+    public long lastSequence(String tenantId) {
+        TenantLog log = tenants.get(tenantId);
+        return log == null ? 0 : log.last;
+    }
+
+    /**
+     * The tenant's events after sequence {@code after}, then every new one as it is appended; the
+     * stream never completes on its own. {@code after} of {@code null} starts at the current end of
+     * the log, 0 at its oldest retained event.
+     *
+     * @throws ChangesExpiredException when events after {@code after} are no longer held, or
+     *                                  {@code after} is beyond the end of the log (which a restart resets)
+     */
+    public Multi<ChangeEvent> subscribe(String tenantId, Long after) {
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Sequence must not be negative");
+        }
+        TenantLog log = tenants.computeIfAbsent(tenantId, TenantLog::new);
+        long last = log.last;
+        long first = log.firstAvailable();
+        long start;
+        if (after == null) {
+            start = last + 1;
+        } else if (after > last) {
+            throw new ChangesExpiredException("Sequence " + after + " is beyond the end of the change log at " + last, first);
+        } else if (after == 0) {
+            start = first;
+        } else if (after + 1 < first) {
+            throw new ChangesExpiredException("Changes after " + after + " are no longer held", first);
+        } else {
+            start = after + 1;
+        }
+        return Multi.createFrom().publisher(subscriber -> {
+            Subscription subscription = new Subscription(log, start, subscriber);
+            log.subscribers.add(subscription);
+            subscriber.onSubscribe(subscription);
+        });
+    }
+
+    /**
+     * Number of subscriptions currently open across all tenants.
+     */
+    public int subscribers() {
+        int count = 0;
+        for (TenantLog log : tenants.values()) {
+            count += log.subscribers.size();
+        }
+        return count;
+    }
+
+    private final class TenantLog {
+
+        final String tenantId;
+        final CopyOnWriteArraySet<Subscription> subscribers = new CopyOnWriteArraySet<>();
+        // Holds every event up to its length, so growing never loses one; null before the first.
+        // Replaced before the event that needs the room is placed, so a reader that has seen
+        // last also sees a ring holding that event.
+        volatile AtomicReferenceArray<ChangeEvent> ring;
+        // Published after the event it counts is in the ring
+        volatile long last;
+
+        TenantLog(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        void append(ChangeEvent.Type type, Document document) {
+            synchronized (this) {
+                long sequence = last + 1;
+                AtomicReferenceArray<ChangeEvent> events = ring;
+                if (events == null || (sequence > events.length() && events.length() < capacity)) {
+                    events = grow(events);
+                }
+                events.set(slot(events, sequence), new ChangeEvent(sequence, type, document.getId(), tenantId,
+                        document.getVersion(), System.currentTimeMillis()));
+                last = sequence;
+            }
+            for (Subscription subscription : subscribers) {
+                subscription.signal();
+            }
+        }
+
+        long firstAvailable() {
+            return Math.max(1, last - capacity + 1);
+        }
+
+        /**
+         * The event numbered {@code sequence}, which must not be past {@link #last}, or {@code null}
+         * when it has been overwritten.
+         */
+        ChangeEvent get(long sequence) {
+            AtomicReferenceArray<ChangeEvent> events = ring;
+            ChangeEvent event = events.get(slot(events, sequence));
+            return event != null && event.getSequence() == sequence ? event : null;
+        }
+
+        /**
+         * Move the events into a ring twice the size, or the initial one, capped at the capacity.
+         * Called with the lock held.
+         */
+        private AtomicReferenceArray<ChangeEvent> grow(AtomicReferenceArray<ChangeEvent> current) {
+            int length = current == null ? INITIAL_RING : current.length() * 2;
+            AtomicReferenceArray<ChangeEvent> grown = new AtomicReferenceArray<>((int) Math.min(length, capacity));
+            if (current != null) {
+                for (long sequence = 1; sequence <= last; sequence++) {
+                    grown.set(slot(grown, sequence), current.get(slot(current, sequence)));
+                }
+            }
+            ring = grown;
+            return grown;
+        }
+
+        private int slot(AtomicReferenceArray<ChangeEvent> events, long sequence) {
+            return (int) (sequence % events.length());
+        }
+    }
+
+    /**
+     * A cursor into one tenant's ring. Only one thread drains at a time; a signal that arrives
+     * while another is draining makes that one loop again instead of being lost.
+     */
+    private final class Subscription implements Flow.Subscription {
+
+        private final TenantLog log;
+        private final Flow.Subscriber<? super ChangeEvent> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger draining = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private long next;
+
+        Subscription(TenantLog log, long next, Flow.Subscriber<? super ChangeEvent> subscriber) {
+            this.log = log;
+            this.next = next;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Demand must be positive"));
+                return;
+            }
+            requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            log.subscribers.remove(this);
+        }
+
+        /**
+         * New events are in the ring: feed them on the executor, at most one pending task per subscriber.
+         */
+        void signal() {
+            if (requested.get() > 0 && scheduled.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    scheduled.set(false);
+                    drain();
+                });
+            }
+        }
+
+        private void drain() {
+            if (draining.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled && next <= log.last) {
+                    ChangeEvent event = log.get(next);
+                    if (event == null) {
+                        cancel();
+                        subscriber.onError(new ChangesExpiredException(
+                                "Subscriber fell behind; changes from " + next + " are no longer held",
+                                log.firstAvailable()));
+                        return;
+                    }
+                    subscriber.onNext(event);
+                    next++;
+                    emitted++;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = draining.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
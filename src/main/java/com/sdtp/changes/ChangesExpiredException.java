@@ -0,0 +1,23 @@
+package com.sdtp.changes;
+
+/**
+ * A subscription asked to resume from, or fell behind to, a sequence the tenant's change log no
+ * longer holds. The consumer has to resynchronize from a full list and subscribe again from the
+ * log's current position.
+ */
+public class ChangesExpiredException extends RuntimeException {
+
+    private final long firstAvailable;
+
+    public ChangesExpiredException(String message, long firstAvailable) {
+        super(message);
+        this.firstAvailable = firstAvailable;
+    }
+
+    /**
+     * Oldest sequence the log still held when the subscription failed.
+     */
+    public long firstAvailable() {
+        return firstAvailable;
+    }
+}
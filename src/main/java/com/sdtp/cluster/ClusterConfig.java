@@ -0,0 +1,58 @@
+package com.sdtp.cluster;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Membership and replication settings. Every node is given the same {@code cluster.nodes} and its
+ * own {@code cluster.node-id}; tenants are placed on the nodes by consistent hashing.
+ */
+@ConfigMapping(prefix = "cluster")
+public interface ClusterConfig {
+
+    /**
+     * Off by default: one node holds every tenant and nothing is forwarded or replicated.
+     */
+    @WithDefault("false")
+    boolean enabled();
+
+    /**
+     * This node's id, one of the keys of {@link #nodes()}.
+     */
+    Optional<String> nodeId();
+
+    /**
+     * Every member by id, as the {@code host:port} its HTTP and gRPC server listens on.
+     */
+    Map<String, String> nodes();
+
+    /**
+     * Copies of each tenant: its leader plus {@code replication-factor - 1} followers.
+     */
+    @WithDefault("2")
+    int replicationFactor();
+
+    /**
+     * Points per node on the hash ring; more points spread tenants more evenly.
+     */
+    @WithDefault("128")
+    int virtualNodes();
+
+    /**
+     * How far behind its leader a follower may be and still answer reads itself. Older than this,
+     * reads are forwarded to the leader.
+     */
+    @WithDefault("5s")
+    Duration maxStaleness();
+
+    /**
+     * How often leaders check their replication streams, reconnect failed ones and tell idle
+     * followers they are still current.
+     */
+    @WithDefault("1s")
+    Duration heartbeatInterval();
+}
@@ -0,0 +1,93 @@
+package com.sdtp.cluster;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where each tenant lives: its leader, which takes every write, and its followers, which hold
+ * replicas for reads. Tenants are placed by a {@link HashRing} over the configured members, so
+ * every node computes the same placement without coordinating. With clustering off this node is
+ * the leader of every tenant.
+ */
+@ApplicationScoped
+public class ClusterTopology {
+
+    private static final Logger LOG = Logger.getLogger(ClusterTopology.class);
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final Map<String, String> addresses;
+    private final HashRing ring;
+    private final int replicationFactor;
+    // Tenant -> replicas, leader first; placement never changes while the node runs
+    private final ConcurrentHashMap<String, List<String>> placements = new ConcurrentHashMap<>();
+
+    @Inject
+    ClusterTopology(ClusterConfig config) {
+        this(config.enabled(), config.nodeId().orElse(null), config.nodes(), config.replicationFactor(),
+                config.virtualNodes());
+        if (enabled) {
+            LOG.infof("Cluster node %s of %d, replication factor %d", nodeId, addresses.size(), replicationFactor);
+        }
+    }
+
+    public ClusterTopology(boolean enabled, String nodeId, Map<String, String> addresses, int replicationFactor,
+                           int virtualNodes) {
+        if (enabled && (nodeId == null || !addresses.containsKey(nodeId))) {
+            throw new IllegalArgumentException("cluster.node-id must name one of cluster.nodes");
+        }
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("Replication factor must be positive");
+        }
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.addresses = Map.copyOf(addresses);
+        this.ring = enabled ? new HashRing(addresses.keySet(), virtualNodes) : null;
+        this.replicationFactor = replicationFactor;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The tenant's replicas, its leader first.
+     */
+    public List<String> replicas(String tenantId) {
+        if (!enabled) return List.of();
+        return placements.computeIfAbsent(tenantId, t -> List.copyOf(ring.owners(t, replicationFactor)));
+    }
+
+    public String leader(String tenantId) {
+        return enabled ? replicas(tenantId).get(0) : nodeId;
+    }
+
+    public List<String> followers(String tenantId) {
+        List<String> replicas = replicas(tenantId);
+        return replicas.isEmpty() ? List.of() : replicas.subList(1, replicas.size());
+    }
+
+    public boolean isLeader(String tenantId) {
+        return !enabled || nodeId.equals(leader(tenantId));
+    }
+
+    public boolean isFollower(String tenantId) {
+        return enabled && followers(tenantId).contains(nodeId);
+    }
+
+    /**
+     * {@code host:port} of a member.
+     */
+    public String address(String node) {
+        return addresses.get(node);
+    }
+}
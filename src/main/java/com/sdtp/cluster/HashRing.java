@@ -0,0 +1,97 @@
+package com.sdtp.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Consistent hashing of keys onto nodes. Every node is placed at {@code virtualNodes} points of a
+ * 64-bit ring, and a key belongs to the nodes at the first distinct points clockwise of its hash.
+ * Adding or removing a node therefore only moves the keys next to that node's points, about
+ * {@code 1/n} of them. Immutable; a change of membership builds a new ring.
+ */
+public final class HashRing {
+
+    private final long[] points;
+    private final String[] pointNodes;
+    private final int nodes;
+
+    public HashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        // Sorted so every node that is given the same members builds the same ring
+        List<String> sorted = new ArrayList<>(new TreeSet<>(nodeIds));
+        this.nodes = sorted.size();
+
+        long[][] placed = new long[nodes * virtualNodes][];
+        int i = 0;
+        for (int n = 0; n < nodes; n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[i++] = new long[]{hash(sorted.get(n) + "#" + v), n};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[placed.length];
+        this.pointNodes = new String[placed.length];
+        for (int p = 0; p < placed.length; p++) {
+            points[p] = placed[p][0];
+            pointNodes[p] = sorted.get((int) placed[p][1]);
+        }
+    }
+
+    /**
+     * The first node clockwise of {@code key}.
+     */
+    public String owner(String key) {
+        return pointNodes[start(key)];
+    }
+
+    /**
+     * Up to {@code count} distinct nodes for {@code key}, in ring order; the first is its {@link #owner}.
+     */
+    public List<String> owners(String key, int count) {
+        int wanted = Math.min(count, nodes);
+        List<String> owners = new ArrayList<>(wanted);
+        int p = start(key);
+        for (int seen = 0; owners.size() < wanted && seen < points.length; seen++) {
+            String node = pointNodes[(p + seen) % points.length];
+            if (!owners.contains(node)) owners.add(node);
+        }
+        return owners;
+    }
+
+    public int size() {
+        return nodes;
+    }
+
+    private int start(String key) {
+        int p = Arrays.binarySearch(points, hash(key));
+        if (p < 0) p = -p - 1;
+        return p == points.length ? 0 : p;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, then MurmurHash3's finalizer so that similar keys such as
+     * {@code node-1#1} and {@code node-1#2} land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,55 @@
+package com.sdtp.cluster;
+
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.stub.MetadataUtils;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One gRPC channel per other member, opened on first use over the port that member serves HTTP
+ * and gRPC on. Channels reconnect by themselves, so they are kept for the life of the node.
+ */
+@ApplicationScoped
+public class Peers {
+
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ClusterTopology topology;
+    private final ConcurrentHashMap<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+
+    @Inject
+    public Peers(ClusterTopology topology) {
+        this.topology = topology;
+    }
+
+    public ManagedChannel channel(String node) {
+        return channels.computeIfAbsent(node, n -> {
+            String address = topology.address(n);
+            if (address == null) {
+                throw new IllegalArgumentException("Unknown cluster node " + n);
+            }
+            return ManagedChannelBuilder.forTarget(address).usePlaintext().build();
+        });
+    }
+
+    /**
+     * Sends {@code token} as the bearer credential of every call it is attached to.
+     */
+    public static ClientInterceptor bearer(String token) {
+        Metadata headers = new Metadata();
+        headers.put(AUTHORIZATION, "Bearer " + token);
+        return MetadataUtils.newAttachHeadersInterceptor(headers);
+    }
+
+    @PreDestroy
+    void close() {
+        channels.values().forEach(ManagedChannel::shutdownNow);
+    }
+}
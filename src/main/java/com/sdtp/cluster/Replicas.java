@@ -0,0 +1,120 @@
+package com.sdtp.cluster;
+
+import com.sdtp.grpc.DocumentMessages;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationEntry;
+import com.sdtp.model.Document;
+import com.sdtp.store.DocumentStore;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Follower side of replication: applies a leader's entries to the local store and tracks, per
+ * tenant, whether the copy is current enough to serve reads.
+ * <p>
+ * Entries carry whole documents, and one is applied only when it is newer than the local copy, so
+ * applying an entry twice or a snapshot entry after a later change converges on the leader's state.
+ * A copy is current for {@code max-staleness} after the leader last reported it caught up; during
+ * a resynchronization it is not current at all.
+ */
+@ApplicationScoped
+public class Replicas {
+
+    private final DocumentStore documentStore;
+    private final long maxStalenessNanos;
+    private final ConcurrentHashMap<String, TenantReplica> tenants = new ConcurrentHashMap<>();
+
+    @Inject
+    Replicas(DocumentStore documentStore, ClusterConfig config) {
+        this(documentStore, config.maxStaleness().toNanos());
+    }
+
+    public Replicas(DocumentStore documentStore, long maxStalenessNanos) {
+        this.documentStore = documentStore;
+        this.maxStalenessNanos = maxStalenessNanos;
+    }
+
+    public void apply(ReplicationEntry entry) {
+        String tenantId = entry.getTenantId();
+        TenantReplica replica = tenants.computeIfAbsent(tenantId, t -> new TenantReplica());
+        synchronized (replica) {
+            switch (entry.getKind()) {
+                case RESET -> {
+                    replica.syncing = true;
+                    replica.caughtUp = false;
+                    clear(tenantId);
+                }
+                case PUT -> put(tenantId, DocumentMessages.toDocument(entry.getDocument()));
+                case DELETE -> delete(tenantId, UUID.fromString(entry.getDocumentId()), entry.getVersion());
+                case HEARTBEAT -> replica.syncing = false;
+                default -> throw new IllegalArgumentException("Unknown replication entry " + entry.getKind());
+            }
+            replica.sequence = entry.getSequence();
+            if (!replica.syncing && entry.getSequence() >= entry.getLeaderSequence()) {
+                replica.caughtUpAt = System.nanoTime();
+                replica.caughtUp = true;
+            }
+        }
+    }
+
+    /**
+     * Whether reads of the tenant may be answered from the local copy.
+     */
+    public boolean isCurrent(String tenantId) {
+        TenantReplica replica = tenants.get(tenantId);
+        return replica != null && replica.caughtUp && System.nanoTime() - replica.caughtUpAt < maxStalenessNanos;
+    }
+
+    /**
+     * Leader sequence the local copy of the tenant has reached, 0 when there is none.
+     */
+    public long sequence(String tenantId) {
+        TenantReplica replica = tenants.get(tenantId);
+        return replica == null ? 0 : replica.sequence;
+    }
+
+    private void put(String tenantId, Document document) {
+        if (!tenantId.equals(document.getTenantId())) {
+            throw new IllegalArgumentException("Document " + document.getId() + " is not in tenant " + tenantId);
+        }
+        while (true) {
+            Document current = documentStore.get(document.getId());
+            if (current == null) {
+                documentStore.put(document);
+                return;
+            }
+            if (current.getVersion() >= document.getVersion() || documentStore.replace(current, document)) {
+                return;
+            }
+        }
+    }
+
+    private void delete(String tenantId, UUID id, long version) {
+        while (true) {
+            Document current = documentStore.get(id);
+            if (current == null || !tenantId.equals(current.getTenantId()) || current.getVersion() > version
+                    || documentStore.remove(current)) {
+                return;
+            }
+        }
+    }
+
+    private void clear(String tenantId) {
+        List<Document> stale = new ArrayList<>();
+        documentStore.scanTenant(tenantId, null).forEach(stale::add);
+        for (Document document : stale) {
+            documentStore.remove(document);
+        }
+    }
+
+    private static final class TenantReplica {
+        boolean syncing;
+        long sequence;
+        volatile long caughtUpAt;
+        volatile boolean caughtUp;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sdtp.cluster;
+
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.grpc.DocumentMessages;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationEntry;
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.Document;
+import com.sdtp.store.DocumentStore;
+import io.smallrye.mutiny.Multi;
+
+/**
+ * Leader side of replication: what a follower is sent for one tenant. A stream starts with
+ * {@code RESET}, a snapshot of every document and a {@code HEARTBEAT} marking its end, then
+ * follows the tenant's {@link ChangeLog} from the sequence read before the snapshot, so nothing
+ * written during the snapshot is missed. A change is sent as the document's current state rather
+ * than the state the event describes, which is never older. Items are produced only on demand.
+ */
+public final class ReplicationSource {
+
+    private final DocumentStore documentStore;
+    private final ChangeLog changeLog;
+
+    public ReplicationSource(DocumentStore documentStore, ChangeLog changeLog) {
+        this.documentStore = documentStore;
+        this.changeLog = changeLog;
+    }
+
+    public Multi<ReplicationEntry> entries(String tenantId) {
+        return Multi.createFrom().deferred(() -> {
+            long start = changeLog.lastSequence(tenantId);
+            Multi<ReplicationEntry> reset = Multi.createFrom().item(() -> entry(ReplicationEntry.Kind.RESET, tenantId, start).build());
+            Multi<ReplicationEntry> snapshot = Multi.createFrom().iterable(documentStore.scanTenant(tenantId, null))
+                    .onItem().transform(doc -> put(tenantId, start, doc));
+            Multi<ReplicationEntry> end = Multi.createFrom().item(() -> heartbeat(tenantId, start));
+            Multi<ReplicationEntry> changes = changeLog.subscribe(tenantId, start)
+                    .onItem().transform(event -> change(tenantId, event));
+            return Multi.createBy().concatenating().streams(reset, snapshot, end, changes);
+        });
+    }
+
+    /**
+     * Tells the follower it is current when {@code sequence} is still the latest change.
+     */
+    public ReplicationEntry heartbeat(String tenantId, long sequence) {
+        return entry(ReplicationEntry.Kind.HEARTBEAT, tenantId, sequence).build();
+    }
+
+    private ReplicationEntry change(String tenantId, ChangeEvent event) {
+        if (event.getType() == ChangeEvent.Type.DELETED) {
+            return entry(ReplicationEntry.Kind.DELETE, tenantId, event.getSequence())
+                    .setDocumentId(event.getDocumentId().toString())
+                    .setVersion(event.getVersion())
+                    .build();
+        }
+        Document current = documentStore.get(event.getDocumentId());
+        if (current == null) {
+            // Deleted since; its own event follows
+            return heartbeat(tenantId, event.getSequence());
+        }
+        return put(tenantId, event.getSequence(), current);
+    }
+
+    private ReplicationEntry put(String tenantId, long sequence, Document doc) {
+        return entry(ReplicationEntry.Kind.PUT, tenantId, sequence)
+                .setDocument(DocumentMessages.toMessage(doc))
+                .build();
+    }
+
+    private ReplicationEntry.Builder entry(ReplicationEntry.Kind kind, String tenantId, long sequence) {
+        return ReplicationEntry.newBuilder()
+                .setKind(kind)
+                .setTenantId(tenantId)
+                .setSequence(sequence)
+                .setLeaderSequence(changeLog.lastSequence(tenantId));
+    }
+}
@@ -0,0 +1,226 @@
+package com.sdtp.cluster;
+
+import com.sdtp.auth.TokenIssuer;
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.grpc.ReplicationGrpc;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationEntry;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationResult;
+import com.sdtp.store.DocumentStore;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.MultiSubscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Leader side of replication: keeps one {@code Replicate} stream open to every follower of every
+ * tenant this node leads. A stream is fed from {@link ReplicationSource} one entry at a time while
+ * gRPC can take it, so a slow follower leaves its backlog in the change log rather than in memory.
+ * <p>
+ * Every {@code heartbeat-interval} streams that ended are reopened, which starts the follower over
+ * from a snapshot, and idle streams get a heartbeat so their follower knows it is still current.
+ */
+@Startup
+@ApplicationScoped
+public class Replicator {
+
+    private static final Logger LOG = Logger.getLogger(Replicator.class);
+
+    private final ClusterTopology topology;
+    private final Peers peers;
+    private final TokenIssuer tokens;
+    private final DocumentStore documentStore;
+    private final ReplicationSource source;
+    private final long heartbeatMillis;
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    Replicator(ClusterTopology topology, Peers peers, TokenIssuer tokens, DocumentStore documentStore,
+               ChangeLog changeLog, ClusterConfig config) {
+        this.topology = topology;
+        this.peers = peers;
+        this.tokens = tokens;
+        this.documentStore = documentStore;
+        this.source = new ReplicationSource(documentStore, changeLog);
+        this.heartbeatMillis = config.heartbeatInterval().toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!topology.enabled()) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop(@Observes ShutdownEvent event) {
+        if (scheduler != null) scheduler.shutdownNow();
+        feeds.values().forEach(Feed::close);
+    }
+
+    private void tick() {
+        try {
+            for (String tenantId : documentStore.tenants()) {
+                if (!topology.isLeader(tenantId)) continue;
+                for (String follower : topology.followers(tenantId)) {
+                    Feed feed = feeds.get(tenantId + "@" + follower);
+                    if (feed == null || !feed.running) {
+                        feed = new Feed(tenantId, follower);
+                        feeds.put(tenantId + "@" + follower, feed);
+                        feed.start();
+                    } else {
+                        feed.heartbeatIfIdle();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Replication round failed", e);
+        }
+    }
+
+    /**
+     * One tenant's stream to one follower.
+     */
+    private final class Feed implements ClientResponseObserver<ReplicationEntry, ReplicationResult> {
+
+        private final String tenantId;
+        private final String follower;
+        private final AtomicBoolean awaitingItem = new AtomicBoolean();
+        private volatile ClientCallStreamObserver<ReplicationEntry> requests;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean running = true;
+        // Set once the snapshot is through, from when the follower can be current
+        private volatile boolean live;
+        private volatile long lastSent = System.nanoTime();
+        private long sentSequence;
+
+        Feed(String tenantId, String follower) {
+            this.tenantId = tenantId;
+            this.follower = follower;
+        }
+
+        void start() {
+            ReplicationGrpc.newStub(peers.channel(follower))
+                    .withInterceptors(Peers.bearer(tokens.replicaToken(topology.nodeId())))
+                    .replicate(this);
+            source.entries(tenantId).subscribe().withSubscriber(new MultiSubscriber<ReplicationEntry>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription = s;
+                    if (running) {
+                        pull();
+                    } else {
+                        s.cancel();
+                    }
+                }
+
+                @Override
+                public void onItem(ReplicationEntry entry) {
+                    awaitingItem.set(false);
+                    send(entry);
+                    if (entry.getKind() == ReplicationEntry.Kind.HEARTBEAT) live = true;
+                    pull();
+                }
+
+                @Override
+                public void onFailure(Throwable failure) {
+                    // The follower fell further behind than the change log reaches
+                    LOG.debugf(failure, "Replication of %s to %s ended", tenantId, follower);
+                    if (running) requests.onError(failure);
+                    running = false;
+                }
+
+                @Override
+                public void onCompletion() {
+                    requests.onCompleted();
+                }
+            });
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ReplicationEntry> requests) {
+            this.requests = requests;
+            requests.setOnReadyHandler(this::pull);
+        }
+
+        void heartbeatIfIdle() {
+            if (live && requests.isReady()
+                    && System.nanoTime() - lastSent >= TimeUnit.MILLISECONDS.toNanos(heartbeatMillis)) {
+                sendHeartbeat();
+            }
+        }
+
+        /**
+         * Reports what has been sent; the follower is current only if that is the latest change.
+         */
+        private synchronized void sendHeartbeat() {
+            send(source.heartbeat(tenantId, sentSequence));
+        }
+
+        private synchronized void send(ReplicationEntry entry) {
+            if (!running) return;
+            requests.onNext(entry);
+            sentSequence = entry.getSequence();
+            lastSent = System.nanoTime();
+        }
+
+        private void pull() {
+            Flow.Subscription s = subscription;
+            ClientCallStreamObserver<ReplicationEntry> r = requests;
+            if (s != null && r != null && running && r.isReady() && awaitingItem.compareAndSet(false, true)) {
+                s.request(1);
+            }
+        }
+
+        void close() {
+            if (running) {
+                running = false;
+                cancelSource();
+                requests.cancel("Node shutting down", null);
+            }
+        }
+
+        @Override
+        public void onNext(ReplicationResult result) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (live && running) {
+                LOG.warnf("Replication of %s to %s failed: %s", tenantId, follower, t.getMessage());
+            } else {
+                LOG.debugf("Replication of %s to %s failed: %s", tenantId, follower, t.getMessage());
+            }
+            running = false;
+            cancelSource();
+        }
+
+        @Override
+        public void onCompleted() {
+            running = false;
+            cancelSource();
+        }
+
+        private void cancelSource() {
+            Flow.Subscription s = subscription;
+            if (s != null) s.cancel();
+        }
+    }
+}
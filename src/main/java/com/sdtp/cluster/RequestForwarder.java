@@ -0,0 +1,224 @@
+package com.sdtp.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sdtp.auth.AuthContextCache;
+import com.sdtp.auth.TokenIssuer;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.vertx.http.runtime.security.QuarkusHttpUser;
+import io.smallrye.jwt.auth.principal.JWTParser;
+import io.smallrye.jwt.auth.principal.ParseException;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ForbiddenException;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sends REST calls for tenants this node does not serve to the tenant's leader. Writes always go
+ * to the leader; reads stay on a follower while its copy is current, see {@link Replicas}. The
+ * call is relayed as it arrives, body and response streamed through, after this node has
+ * authenticated it; the leader checks the same bearer token again.
+ * <p>
+ * A relayed call carries {@code X-Forwarded-Node} and a replica token in
+ * {@code X-Forwarded-Node-Token}, and such a call is never relayed again, so nodes that disagree
+ * about placement cannot bounce a call between them: it is served where it lands, except that a
+ * write reaching a node that does not lead the tenant is refused with 503 rather than applied to
+ * a copy that would never be replicated. Without a valid replica token the header is ignored and
+ * the call routed like any other. This node signs its replica token once and renews it shortly
+ * before it expires; a peer's token is verified once and then known by value until it expires.
+ */
+@ApplicationScoped
+public class RequestForwarder {
+
+    private static final Logger LOG = Logger.getLogger(RequestForwarder.class);
+
+    public static final String FORWARDED_NODE = "X-Forwarded-Node";
+    public static final String FORWARDED_NODE_TOKEN = "X-Forwarded-Node-Token";
+
+    // After authentication (ordered at minus its priority), before the REST endpoints
+    private static final int ROUTE_ORDER = 1000;
+    // A few live tokens per peer at most, since each renews its own shortly before expiry
+    private static final int MAX_PEER_TOKENS = 1024;
+
+    private static final Set<String> HOP_BY_HOP = Set.of("host", "connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authorization", "proxy-authenticate");
+
+    private final ClusterTopology topology;
+    private final Replicas replicas;
+    private final AuthContextCache authContexts;
+    private final TokenIssuer tokens;
+    private final JWTParser jwtParser;
+    private final Vertx vertx;
+    // Verified peer replica token -> its expiry in epoch seconds
+    private final Cache<String, Long> peerTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_PEER_TOKENS)
+            .expireAfter(Expiry.creating((String token, Long expiresAt) ->
+                    Duration.ofSeconds(Math.max(0, expiresAt - System.currentTimeMillis() / 1000))))
+            .build();
+    private volatile HttpClient client;
+
+    @Inject
+    RequestForwarder(ClusterTopology topology, Replicas replicas, AuthContextCache authContexts, TokenIssuer tokens,
+                     JWTParser jwtParser, Vertx vertx) {
+        this.topology = topology;
+        this.replicas = replicas;
+        this.authContexts = authContexts;
+        this.tokens = tokens;
+        this.jwtParser = jwtParser;
+        this.vertx = vertx;
+    }
+
+    /**
+     * Whether this node answers a call for the tenant itself. A read-only call can be served by a
+     * follower with a current copy.
+     */
+    public boolean servesLocally(String tenantId, boolean readOnly) {
+        if (tenantId == null || topology.isLeader(tenantId)) return true;
+        return readOnly && topology.isFollower(tenantId) && replicas.isCurrent(tenantId);
+    }
+
+    void register(@Observes Router router) {
+        if (!topology.enabled()) return;
+        client = vertx.createHttpClient();
+        router.route("/documents*").order(ROUTE_ORDER).handler(this::route);
+    }
+
+    private void route(RoutingContext ctx) {
+        HttpServerRequest request = ctx.request();
+        boolean relayed = fromPeer(request);
+        // Hold the body until it is known where it goes
+        request.pause();
+        QuarkusHttpUser.getSecurityIdentity(ctx, null).subscribe().with(
+                identity -> {
+                    try {
+                        dispatch(ctx, identity, relayed);
+                    } catch (RuntimeException e) {
+                        // Mutiny drops what the callback throws, which would leave the paused call unanswered.
+                        // A token without a tenant, such as a replica token, is refused as the endpoints would.
+                        request.resume();
+                        ctx.fail(e instanceof ForbiddenException ? 403 : 500, e);
+                    }
+                },
+                failure -> {
+                    request.resume();
+                    ctx.fail(failure);
+                });
+    }
+
+    private void dispatch(RoutingContext ctx, SecurityIdentity identity, boolean relayed) {
+        HttpServerRequest request = ctx.request();
+        String tenantId = identity == null || identity.isAnonymous() ? null
+                : authContexts.resolve(identity).tenantId();
+        boolean readOnly = readOnly(request);
+        if (servesLocally(tenantId, readOnly) || (relayed && readOnly)) {
+            request.resume();
+            ctx.next();
+        } else if (relayed) {
+            request.resume();
+            ctx.response().setStatusCode(503).end();
+        } else {
+            forward(ctx, topology.leader(tenantId));
+        }
+    }
+
+    /**
+     * Whether the call was relayed by another member, which it proves with a replica token.
+     */
+    private boolean fromPeer(HttpServerRequest request) {
+        String token = request.getHeader(FORWARDED_NODE_TOKEN);
+        if (token == null || !request.headers().contains(FORWARDED_NODE)) return false;
+        if (peerTokens.getIfPresent(token) != null) return true;
+        try {
+            JsonWebToken jwt = jwtParser.parse(token);
+            if (!jwt.getGroups().contains(TokenIssuer.ROLE_REPLICA)) return false;
+            // Tokens without an expiry are verified on every call
+            if (jwt.getClaim(Claims.exp) instanceof Number expiresAt) {
+                peerTokens.put(token, expiresAt.longValue());
+            }
+            return true;
+        } catch (ParseException e) {
+            LOG.debugf("Ignoring %s from %s: %s", FORWARDED_NODE, request.remoteAddress(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean readOnly(HttpServerRequest request) {
+        // Change streams follow the leader's log, which only the leader has
+        return (request.method() == HttpMethod.GET || request.method() == HttpMethod.HEAD)
+                && !request.path().startsWith("/documents/changes");
+    }
+
+    private void forward(RoutingContext ctx, String leader) {
+        HttpServerRequest request = ctx.request();
+        String[] address = topology.address(leader).split(":", 2);
+        RequestOptions options = new RequestOptions()
+                .setMethod(request.method())
+                .setHost(address[0])
+                .setPort(Integer.parseInt(address[1]))
+                .setURI(request.uri());
+        client.request(options)
+                .compose(out -> {
+                    copyHeaders(request.headers(), out.headers());
+                    out.putHeader(FORWARDED_NODE, topology.nodeId());
+                    out.putHeader(FORWARDED_NODE_TOKEN, tokens.replicaToken(topology.nodeId()));
+                    // A body already read in full, see BodyLimit
+                    if (ctx.body().available()) return out.send(ctx.body().buffer());
+                    return request.isEnded() ? out.send() : out.send(request);
+                })
+                .onSuccess(in -> relay(ctx, in))
+                .onFailure(failure -> {
+                    LOG.debugf("Could not forward %s %s to %s: %s", request.method(), request.uri(), leader,
+                            failure.getMessage());
+                    HttpServerResponse response = ctx.response();
+                    if (response.headWritten()) {
+                        response.reset();
+                    } else {
+                        request.resume();
+                        response.setStatusCode(502).end();
+                    }
+                });
+    }
+
+    private static void relay(RoutingContext ctx, HttpClientResponse in) {
+        HttpServerResponse response = ctx.response();
+        response.setStatusCode(in.statusCode());
+        copyHeaders(in.headers(), response.headers());
+        if (!in.headers().contains(HttpHeaders.CONTENT_LENGTH)) {
+            response.setChunked(true);
+        }
+        in.pipeTo(response);
+    }
+
+    private static void copyHeaders(MultiMap from, MultiMap to) {
+        from.forEach(header -> {
+            if (!HOP_BY_HOP.contains(header.getKey().toLowerCase())) {
+                to.add(header.getKey(), header.getValue());
+            }
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        HttpClient c = client;
+        if (c != null) c.close();
+    }
+}
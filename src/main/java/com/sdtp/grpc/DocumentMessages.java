@@ -0,0 +1,136 @@
+package com.sdtp.grpc;
+
+import com.google.protobuf.UnsafeByteOperations;
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.Document;
+import com.sdtp.model.DocumentPage;
+import com.sdtp.model.DocumentSummary;
+import com.sdtp.model.SearchHit;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Conversions between the domain model and the protobuf messages shared by gRPC and the
+ * {@code application/x-protobuf} REST representation. Absent strings become empty ones, since
+ * proto3 has no nulls.
+ */
+public final class DocumentMessages {
+
+    private DocumentMessages() {
+    }
+
+    public static DocumentProcessorOuterClass.Document toMessage(Document doc) {
+        DocumentProcessorOuterClass.Document.Builder message = DocumentProcessorOuterClass.Document.newBuilder()
+                .setId(doc.getId().toString())
+                .setVersion(doc.getVersion())
+                .setCreatedAt(doc.getCreatedAt())
+                .setUpdatedAt(doc.getUpdatedAt());
+        if (doc.getTitle() != null) message.setTitle(doc.getTitle());
+        if (doc.getTenantId() != null) message.setTenantId(doc.getTenantId());
+        if (doc.getCreatedBy() != null) message.setCreatedBy(doc.getCreatedBy());
+        ByteBuffer body = doc.getContentBytes();
+        if (body != null) {
+            // The body is already UTF-8: reference it (possibly off-heap) instead of re-encoding a String
+            message.setContentBytes(UnsafeByteOperations.unsafeWrap(body));
+        }
+        return message.build();
+    }
+
+    public static DocumentProcessorOuterClass.DocumentList toMessage(List<Document> docs) {
+        return list(docs).build();
+    }
+
+    public static DocumentProcessorOuterClass.DocumentList toMessage(DocumentPage<Document> page) {
+        DocumentProcessorOuterClass.DocumentList.Builder list = list(page.getItems());
+        if (page.getNextCursor() != null) list.setNextCursor(page.getNextCursor());
+        return list.build();
+    }
+
+    /**
+     * A summary is a {@code Document} message with the content left unset.
+     */
+    public static DocumentProcessorOuterClass.Document toMessage(DocumentSummary summary) {
+        DocumentProcessorOuterClass.Document.Builder message = DocumentProcessorOuterClass.Document.newBuilder()
+                .setId(summary.getId().toString())
+                .setVersion(summary.getVersion())
+                .setCreatedAt(summary.getCreatedAt())
+                .setUpdatedAt(summary.getUpdatedAt());
+        if (summary.getTitle() != null) message.setTitle(summary.getTitle());
+        if (summary.getTenantId() != null) message.setTenantId(summary.getTenantId());
+        if (summary.getCreatedBy() != null) message.setCreatedBy(summary.getCreatedBy());
+        return message.build();
+    }
+
+    public static DocumentProcessorOuterClass.DocumentList toSummaries(List<DocumentSummary> summaries) {
+        return summaryList(summaries).build();
+    }
+
+    public static DocumentProcessorOuterClass.DocumentList toSummaries(DocumentPage<DocumentSummary> page) {
+        DocumentProcessorOuterClass.DocumentList.Builder list = summaryList(page.getItems());
+        if (page.getNextCursor() != null) list.setNextCursor(page.getNextCursor());
+        return list.build();
+    }
+
+    public static DocumentProcessorOuterClass.SearchResults toSearchResults(List<SearchHit> hits) {
+        DocumentProcessorOuterClass.SearchResults.Builder results = DocumentProcessorOuterClass.SearchResults.newBuilder();
+        for (SearchHit hit : hits) {
+            results.addHits(DocumentProcessorOuterClass.SearchResult.newBuilder()
+                    .setDocument(toMessage(hit.getDocument()))
+                    .setScore(hit.getScore()));
+        }
+        return results.build();
+    }
+
+    public static DocumentProcessorOuterClass.ChangeEvent toMessage(ChangeEvent event) {
+        return DocumentProcessorOuterClass.ChangeEvent.newBuilder()
+                .setSequence(event.getSequence())
+                .setType(DocumentProcessorOuterClass.ChangeEvent.Type.valueOf(event.getType().name()))
+                .setDocumentId(event.getDocumentId().toString())
+                .setTenantId(event.getTenantId())
+                .setVersion(event.getVersion())
+                .setTimestamp(event.getTimestamp())
+                .build();
+    }
+
+    private static DocumentProcessorOuterClass.DocumentList.Builder list(List<Document> docs) {
+        DocumentProcessorOuterClass.DocumentList.Builder list = DocumentProcessorOuterClass.DocumentList.newBuilder();
+        for (Document doc : docs) {
+            list.addDocuments(toMessage(doc));
+        }
+        return list;
+    }
+
+    private static DocumentProcessorOuterClass.DocumentList.Builder summaryList(List<DocumentSummary> summaries) {
+        DocumentProcessorOuterClass.DocumentList.Builder list = DocumentProcessorOuterClass.DocumentList.newBuilder();
+        for (DocumentSummary summary : summaries) {
+            list.addDocuments(toMessage(summary));
+        }
+        return list;
+    }
+
+    /**
+     * The document a message describes in full, id and version included; for messages from a
+     * trusted node, such as a forwarded lookup or a replication entry. Empty strings become nulls.
+     */
+    public static Document toDocument(DocumentProcessorOuterClass.Document message) {
+        return new Document(UUID.fromString(message.getId()), orNull(message.getTitle()), orNull(message.getContent()),
+                message.getTenantId(), orNull(message.getCreatedBy()), message.getVersion(), message.getCreatedAt(),
+                message.getUpdatedAt());
+    }
+
+    private static String orNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A new document from a client's message; only title and content are taken, as with JSON.
+     */
+    public static Document fromMessage(DocumentProcessorOuterClass.Document message) {
+        Document doc = new Document();
+        doc.setTitle(message.getTitle());
+        doc.setContent(message.getContent());
+        return doc;
+    }
+}
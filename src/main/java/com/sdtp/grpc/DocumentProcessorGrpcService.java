@@ -1,103 +1,486 @@
 package com.sdtp.grpc;
 
+import com.google.protobuf.UnsafeByteOperations;
+import com.sdtp.admission.TenantLimiter;
+import com.sdtp.admission.TenantOverloadedException;
+import com.sdtp.auth.AuthContext;
+import com.sdtp.auth.AuthContextCache;
+import com.sdtp.changes.ChangesExpiredException;
+import com.sdtp.cluster.ClusterTopology;
+import com.sdtp.cluster.Peers;
+import com.sdtp.cluster.RequestForwarder;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.metrics.DocumentMetrics.Operation;
+import com.sdtp.metrics.DocumentMetrics.Outcome;
 import com.sdtp.model.Document;
 import com.sdtp.service.DocumentService;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.quarkus.grpc.GrpcService;
 import io.quarkus.security.identity.CurrentIdentityAssociation;
-import io.quarkus.security.identity.SecurityIdentity;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.smallrye.mutiny.subscription.MultiSubscriber;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
-import java.util.Set;
+import java.nio.ByteBuffer;
 import java.util.UUID;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @GrpcService
 public class DocumentProcessorGrpcService extends DocumentProcessorGrpc.DocumentProcessorImplBase {
 
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int STREAM_CONCURRENCY = 64;
+
     @Inject
     DocumentService documentService;
 
     @Inject
     CurrentIdentityAssociation currentIdentityAssociation;
 
+    @Inject
+    AuthContextCache authContexts;
+
+    @Inject
+    DocumentMetrics metrics;
+
+    @Inject
+    TenantLimiter limiter;
+
+    @Inject
+    ClusterTopology topology;
+
+    @Inject
+    RequestForwarder forwarder;
+
+    @Inject
+    Peers peers;
+
     @Override
     public void process(
             DocumentProcessorOuterClass.DocumentRequest request,
             StreamObserver<DocumentProcessorOuterClass.DocumentResponse> responseObserver) {
 
+        long start = System.nanoTime();
+
         // Parse UUID
         UUID uuid;
         try {
             uuid = UUID.fromString(request.getDocumentId());
         } catch (IllegalArgumentException e) {
+            metrics.record(Operation.GRPC_PROCESS, Outcome.INVALID, start);
             responseObserver.onError(
                     Status.INVALID_ARGUMENT.withDescription("Invalid UUID format").asRuntimeException());
             return;
         }
 
         // Reactive identity fetch
-        currentIdentityAssociation.getDeferredIdentity()
-                .flatMap(identity -> buildJwtAdapter(identity))
-                .flatMap(jwt -> documentService.getDocumentById(uuid, jwt))
+        resolveCaller()
+                .flatMap(caller -> admitted(caller.auth, () -> lookup(uuid, caller)))
                 .subscribe().with(
                         doc -> {
                             // Success
-                            DocumentProcessorOuterClass.DocumentResponse response =
-                                    DocumentProcessorOuterClass.DocumentResponse.newBuilder()
-                                            .setDocumentId(doc.getId().toString())
-                                            .setStatus("Processed")
-                                            .build();
-                            responseObserver.onNext(response);
+                            responseObserver.onNext(toResponse(doc, request.getIncludeContent()));
                             responseObserver.onCompleted();
+                            metrics.record(Operation.GRPC_PROCESS, Outcome.OK, start);
                         },
                         failure -> {
-                            Throwable cause = (failure instanceof io.quarkus.arc.ArcUndeclaredThrowableException)
-                                    ? failure.getCause()
-                                    : failure;
-                            Status status;
-                            if (cause instanceof ForbiddenException) status = Status.PERMISSION_DENIED;
-                            else if (cause instanceof NotFoundException) status = Status.NOT_FOUND;
-                            else status = Status.UNKNOWN;
-                            responseObserver.onError(status.withDescription(cause.getMessage()).asRuntimeException());
+                            Throwable cause = unwrap(failure);
+                            responseObserver.onError(toStatus(cause).asRuntimeException());
+                            metrics.record(Operation.GRPC_PROCESS, cause, start);
                         });
     }
 
-    private Uni<JsonWebToken> buildJwtAdapter(SecurityIdentity identity) {
-        JsonWebToken jwt = (JsonWebToken) identity.getPrincipal();
-        String tenantId = jwt.getClaim("tenant_id");
-        if (tenantId == null) {
-            return Uni.createFrom().failure(new RuntimeException("JWT missing or invalid"));
+    @Override
+    public void getDocument(
+            DocumentProcessorOuterClass.GetDocumentRequest request,
+            StreamObserver<DocumentProcessorOuterClass.Document> responseObserver) {
+
+        long start = System.nanoTime();
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(request.getDocumentId());
+        } catch (IllegalArgumentException e) {
+            metrics.record(Operation.GRPC_GET, Outcome.INVALID, start);
+            responseObserver.onError(
+                    Status.INVALID_ARGUMENT.withDescription("Invalid UUID format").asRuntimeException());
+            return;
         }
 
-        JsonWebToken jwtAdapter = new JsonWebToken() {
-            @Override
-            public Set<String> getGroups() {
-                return identity.getRoles();
-            }
+        resolveCaller()
+                .flatMap(caller -> admitted(caller.auth, () -> lookup(uuid, caller)))
+                .subscribe().with(
+                        doc -> {
+                            responseObserver.onNext(DocumentMessages.toMessage(doc));
+                            responseObserver.onCompleted();
+                            metrics.record(Operation.GRPC_GET, Outcome.OK, start);
+                        },
+                        failure -> {
+                            Throwable cause = unwrap(failure);
+                            responseObserver.onError(toStatus(cause).asRuntimeException());
+                            metrics.record(Operation.GRPC_GET, cause, start);
+                        });
+    }
+
+    @Override
+    public StreamObserver<DocumentProcessorOuterClass.DocumentRequest> processStream(
+            StreamObserver<DocumentProcessorOuterClass.DocumentResponse> responseObserver) {
+        // Identity is resolved once, while the call's request context is still active
+        return new ProcessStreamCall(
+                (ServerCallStreamObserver<DocumentProcessorOuterClass.DocumentResponse>) responseObserver,
+                resolveCaller().memoize().indefinitely());
+    }
+
+    @Override
+    public void processBatch(
+            DocumentProcessorOuterClass.DocumentBatchRequest request,
+            StreamObserver<DocumentProcessorOuterClass.DocumentBatchResponse> responseObserver) {
+
+        if (request.getDocumentIdsCount() > MAX_BATCH_SIZE) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + MAX_BATCH_SIZE + " document ids per batch")
+                    .asRuntimeException());
+            return;
+        }
+
+        resolveCaller()
+                .flatMap(caller -> Multi.createFrom().iterable(request.getDocumentIdsList())
+                        .onItem().transformToUniAndConcatenate(id -> processItem(id, request.getIncludeContent(), caller))
+                        .collect().asList())
+                .subscribe().with(
+                        responses -> {
+                            responseObserver.onNext(DocumentProcessorOuterClass.DocumentBatchResponse.newBuilder()
+                                    .addAllResponses(responses)
+                                    .build());
+                            responseObserver.onCompleted();
+                        },
+                        failure -> {
+                            Throwable cause = unwrap(failure);
+                            responseObserver.onError(callerStatusOf(cause).withDescription(cause.getMessage()).asRuntimeException());
+                        });
+    }
+
+    @Override
+    public void subscribeChanges(
+            DocumentProcessorOuterClass.SubscribeChangesRequest request,
+            StreamObserver<DocumentProcessorOuterClass.ChangeEvent> responseObserver) {
+        // Flow-control handlers can only be installed during this call, so before identity resolves
+        ChangeStreamCall call = new ChangeStreamCall(
+                (ServerCallStreamObserver<DocumentProcessorOuterClass.ChangeEvent>) responseObserver);
+        Long after = request.hasAfter() ? request.getAfter() : null;
+
+        resolveCaller().subscribe().with(
+                caller -> {
+                    Multi<DocumentProcessorOuterClass.ChangeEvent> changes;
+                    try {
+                        // Opening a subscription counts against the tenant's rate, but it does not hold a slot
+                        limiter.acquire(caller.auth.tenantId(), 1).release();
+                        changes = changes(request, after, caller);
+                    } catch (RuntimeException e) {
+                        call.fail(toStatus(e));
+                        return;
+                    }
+                    call.start(changes);
+                },
+                failure -> {
+                    Throwable cause = unwrap(failure);
+                    call.fail(callerStatusOf(cause).withDescription(cause.getMessage()));
+                });
+    }
+
+    /**
+     * Look up a document where its tenant is served: here, or else on the tenant's leader, called
+     * over gRPC with the token of one of the callers asking for it at the time.
+     */
+    private Uni<Document> lookup(UUID id, Caller caller) {
+        String tenantId = caller.auth.tenantId();
+        if (caller.token == null || forwarder.servesLocally(tenantId, true)) {
+            return documentService.getDocumentById(id, caller.auth);
+        }
+        return documentService.getDocumentById(id, caller.auth, () -> leader(tenantId, caller)
+                .getDocument(DocumentProcessorOuterClass.GetDocumentRequest.newBuilder()
+                        .setDocumentId(id.toString())
+                        .build())
+                .map(DocumentMessages::toDocument));
+    }
+
+    /**
+     * The caller's change stream; only the tenant's leader has its change log.
+     */
+    private Multi<DocumentProcessorOuterClass.ChangeEvent> changes(
+            DocumentProcessorOuterClass.SubscribeChangesRequest request, Long after, Caller caller) {
+        String tenantId = caller.auth.tenantId();
+        if (caller.token == null || forwarder.servesLocally(tenantId, false)) {
+            return documentService.subscribeChanges(after, caller.auth).map(DocumentMessages::toMessage);
+        }
+        return leader(tenantId, caller).subscribeChanges(request);
+    }
 
-            @Override
-            public Set<String> getClaimNames() {
-                return identity.getAttributes().keySet();
+    private MutinyDocumentProcessorGrpc.MutinyDocumentProcessorStub leader(String tenantId, Caller caller) {
+        return MutinyDocumentProcessorGrpc.newMutinyStub(peers.channel(topology.leader(tenantId)))
+                .withInterceptors(Peers.bearer(caller.token));
+    }
+
+    /**
+     * Look up one document of a stream or batch. Per-document failures become a response whose
+     * status is the gRPC code name, so one bad id (or one lookup over the tenant's quota) does not
+     * abort the whole job.
+     */
+    private Uni<DocumentProcessorOuterClass.DocumentResponse> processItem(
+            String documentId, boolean includeContent, Caller caller) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(documentId);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().item(failedResponse(documentId, Status.INVALID_ARGUMENT));
+        }
+
+        return admitted(caller.auth, () -> lookup(uuid, caller))
+                .onItem().transform(doc -> toResponse(doc, includeContent))
+                .onFailure().recoverWithItem(failure -> failedResponse(documentId, statusOf(unwrap(failure))));
+    }
+
+    /**
+     * Run one lookup under the caller's tenant quota; every document looked up, whether by a unary
+     * call or as an item of a stream or batch, counts as one request.
+     */
+    private <T> Uni<T> admitted(AuthContext auth, Supplier<Uni<T>> lookup) {
+        return Uni.createFrom().deferred(() -> {
+            TenantLimiter.Permit permit = limiter.acquire(auth.tenantId(), 1);
+            return lookup.get().onTermination().invoke(permit::release);
+        });
+    }
+
+    /**
+     * Caller context for the current call, parsed once per token and cached, with the token itself
+     * for calls forwarded to another node.
+     */
+    private Uni<Caller> resolveCaller() {
+        return currentIdentityAssociation.getDeferredIdentity()
+                .map(identity -> new Caller(authContexts.resolve(identity),
+                        identity.getPrincipal() instanceof JsonWebToken jwt ? jwt.getRawToken() : null));
+    }
+
+    private static DocumentProcessorOuterClass.DocumentResponse toResponse(Document doc, boolean includeContent) {
+        DocumentProcessorOuterClass.DocumentResponse.Builder response =
+                DocumentProcessorOuterClass.DocumentResponse.newBuilder()
+                        .setDocumentId(doc.getId().toString())
+                        .setStatus("Processed");
+        ByteBuffer body = includeContent ? doc.getContentBytes() : null;
+        if (body != null) {
+            // Zero-copy: the reply references the (possibly off-heap) body directly
+            response.setContent(UnsafeByteOperations.unsafeWrap(body));
+        }
+        return response.build();
+    }
+
+    private static DocumentProcessorOuterClass.DocumentResponse failedResponse(String documentId, Status status) {
+        return DocumentProcessorOuterClass.DocumentResponse.newBuilder()
+                .setDocumentId(documentId)
+                .setStatus(status.getCode().name())
+                .build();
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return (failure instanceof io.quarkus.arc.ArcUndeclaredThrowableException)
+                ? failure.getCause()
+                : failure;
+    }
+
+    /**
+     * Status for a failure, keeping the one a forwarded call already failed with.
+     */
+    private static Status toStatus(Throwable cause) {
+        if (cause instanceof StatusRuntimeException sre) return sre.getStatus();
+        return statusOf(cause).withDescription(cause.getMessage());
+    }
+
+    private static Status statusOf(Throwable cause) {
+        if (cause instanceof StatusRuntimeException sre) return sre.getStatus();
+        if (cause instanceof TenantOverloadedException) return Status.RESOURCE_EXHAUSTED;
+        if (cause instanceof ForbiddenException) return Status.PERMISSION_DENIED;
+        if (cause instanceof NotFoundException) return Status.NOT_FOUND;
+        if (cause instanceof BadRequestException) return Status.INVALID_ARGUMENT;
+        if (cause instanceof ChangesExpiredException) return Status.OUT_OF_RANGE;
+        return Status.UNKNOWN;
+    }
+
+    /**
+     * Status for a failure to establish who the caller is, which aborts a whole stream or batch.
+     */
+    private static Status callerStatusOf(Throwable cause) {
+        return cause instanceof ForbiddenException ? Status.PERMISSION_DENIED : Status.UNAUTHENTICATED;
+    }
+
+    /**
+     * One ProcessStream call. Inbound messages are pulled from the transport only as fast as the
+     * Mutiny pipeline asks for them, and the pipeline is only asked for a result while the
+     * outbound side is ready, so a slow client throttles reads instead of buffering replies.
+     */
+    private final class ProcessStreamCall implements StreamObserver<DocumentProcessorOuterClass.DocumentRequest> {
+
+        private final ServerCallStreamObserver<DocumentProcessorOuterClass.DocumentResponse> responses;
+        private final AtomicBoolean awaitingItem = new AtomicBoolean();
+        private volatile MultiEmitter<? super DocumentProcessorOuterClass.DocumentRequest> requests;
+        private volatile Flow.Subscription subscription;
+
+        ProcessStreamCall(ServerCallStreamObserver<DocumentProcessorOuterClass.DocumentResponse> responses,
+                          Uni<Caller> caller) {
+            this.responses = responses;
+            responses.disableAutoRequest();
+            responses.setOnReadyHandler(this::pull);
+            responses.setOnCancelHandler(() -> {
+                Flow.Subscription s = subscription;
+                if (s != null) s.cancel();
+            });
+
+            Multi.createFrom().<DocumentProcessorOuterClass.DocumentRequest>emitter(
+                            emitter -> requests = emitter, BackPressureStrategy.BUFFER)
+                    // Pipeline demand becomes transport flow-control credit
+                    .onRequest().invoke(n -> responses.request((int) Math.min(n, Integer.MAX_VALUE)))
+                    .onItem().transformToUni(request -> caller.flatMap(
+                            context -> processItem(request.getDocumentId(), request.getIncludeContent(), context)))
+                    .merge(STREAM_CONCURRENCY)
+                    .subscribe().withSubscriber(new MultiSubscriber<DocumentProcessorOuterClass.DocumentResponse>() {
+                        @Override
+                        public void onSubscribe(Flow.Subscription s) {
+                            subscription = s;
+                            pull();
+                        }
+
+                        @Override
+                        public void onItem(DocumentProcessorOuterClass.DocumentResponse response) {
+                            awaitingItem.set(false);
+                            responses.onNext(response);
+                            pull();
+                        }
+
+                        @Override
+                        public void onFailure(Throwable failure) {
+                            if (responses.isCancelled()) return;
+                            Throwable cause = unwrap(failure);
+                            Status status = cause instanceof StatusRuntimeException sre ? sre.getStatus()
+                                    : callerStatusOf(cause).withDescription(cause.getMessage());
+                            responses.onError(status.asRuntimeException());
+                        }
+
+                        @Override
+                        public void onCompletion() {
+                            responses.onCompleted();
+                        }
+                    });
+        }
+
+        @Override
+        public void onNext(DocumentProcessorOuterClass.DocumentRequest request) {
+            requests.emit(request);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            requests.fail(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            requests.complete();
+        }
+
+        /**
+         * Ask the pipeline for the next reply, at most one at a time and only while the client can take it.
+         */
+        private void pull() {
+            Flow.Subscription s = subscription;
+            if (s != null && responses.isReady() && awaitingItem.compareAndSet(false, true)) {
+                s.request(1);
             }
+        }
+    }
+
+    /**
+     * One SubscribeChanges call. An event is requested from the change log only while the client
+     * can take it, so a slow subscriber leaves its events in the log instead of in a send buffer.
+     */
+    private static final class ChangeStreamCall {
 
-            @Override
-            @SuppressWarnings("unchecked")
-            public <T> T getClaim(String claimName) {
-                if ("tenant_id".equals(claimName)) return (T) tenantId;
-                return (T) identity.getAttribute(claimName);
+        private final ServerCallStreamObserver<DocumentProcessorOuterClass.ChangeEvent> responses;
+        private final AtomicBoolean awaitingItem = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+
+        ChangeStreamCall(ServerCallStreamObserver<DocumentProcessorOuterClass.ChangeEvent> responses) {
+            this.responses = responses;
+            responses.setOnReadyHandler(this::pull);
+            responses.setOnCancelHandler(() -> {
+                Flow.Subscription s = subscription;
+                if (s != null) s.cancel();
+            });
+        }
+
+        void start(Multi<DocumentProcessorOuterClass.ChangeEvent> changes) {
+            changes.subscribe().withSubscriber(new MultiSubscriber<DocumentProcessorOuterClass.ChangeEvent>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription = s;
+                    if (responses.isCancelled()) {
+                        s.cancel();
+                    } else {
+                        pull();
+                    }
+                }
+
+                @Override
+                public void onItem(DocumentProcessorOuterClass.ChangeEvent event) {
+                    awaitingItem.set(false);
+                    responses.onNext(event);
+                    pull();
+                }
+
+                @Override
+                public void onFailure(Throwable failure) {
+                    fail(toStatus(unwrap(failure)));
+                }
+
+                @Override
+                public void onCompletion() {
+                    responses.onCompleted();
+                }
+            });
+        }
+
+        void fail(Status status) {
+            if (!responses.isCancelled()) {
+                responses.onError(status.asRuntimeException());
             }
+        }
 
-            @Override
-            public String getName() {
-                return identity.getPrincipal().getName();
+        private void pull() {
+            Flow.Subscription s = subscription;
+            if (s != null && responses.isReady() && awaitingItem.compareAndSet(false, true)) {
+                s.request(1);
             }
-        };
+        }
+    }
 
-        return Uni.createFrom().item(jwtAdapter);
+    private static final class Caller {
+
+        final AuthContext auth;
+        // Raw bearer token, null when the identity did not come from one
+        final String token;
+
+        Caller(AuthContext auth, String token) {
+            this.auth = auth;
+            this.token = token;
+        }
     }
 }
@@ -0,0 +1,98 @@
+package com.sdtp.grpc;
+
+import com.sdtp.auth.TokenIssuer;
+import com.sdtp.cluster.Replicas;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationEntry;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationResult;
+import com.sdtp.service.StoreExecutor;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.quarkus.grpc.GrpcService;
+import io.quarkus.security.identity.CurrentIdentityAssociation;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Follower end of the {@code Replicate} streams leaders open to this node. Only callers holding a
+ * replica token, which other members mint with the shared signing key, may replicate. Entries are
+ * read from the transport one at a time, the next only once the previous one is applied, so a slow
+ * store throttles the leader through gRPC flow control.
+ */
+@GrpcService
+public class ReplicationGrpcService extends ReplicationGrpc.ReplicationImplBase {
+
+    private static final Logger LOG = Logger.getLogger(ReplicationGrpcService.class);
+
+    @Inject
+    Replicas replicas;
+
+    @Inject
+    StoreExecutor storeExecutor;
+
+    @Inject
+    CurrentIdentityAssociation currentIdentityAssociation;
+
+    @Override
+    public StreamObserver<ReplicationEntry> replicate(StreamObserver<ReplicationResult> responseObserver) {
+        ServerCallStreamObserver<ReplicationResult> results = (ServerCallStreamObserver<ReplicationResult>) responseObserver;
+        results.disableAutoRequest();
+        ReplicateCall call = new ReplicateCall(results);
+
+        currentIdentityAssociation.getDeferredIdentity().subscribe().with(
+                identity -> {
+                    if (identity.hasRole(TokenIssuer.ROLE_REPLICA)) {
+                        results.request(1);
+                    } else {
+                        call.fail(Status.PERMISSION_DENIED.withDescription("Replication needs a replica token"));
+                    }
+                },
+                failure -> call.fail(Status.UNAUTHENTICATED.withDescription(failure.getMessage())));
+        return call;
+    }
+
+    private final class ReplicateCall implements StreamObserver<ReplicationEntry> {
+
+        private final ServerCallStreamObserver<ReplicationResult> results;
+        private long applied;
+
+        ReplicateCall(ServerCallStreamObserver<ReplicationResult> results) {
+            this.results = results;
+        }
+
+        @Override
+        public void onNext(ReplicationEntry entry) {
+            storeExecutor.write(Uni.createFrom().item(() -> {
+                replicas.apply(entry);
+                return entry;
+            })).subscribe().with(
+                    e -> {
+                        applied++;
+                        results.request(1);
+                    },
+                    failure -> {
+                        LOG.warnf(failure, "Could not apply replication entry for tenant %s", entry.getTenantId());
+                        fail(Status.INTERNAL.withDescription(failure.getMessage()));
+                    });
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            // The leader went away or gave up; it starts over with a snapshot when it reconnects
+            LOG.debugf("Replication stream ended: %s", t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            results.onNext(ReplicationResult.newBuilder().setApplied(applied).build());
+            results.onCompleted();
+        }
+
+        void fail(Status status) {
+            if (!results.isCancelled()) {
+                results.onError(status.asRuntimeException());
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sdtp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.security.spi.runtime.AuthenticationFailureEvent;
+import io.quarkus.security.spi.runtime.AuthorizationFailureEvent;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Counts rejected callers by reason. Only failure events are observed, so Quarkus never fires
+ * events for successful authentication.
+ */
+@Singleton
+public class AuthMetrics {
+
+    private final Counter authentication;
+    private final Counter authorization;
+    private final Counter invalidCredentials;
+    private final Counter invalidRefreshToken;
+
+    @Inject
+    public AuthMetrics(MeterRegistry registry) {
+        authentication = counter(registry, "authentication");
+        authorization = counter(registry, "authorization");
+        invalidCredentials = counter(registry, "invalid-credentials");
+        invalidRefreshToken = counter(registry, "invalid-refresh-token");
+    }
+
+    private static Counter counter(MeterRegistry registry, String reason) {
+        return Counter.builder("auth.failures")
+                .description("Rejected callers by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Missing, expired or badly signed token.
+     */
+    void onAuthenticationFailure(@Observes AuthenticationFailureEvent event) {
+        authentication.increment();
+    }
+
+    /**
+     * Authenticated caller denied by an HTTP permission or role check.
+     */
+    void onAuthorizationFailure(@Observes AuthorizationFailureEvent event) {
+        authorization.increment();
+    }
+
+    /**
+     * Login attempt with an unknown user or a wrong password.
+     */
+    public void invalidCredentials() {
+        invalidCredentials.increment();
+    }
+
+    /**
+     * Refresh with an unknown, expired or already used refresh token.
+     */
+    public void invalidRefreshToken() {
+        invalidRefreshToken.increment();
+    }
+}
@@ -0,0 +1,112 @@
+package com.sdtp.metrics;
+
+import com.sdtp.admission.TenantOverloadedException;
+import com.sdtp.store.DocumentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation latency timers split by outcome, and a stored-documents gauge per tenant.
+ * Every operation x outcome timer is registered up front, so recording is an array lookup plus
+ * a histogram update: no tag building or registry lookup on the request path.
+ */
+@Singleton
+public class DocumentMetrics {
+
+    /** Recorder that is never scraped, for services built outside CDI. */
+    public static final DocumentMetrics NOOP = new DocumentMetrics(new CompositeMeterRegistry(), null);
+
+    public enum Operation {
+        CREATE, CREATE_BATCH, GET, UPDATE, DELETE, LIST_TENANT, LIST_USER, SEARCH, GRPC_PROCESS, GRPC_GET;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Outcome {
+        OK, FORBIDDEN, NOT_FOUND, INVALID, CONFLICT, THROTTLED, ERROR;
+
+        final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+        public static Outcome of(Throwable failure) {
+            if (failure instanceof TenantOverloadedException) return THROTTLED;
+            if (failure instanceof ForbiddenException) return FORBIDDEN;
+            if (failure instanceof NotFoundException) return NOT_FOUND;
+            if (failure instanceof BadRequestException || failure instanceof IllegalArgumentException) return INVALID;
+            if (failure instanceof ClientErrorException e
+                    && e.getResponse().getStatus() == Response.Status.PRECONDITION_FAILED.getStatusCode()) return CONFLICT;
+            return ERROR;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final DocumentStore store;
+    private final Timer[][] timers;
+    private final Set<String> observedTenants = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public DocumentMetrics(MeterRegistry registry, DocumentStore store) {
+        this.registry = registry;
+        this.store = store;
+
+        Operation[] operations = Operation.values();
+        Outcome[] outcomes = Outcome.values();
+        timers = new Timer[operations.length][outcomes.length];
+        for (Operation operation : operations) {
+            for (Outcome outcome : outcomes) {
+                timers[operation.ordinal()][outcome.ordinal()] = Timer.builder("documents.operations")
+                        .description("Document service operations by outcome")
+                        .tag("operation", operation.tag)
+                        .tag("outcome", outcome.tag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(10_000))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(registry);
+            }
+        }
+
+        if (store != null) {
+            for (String tenantId : store.tenants()) {
+                observeTenant(tenantId);
+            }
+        }
+    }
+
+    /**
+     * Record an operation that started at {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public void record(Operation operation, Outcome outcome, long startNanos) {
+        timers[operation.ordinal()][outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(Operation operation, Throwable failure, long startNanos) {
+        record(operation, Outcome.of(failure), startNanos);
+    }
+
+    /**
+     * Expose the stored-documents gauge of a tenant; a set lookup once the tenant is known.
+     */
+    public void observeTenant(String tenantId) {
+        if (store == null || tenantId == null || observedTenants.contains(tenantId)) return;
+        if (observedTenants.add(tenantId)) {
+            Gauge.builder("documents.stored", store, s -> s.countByTenant(tenantId))
+                    .description("Documents currently stored per tenant")
+                    .tag("tenant", tenantId)
+                    .register(registry);
+        }
+    }
+}
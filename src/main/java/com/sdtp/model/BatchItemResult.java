@@ -0,0 +1,54 @@
+package com.sdtp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Outcome of one document of a batch upload, reported in upload order.
+ */
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+  public static final String CREATED = "created";
+  public static final String FAILED = "failed";
+
+  private final long index;
+  private final String id;
+  private final String status;
+  private final String error;
+
+  private BatchItemResult(long index, String id, String status, String error) {
+    this.index = index;
+    this.id = id;
+    this.status = status;
+    this.error = error;
+  }
+
+  public static BatchItemResult created(long index, String id) {
+    return new BatchItemResult(index, id, CREATED, null);
+  }
+
+  public static BatchItemResult failed(long index, String error) {
+    return new BatchItemResult(index, null, FAILED, error);
+  }
+
+  /**
+   * Zero-based position of the document in the upload.
+   */
+  public long getIndex() {
+    return index;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+}
@@ -0,0 +1,66 @@
+package com.sdtp.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.UUID;
+
+/**
+ * One create, update or delete of a document, numbered in the order its tenant's change log
+ * recorded it. Carries no body; consumers that need it fetch the document.
+ */
+@RegisterForReflection
+public class ChangeEvent {
+
+  public enum Type {
+    CREATED, UPDATED, DELETED
+  }
+
+  private final long sequence;
+  private final Type type;
+  private final UUID documentId;
+  private final String tenantId;
+  private final long version;
+  private final long timestamp;
+
+  public ChangeEvent(long sequence, Type type, UUID documentId, String tenantId, long version, long timestamp) {
+    this.sequence = sequence;
+    this.type = type;
+    this.documentId = documentId;
+    this.tenantId = tenantId;
+    this.version = version;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Position in the tenant's log, from 1 without gaps; resume a subscription after the last one seen.
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public UUID getDocumentId() {
+    return documentId;
+  }
+
+  public String getTenantId() {
+    return tenantId;
+  }
+
+  /**
+   * The document's version after the change, or for a delete the version that was deleted.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * When the change was recorded, in epoch milliseconds.
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
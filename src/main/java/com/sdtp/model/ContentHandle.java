@@ -0,0 +1,41 @@
+package com.sdtp.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact reference to a document body stored outside its {@code String}: off-heap, compressed,
+ * or both.
+ */
+public interface ContentHandle {
+
+  /**
+   * Read-only view of the UTF-8 encoded body. No bytes are copied.
+   */
+  ByteBuffer bytes();
+
+  /**
+   * Encoded length in bytes.
+   */
+  int length();
+
+  default String asString() {
+    return StandardCharsets.UTF_8.decode(bytes()).toString();
+  }
+
+  /**
+   * HTTP content coding of {@link #encodedBytes()}, e.g. {@code deflate}, or {@code null} when the
+   * body is stored as plain UTF-8.
+   */
+  default String encoding() {
+    return null;
+  }
+
+  /**
+   * The body as stored: compressed with {@link #encoding()} when that is set, otherwise the same
+   * bytes as {@link #bytes()}.
+   */
+  default ByteBuffer encodedBytes() {
+    return bytes();
+  }
+}
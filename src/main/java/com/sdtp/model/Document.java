@@ -1,7 +1,13 @@
 package com.sdtp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
+@RegisterForReflection
 public class Document {
 
   private UUID id;
@@ -9,23 +15,72 @@ public class Document {
   private String content;
   private String tenantId;
   private String createdBy;
+  private long version;
+  private long createdAt;
+  private long updatedAt;
+  private ContentHandle contentHandle;
 
   public Document() {
     // default constructor for JSON serialization
   }
 
+  /**
+   * A new document with a fresh {@link DocumentIds time-ordered id}, created at the time in the id.
+   */
   public Document(String title, String content, String tenantId, String createdBy) {
-    this.id = UUID.randomUUID();
+    this(DocumentIds.next(), title, content, tenantId, createdBy);
+  }
+
+  public Document(UUID id, String title, String content, String tenantId, String createdBy) {
+    this(id, title, content, tenantId, createdBy, 1);
+  }
+
+  /**
+   * Creation and update time are taken from the id, see {@link DocumentIds#timestamp}.
+   */
+  public Document(UUID id, String title, String content, String tenantId, String createdBy, long version) {
+    this(id, title, content, tenantId, createdBy, version, DocumentIds.timestamp(id), DocumentIds.timestamp(id));
+  }
+
+  public Document(UUID id, String title, String content, String tenantId, String createdBy, long version,
+      long createdAt, long updatedAt) {
+    this.id = id;
     this.title = title;
     this.content = content;
     this.tenantId = tenantId;
     this.createdBy = createdBy;
+    this.version = version;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
   }
 
   public UUID getId() {
     return id;
   }
 
+  /**
+   * Starts at 1 and grows by one with every update; the store only replaces a document whose
+   * version the writer has seen.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Unix milliseconds when the document was created. Never changes, so it orders a tenant's
+   * documents by age.
+   */
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Unix milliseconds of the latest write, equal to {@link #getCreatedAt} until the first update.
+   */
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
   public String getTitle() {
     return title;
   }
@@ -35,11 +90,40 @@ public class Document {
   }
 
   public String getContent() {
+    if (content == null && contentHandle != null) {
+      return contentHandle.asString();
+    }
     return content;
   }
 
   public void setContent(String content) {
     this.content = content;
+    this.contentHandle = null;
+  }
+
+  @JsonIgnore
+  public ContentHandle getContentHandle() {
+    return contentHandle;
+  }
+
+  /**
+   * Move the body off-heap: the heap string is dropped and only the handle is kept.
+   */
+  @JsonIgnore
+  public void setContentHandle(ContentHandle contentHandle) {
+    this.contentHandle = contentHandle;
+    this.content = null;
+  }
+
+  /**
+   * Body as UTF-8 bytes; a zero-copy read-only view when the body is stored off-heap.
+   */
+  @JsonIgnore
+  public ByteBuffer getContentBytes() {
+    if (contentHandle != null) {
+      return contentHandle.bytes();
+    }
+    return content == null ? null : ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
   }
 
   public String getTenantId() {
@@ -0,0 +1,57 @@
+package com.sdtp.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered document ids in the UUID version 7 layout: 48 bits of Unix milliseconds, then a
+ * 12-bit counter and 62 random bits. Ids therefore sort by creation time under
+ * {@link UUID#compareTo}, so new documents land at the end of every id-ordered index, log and
+ * snapshot instead of at random positions.
+ * <p>
+ * Each thread numbers its own ids: within a millisecond the counter, which starts at a random
+ * value, is incremented, and when it runs out the thread borrows the next millisecond. A thread's
+ * ids are strictly increasing even if the clock steps back, and threads never contend on shared
+ * state. Randomness comes from {@link ThreadLocalRandom}; ids are unique, not unguessable.
+ */
+public final class DocumentIds {
+
+  private static final ThreadLocal<Clock> CLOCKS = ThreadLocal.withInitial(Clock::new);
+
+  private DocumentIds() {
+  }
+
+  public static UUID next() {
+    return CLOCKS.get().next();
+  }
+
+  /**
+   * Creation time, in Unix milliseconds, of an id from {@link #next}; 0 for ids of any other
+   * version, which carry no time.
+   */
+  public static long timestamp(UUID id) {
+    return id.version() == 7 ? id.getMostSignificantBits() >>> 16 : 0;
+  }
+
+  private static final class Clock {
+
+    private long millis;
+    private int counter;
+
+    UUID next() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long now = System.currentTimeMillis();
+      if (now > millis) {
+        millis = now;
+        // Leave headroom so a burst within one millisecond rarely has to borrow the next
+        counter = random.nextInt(0x800);
+      } else if (++counter > 0xfff) {
+        millis++;
+        counter = 0;
+      }
+      long msb = millis << 16 | 0x7000L | counter;
+      long lsb = random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+      return new UUID(msb, lsb);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.sdtp.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * One page of a list, of {@link Document}s or of {@link DocumentSummary summaries}.
+ */
+@RegisterForReflection
+public class DocumentPage<T> {
+
+  private final List<T> items;
+  private final String nextCursor;
+
+  public DocumentPage(List<T> items, String nextCursor) {
+    this.items = items;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Opaque cursor for the following page, or {@code null} when this is the last page.
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
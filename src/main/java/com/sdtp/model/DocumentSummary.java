@@ -0,0 +1,65 @@
+package com.sdtp.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.UUID;
+
+/**
+ * A document without its body: what list views need. Built from the document's header fields
+ * only, so producing one never reads, inflates or copies the content.
+ */
+@RegisterForReflection
+public class DocumentSummary {
+
+  private final UUID id;
+  private final String title;
+  private final String tenantId;
+  private final String createdBy;
+  private final long version;
+  private final long createdAt;
+  private final long updatedAt;
+
+  public DocumentSummary(UUID id, String title, String tenantId, String createdBy, long version, long createdAt,
+      long updatedAt) {
+    this.id = id;
+    this.title = title;
+    this.tenantId = tenantId;
+    this.createdBy = createdBy;
+    this.version = version;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+  }
+
+  public static DocumentSummary of(Document doc) {
+    return new DocumentSummary(doc.getId(), doc.getTitle(), doc.getTenantId(), doc.getCreatedBy(), doc.getVersion(),
+        doc.getCreatedAt(), doc.getUpdatedAt());
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getTenantId() {
+    return tenantId;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+}
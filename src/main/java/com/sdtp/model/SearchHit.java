@@ -0,0 +1,26 @@
+package com.sdtp.model;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * A document matching a full-text query, with its relevance score (higher is better).
+ */
+@RegisterForReflection
+public class SearchHit {
+
+  private final Document document;
+  private final float score;
+
+  public SearchHit(Document document, float score) {
+    this.document = document;
+    this.score = score;
+  }
+
+  public Document getDocument() {
+    return document;
+  }
+
+  public float getScore() {
+    return score;
+  }
+}
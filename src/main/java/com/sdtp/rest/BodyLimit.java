@@ -0,0 +1,47 @@
+package com.sdtp.rest;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Caps request bodies of every REST endpoint but the streamed {@code POST /documents/batch} at
+ * {@code rest.max-body-size}. {@code quarkus.http.limits.max-body-size} is the server-wide
+ * ceiling and has to admit the largest bulk upload, so it cannot be the limit for endpoints that
+ * buffer their body in full, {@code /login} included. Those bodies are read here, against the
+ * smaller limit, before authentication and the endpoints see them.
+ */
+@ApplicationScoped
+public class BodyLimit {
+
+    // Right after the server-wide limit check, before authentication
+    private static final int ROUTE_ORDER = -1;
+
+    private final BodyHandler bodies;
+
+    @Inject
+    BodyLimit(@ConfigProperty(name = "rest.max-body-size", defaultValue = "10240K") MemorySize maxBodySize) {
+        this.bodies = BodyHandler.create(false)
+                .setBodyLimit(maxBodySize.asLongValue())
+                .setDeleteUploadedFilesOnEnd(true);
+    }
+
+    void register(@Observes Router router) {
+        router.route("/documents*").order(ROUTE_ORDER).handler(this::limit);
+        router.route("/login*").order(ROUTE_ORDER).handler(this::limit);
+    }
+
+    private void limit(RoutingContext ctx) {
+        if (ctx.request().method() == HttpMethod.POST && ctx.normalizedPath().equals("/documents/batch")) {
+            ctx.next();
+        } else {
+            bodies.handle(ctx);
+        }
+    }
+}
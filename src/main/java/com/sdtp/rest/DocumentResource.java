@@ -1,69 +1,662 @@
 package com.sdtp.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdtp.auth.AuthContext;
+import com.sdtp.auth.AuthContextCache;
+import com.sdtp.changes.ChangesExpiredException;
+import com.sdtp.grpc.DocumentMessages;
+import com.sdtp.grpc.DocumentProcessorOuterClass;
+import com.sdtp.model.BatchItemResult;
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.ContentHandle;
 import com.sdtp.model.Document;
+import com.sdtp.model.DocumentPage;
 import com.sdtp.service.DocumentService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 import org.eclipse.microprofile.jwt.JsonWebToken;
+import io.netty.buffer.Unpooled;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Path("/documents")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class DocumentResource {
 
+    private static final String TEXT_UTF8 = MediaType.TEXT_PLAIN + ";charset=UTF-8";
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    // Readers must revalidate every time; the ETag makes that a 304 when nothing changed
+    private static final String CACHE_CONTROL = "private, no-cache";
+    private static final String PROTOBUF = ProtobufMessageBodyHandler.APPLICATION_PROTOBUF;
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+    private static final String ORDER_NEWEST = "newest";
+    private static final String ORDER_OLDEST = "oldest";
+
     @Inject
     DocumentService documentService;
 
     @Inject
     JsonWebToken jwt;
 
+    @Inject
+    AuthContextCache authContexts;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    ResponseCache responseCache;
+
     @POST
     @RolesAllowed("admin") // RBAC: only admin can call
-    public Uni<Response> createDocument(Document doc) {
-        return documentService.createDocument(doc, jwt)
-                .onItem().transform(created ->
-                        Response.status(Response.Status.CREATED).entity(created).build()
-                );
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> createDocument(Document doc, @Context HttpHeaders headers) {
+        return documentService.createDocument(doc, auth())
+                .onItem().transformToUni(created -> {
+                    responseCache.invalidateTenant(created.getTenantId());
+                    if (wantsProtobuf(headers)) {
+                        byte[] body = DocumentMessages.toMessage(created).toByteArray();
+                        return Uni.createFrom().item(Response.status(Response.Status.CREATED)
+                                .entity(body).type(ProtobufMessageBodyHandler.APPLICATION_PROTOBUF_TYPE)
+                                .tag(protobufTag(body)).build());
+                    }
+                    return responseCache.document(created).onItem().transform(json -> Response.status(Response.Status.CREATED)
+                            .entity(json.body()).type(MediaType.APPLICATION_JSON_TYPE).tag(json.etag()).build());
+                });
+    }
+
+    /**
+     * Create from an {@code application/x-protobuf} {@code Document} message; as with JSON only
+     * title and content are taken from it.
+     */
+    @POST
+    @RolesAllowed("admin")
+    @Consumes(PROTOBUF)
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> createDocument(DocumentProcessorOuterClass.Document message, @Context HttpHeaders headers) {
+        return createDocument(DocumentMessages.fromMessage(message), headers);
+    }
+
+    /**
+     * Bulk ingest from a JSON array or NDJSON upload. Runs on a worker thread so the body is read
+     * as a stream, one chunk ahead of the store, and per-document results are written back as each
+     * chunk is stored, in the upload's format. A malformed document ends the upload with a final
+     * {@code failed} entry; everything before it stays created.
+     */
+    @POST
+    @Path("/batch")
+    @RolesAllowed("admin")
+    @Blocking
+    @Consumes({MediaType.APPLICATION_JSON, RestMediaType.APPLICATION_NDJSON})
+    @Produces({MediaType.APPLICATION_JSON, RestMediaType.APPLICATION_NDJSON})
+    public Response createDocuments(InputStream body, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType) {
+        AuthContext auth = auth();
+        boolean ndjson = contentType != null && contentType.startsWith(RestMediaType.APPLICATION_NDJSON);
+
+        StreamingOutput results = output -> {
+            long written = 0;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (ndjson) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    generator.writeStartArray();
+                }
+
+                UploadReader upload = new UploadReader(objectMapper.readerFor(Document.class).readValues(body));
+                try {
+                    Multi<Document> documents = Multi.createFrom().iterable(() -> upload);
+                    for (BatchItemResult result : documentService.createDocuments(documents, auth).subscribe().asIterable()) {
+                        generator.writeObject(result);
+                        if (++written % DocumentService.BATCH_CHUNK_SIZE == 0) {
+                            generator.flush();
+                        }
+                    }
+                    if (upload.error != null) {
+                        generator.writeObject(BatchItemResult.failed(written, upload.error));
+                    }
+                } catch (RuntimeException e) {
+                    generator.writeObject(BatchItemResult.failed(written, e.getMessage()));
+                } finally {
+                    responseCache.invalidateTenant(auth.tenantId());
+                }
+
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                } else {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return Response.ok(results, ndjson ? RestMediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON).build();
     }
 
     @GET
     @Path("/{id}")
     @RolesAllowed({"admin", "viewer"}) // RBAC: admin or viewer
-    public Uni<Response> getDocument(@PathParam("id") String id) {
-        UUID uuid;
-        try {
-            uuid = UUID.fromString(id);
-        } catch (IllegalArgumentException e) {
-            return Uni.createFrom().item(
-                    Response.status(Response.Status.BAD_REQUEST)
-                            .entity("Invalid UUID format").build()
-            );
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> getDocument(@PathParam("id") String id, @Context Request request,
+                                     @Context HttpHeaders headers) {
+        UUID uuid = parseId(id);
+        if (uuid == null) {
+            return Uni.createFrom().item(invalidId());
+        }
+
+        boolean protobuf = wantsProtobuf(headers);
+        return documentService.getDocumentById(uuid, auth())
+                .onItem().transformToUni(doc -> {
+                    if (protobuf) {
+                        byte[] body = DocumentMessages.toMessage(doc).toByteArray();
+                        return Uni.createFrom().item(conditional(request, protobufTag(body),
+                                () -> Response.ok(body, ProtobufMessageBodyHandler.APPLICATION_PROTOBUF_TYPE)));
+                    }
+                    return responseCache.document(doc).onItem().transform(json ->
+                            conditional(request, json.etag(), () -> Response.ok(json.body(), MediaType.APPLICATION_JSON_TYPE)));
+                });
+    }
+
+    /**
+     * Replace title and content. With {@code If-Match} the write only applies to that version.
+     */
+    @PUT
+    @Path("/{id}")
+    @RolesAllowed("admin")
+    public Uni<Response> replaceDocument(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                         Document doc) {
+        return update(id, ifMatch, doc, false);
+    }
+
+    /**
+     * Merge patch: only the fields present in the body change.
+     */
+    @PATCH
+    @Path("/{id}")
+    @RolesAllowed("admin")
+    @Consumes({MediaType.APPLICATION_JSON, MERGE_PATCH_JSON})
+    public Uni<Response> patchDocument(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                       Document doc) {
+        return update(id, ifMatch, doc, true);
+    }
+
+    @DELETE
+    @Path("/{id}")
+    @RolesAllowed("admin")
+    public Uni<Response> deleteDocument(@PathParam("id") String id, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        UUID uuid = parseId(id);
+        if (uuid == null) {
+            return Uni.createFrom().item(invalidId());
         }
 
-        return documentService.getDocumentById(uuid, jwt)
-                .onItem().transform(doc -> Response.ok(doc).build());
+        AuthContext auth = auth();
+        return expectedVersion(uuid, ifMatch, auth)
+                .onItem().transformToUni(expected -> documentService.deleteDocument(uuid, expected, auth))
+                .onItem().transform(ignored -> {
+                    responseCache.invalidate(uuid, auth.tenantId());
+                    return Response.noContent().build();
+                });
     }
 
+    /**
+     * The body alone. A body stored compressed goes out as stored, with {@code Content-Encoding},
+     * when the client accepts that coding; it is only inflated for clients that do not.
+     */
+    @GET
+    @Path("/{id}/content")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces(MediaType.TEXT_PLAIN)
+    public Uni<Response> getDocumentContent(@PathParam("id") String id, @Context Request request,
+                                            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        UUID uuid = parseId(id);
+        if (uuid == null) {
+            return Uni.createFrom().item(invalidId());
+        }
+
+        return documentService.getDocumentById(uuid, auth())
+                .onItem().transform(doc -> {
+                    EntityTag tag = contentTag(doc);
+                    ContentHandle handle = doc.getContentHandle();
+                    String encoding = handle == null ? null : handle.encoding();
+                    if (encoding != null && acceptsEncoding(acceptEncoding, encoding)) {
+                        // A strong tag names one coding of the body, so the encoded form gets its own
+                        return conditional(request, new EntityTag(tag.getValue() + "-" + encoding), () ->
+                                Response.ok(Buffer.buffer(Unpooled.wrappedBuffer(handle.encodedBytes())), TEXT_UTF8)
+                                        .header(HttpHeaders.CONTENT_ENCODING, encoding)
+                                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+                    }
+                    return conditional(request, tag, () -> {
+                        ByteBuffer body = doc.getContentBytes();
+                        if (body == null) {
+                            return Response.noContent();
+                        }
+                        // Wrap the (possibly off-heap) body instead of copying it onto the heap
+                        return Response.ok(Buffer.buffer(Unpooled.wrappedBuffer(body)), TEXT_UTF8)
+                                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    });
+                });
+    }
+
+    /**
+     * The tenant's documents, all at once or a page at a time. {@code view=summary} leaves out the
+     * bodies, which are then never read from the store.
+     */
     @GET
     @Path("/tenant")
     @RolesAllowed({"admin", "viewer"})
-    public Uni<Response> getAllTenantDocuments() {
-        return documentService.getAllDocumentsForTenant(jwt)
-                .onItem().transform(docs -> Response.ok(docs).build());
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> getAllTenantDocuments(@QueryParam("cursor") String cursor,
+                                               @QueryParam("limit") Integer limit,
+                                               @QueryParam("view") String view,
+                                               @Context Request request,
+                                               @Context HttpHeaders headers) {
+        if (summaryView(view)) {
+            return tenantSummaries(cursor, limit, request, wantsProtobuf(headers));
+        }
+        if (wantsProtobuf(headers)) {
+            // Encoding is cheap enough that protobuf lists are not cached
+            return cursor == null && limit == null
+                    ? documentService.getAllDocumentsForTenant(auth()).onItem().transform(DocumentResource::protobuf)
+                    : documentService.getTenantDocumentsPage(cursor, pageSize(limit), auth())
+                            .onItem().transform(DocumentResource::protobuf);
+        }
+        // Without paging parameters keep returning the plain array for existing clients
+        if (cursor == null && limit == null) {
+            AuthContext auth = auth();
+            OptionalLong version = documentService.tenantListVersion(auth);
+            if (version.isEmpty()) {
+                return documentService.getAllDocumentsForTenant(auth)
+                        .onItem().transform(docs -> Response.ok(docs).build());
+            }
+            // A hit skips the scan as well as the serialization
+            ResponseCache.Entry cached = responseCache.tenantList(auth.tenantId(), version.getAsLong());
+            Uni<ResponseCache.Entry> json = cached != null
+                    ? Uni.createFrom().item(cached)
+                    : documentService.getAllDocumentsForTenant(auth).onItem()
+                            .transform(docs -> responseCache.tenantList(auth.tenantId(), version.getAsLong(), docs));
+            return json.onItem().transform(entry ->
+                    conditional(request, entry.etag(), () -> Response.ok(entry.body(), MediaType.APPLICATION_JSON_TYPE)));
+        }
+        return documentService.getTenantDocumentsPage(cursor, pageSize(limit), auth())
+                .onItem().transform(page -> Response.ok(page).build());
     }
 
+    /**
+     * A page of the tenant's documents by creation time, newest first unless {@code order=oldest},
+     * optionally only those created in {@code [from, to)} (Unix milliseconds); {@code view} as for
+     * {@code /tenant}. Without a cursor this is the newest (or oldest) {@code limit} documents.
+     */
+    @GET
+    @Path("/tenant/created")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> getTenantDocumentsByCreation(@QueryParam("from") Long from,
+                                                      @QueryParam("to") Long to,
+                                                      @QueryParam("order") String order,
+                                                      @QueryParam("cursor") String cursor,
+                                                      @QueryParam("limit") Integer limit,
+                                                      @QueryParam("view") String view,
+                                                      @Context HttpHeaders headers) {
+        boolean newestFirst = newestFirst(order);
+        boolean protobuf = wantsProtobuf(headers);
+        if (summaryView(view)) {
+            return documentService.getTenantSummariesByCreation(from, to, newestFirst, cursor, pageSize(limit), auth())
+                    .onItem().transform(page -> protobuf
+                            ? Response.ok(DocumentMessages.toSummaries(page), PROTOBUF).build()
+                            : Response.ok(page).build());
+        }
+        return documentService.getTenantDocumentsByCreation(from, to, newestFirst, cursor, pageSize(limit), auth())
+                .onItem().transform(page -> protobuf ? protobuf(page) : Response.ok(page).build());
+    }
+
+    @GET
+    @Path("/tenant/stream")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<Document> streamTenantDocuments() {
+        return documentService.streamTenantDocuments(auth());
+    }
+
+    /**
+     * Documents visible to the caller; {@code view=summary} as for {@code /tenant}.
+     */
     @GET
     @Path("/user")
     @RolesAllowed({"admin", "viewer"})
-    public Uni<Response> getUserDocuments() {
-        return documentService.getDocumentsByUser(jwt)
-                .onItem().transform(docs -> Response.ok(docs).build());
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> getUserDocuments(@QueryParam("cursor") String cursor,
+                                          @QueryParam("limit") Integer limit,
+                                          @QueryParam("view") String view,
+                                          @Context HttpHeaders headers) {
+        boolean protobuf = wantsProtobuf(headers);
+        if (summaryView(view)) {
+            if (cursor == null && limit == null) {
+                return documentService.getUserSummaries(auth()).onItem().transform(summaries -> protobuf
+                        ? Response.ok(DocumentMessages.toSummaries(summaries), PROTOBUF).build()
+                        : Response.ok(summaries).build());
+            }
+            return documentService.getUserSummariesPage(cursor, pageSize(limit), auth())
+                    .onItem().transform(page -> protobuf
+                            ? Response.ok(DocumentMessages.toSummaries(page), PROTOBUF).build()
+                            : Response.ok(page).build());
+        }
+        if (cursor == null && limit == null) {
+            return documentService.getDocumentsByUser(auth())
+                    .onItem().transform(docs -> protobuf ? protobuf(docs) : Response.ok(docs).build());
+        }
+        return documentService.getUserDocumentsPage(cursor, pageSize(limit), auth())
+                .onItem().transform(page -> protobuf ? protobuf(page) : Response.ok(page).build());
+    }
+
+    @GET
+    @Path("/search")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces({MediaType.APPLICATION_JSON, PROTOBUF})
+    public Uni<Response> searchDocuments(@QueryParam("q") String query, @QueryParam("limit") Integer limit,
+                                         @Context HttpHeaders headers) {
+        int size = limit == null ? DocumentService.DEFAULT_SEARCH_LIMIT : limit;
+        if (size < 1) throw new BadRequestException("limit must be positive");
+        boolean protobuf = wantsProtobuf(headers);
+        return documentService.searchDocuments(query, size, auth())
+                .onItem().transform(hits -> protobuf
+                        ? Response.ok(DocumentMessages.toSearchResults(hits), PROTOBUF).build()
+                        : Response.ok(hits).build());
+    }
+
+    /**
+     * Server-sent events for every create, update and delete in the caller's tenant, each with its
+     * sequence as the event id. Starts after {@code after}, or after {@code Last-Event-ID} when a
+     * client reconnects; with neither, from now on. Events are read from the change log only as
+     * fast as the connection takes them.
+     */
+    @GET
+    @Path("/changes")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<OutboundSseEvent> streamChanges(@QueryParam("after") Long after,
+                                                 @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+                                                 @Context Sse sse) {
+        Long from = after;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                from = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Last-Event-ID must be a change sequence");
+            }
+        }
+        return documentService.subscribeChanges(from, auth())
+                .onItem().transform(event -> sse.newEventBuilder()
+                        .id(Long.toString(event.getSequence()))
+                        .data(ChangeEvent.class, event)
+                        .build());
+    }
+
+    /**
+     * The changes asked for are no longer held; the client resynchronizes from a list and
+     * subscribes again without {@code after}.
+     */
+    @ServerExceptionMapper
+    public Response changesExpired(ChangesExpiredException e) {
+        return Response.status(Response.Status.GONE)
+                .type(MediaType.TEXT_PLAIN)
+                .entity(e.getMessage())
+                .build();
+    }
+
+    @GET
+    @Path("/user/stream")
+    @RolesAllowed({"admin", "viewer"})
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<Document> streamUserDocuments() {
+        return documentService.streamUserDocuments(auth());
+    }
+
+    /**
+     * Summary counterpart of {@link #getAllTenantDocuments}; the unpaged JSON list is cached per
+     * tenant list version like the full one.
+     */
+    private Uni<Response> tenantSummaries(String cursor, Integer limit, Request request, boolean protobuf) {
+        AuthContext auth = auth();
+        if (cursor != null || limit != null) {
+            return documentService.getTenantSummariesPage(cursor, pageSize(limit), auth)
+                    .onItem().transform(page -> protobuf
+                            ? Response.ok(DocumentMessages.toSummaries(page), PROTOBUF).build()
+                            : Response.ok(page).build());
+        }
+        OptionalLong version = documentService.tenantListVersion(auth);
+        if (protobuf || version.isEmpty()) {
+            return documentService.getTenantSummaries(auth).onItem().transform(summaries -> protobuf
+                    ? Response.ok(DocumentMessages.toSummaries(summaries), PROTOBUF).build()
+                    : Response.ok(summaries).build());
+        }
+        ResponseCache.Entry cached = responseCache.tenantSummaries(auth.tenantId(), version.getAsLong());
+        Uni<ResponseCache.Entry> json = cached != null
+                ? Uni.createFrom().item(cached)
+                : documentService.getTenantSummaries(auth).onItem()
+                        .transform(summaries -> responseCache.tenantSummaries(auth.tenantId(), version.getAsLong(), summaries));
+        return json.onItem().transform(entry ->
+                conditional(request, entry.etag(), () -> Response.ok(entry.body(), MediaType.APPLICATION_JSON_TYPE)));
+    }
+
+    private Uni<Response> update(String id, String ifMatch, Document doc, boolean partial) {
+        UUID uuid = parseId(id);
+        if (uuid == null) {
+            return Uni.createFrom().item(invalidId());
+        }
+        if (doc == null) {
+            throw new BadRequestException("Document body is required");
+        }
+
+        AuthContext auth = auth();
+        return expectedVersion(uuid, ifMatch, auth)
+                .onItem().transformToUni(expected -> documentService.updateDocument(uuid, doc, expected, partial, auth))
+                .onItem().transformToUni(updated -> {
+                    responseCache.invalidateTenant(updated.getTenantId());
+                    return responseCache.document(updated).onItem().transform(json ->
+                            Response.ok(json.body(), MediaType.APPLICATION_JSON_TYPE).tag(json.etag())
+                                    .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL).build());
+                });
+    }
+
+    /**
+     * 304 (or 412 for a failed {@code If-Match}) without building the body when the request's
+     * preconditions say so; otherwise the full response. Both carry the current ETag.
+     */
+    private static Response conditional(Request request, EntityTag tag, Supplier<Response.ResponseBuilder> response) {
+        Response.ResponseBuilder precondition = request.evaluatePreconditions(tag);
+        return (precondition != null ? precondition : response.get())
+                .tag(tag).header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL).build();
+    }
+
+    /**
+     * Whether {@code order} asks for the newest documents first: {@code newest} (the default), or
+     * {@code oldest}.
+     */
+    private static boolean newestFirst(String order) {
+        if (order == null || order.equals(ORDER_NEWEST)) return true;
+        if (order.equals(ORDER_OLDEST)) return false;
+        throw new BadRequestException("order must be " + ORDER_NEWEST + " or " + ORDER_OLDEST);
+    }
+
+    /**
+     * Whether {@code view} asks for summaries: {@code summary}, or {@code full} (the default).
+     */
+    private static boolean summaryView(String view) {
+        if (view == null || view.equals(VIEW_FULL)) return false;
+        if (view.equals(VIEW_SUMMARY)) return true;
+        throw new BadRequestException("view must be " + VIEW_FULL + " or " + VIEW_SUMMARY);
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header admits {@code coding} with a non-zero quality; an
+     * entry naming the coding overrides {@code *}.
+     */
+    private static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) return false;
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0{0,3})?")) accepted = false;
+            }
+            if (name.equalsIgnoreCase(coding)) return accepted;
+            if (name.equals("*")) wildcard = accepted;
+        }
+        return wildcard;
+    }
+
+    /**
+     * Whether the client ranks {@code application/x-protobuf} above JSON in {@code Accept}.
+     * Wildcards, and no {@code Accept} at all, keep JSON.
+     */
+    private static boolean wantsProtobuf(HttpHeaders headers) {
+        for (MediaType type : headers.getAcceptableMediaTypes()) {
+            if (type.isWildcardType() || type.isWildcardSubtype()) return false;
+            if (type.isCompatible(ProtobufMessageBodyHandler.APPLICATION_PROTOBUF_TYPE)) return true;
+            if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) return false;
+        }
+        return false;
+    }
+
+    private static Response protobuf(List<Document> docs) {
+        return Response.ok(DocumentMessages.toMessage(docs), PROTOBUF).build();
+    }
+
+    private static Response protobuf(DocumentPage<Document> page) {
+        return Response.ok(DocumentMessages.toMessage(page), PROTOBUF).build();
+    }
+
+    /**
+     * Protobuf bodies are a separate representation with their own content-hash tag.
+     */
+    private static EntityTag protobufTag(byte[] body) {
+        return new EntityTag("p-" + ResponseCache.hash(body));
+    }
+
+    /**
+     * The body alone is a different representation from the JSON document, so it gets its own tag.
+     * It is taken from the id and version, which change whenever the body can, so answering with a
+     * stored body never means serializing, or inflating, the whole document.
+     */
+    private static EntityTag contentTag(Document doc) {
+        return new EntityTag("c-" + doc.getId() + "-" + doc.getVersion());
+    }
+
+    /**
+     * Resolve {@code If-Match} against the document's current ETag into the version the write is
+     * conditional on: {@code null} (unconditional) when absent or {@code *}, and -1 (never a
+     * version) when no listed tag matches, so the write fails its precondition. The tag follows
+     * from id and version, so this is a lookup; the body is never read. The store still compares
+     * versions, so a write racing in between also fails it.
+     */
+    private Uni<Long> expectedVersion(UUID id, String ifMatch, AuthContext auth) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return Uni.createFrom().nullItem();
+        }
+        return documentService.getDocumentById(id, auth)
+                .onItem().transform(current ->
+                        ResponseCache.matches(ifMatch, ResponseCache.documentTag(current)) ? current.getVersion() : -1L);
+    }
+
+    /**
+     * Pre-parsed caller context, cached per token.
+     */
+    private AuthContext auth() {
+        return authContexts.resolve(jwt);
+    }
+
+    /**
+     * Lazily binds documents from a root-level JSON array or a sequence of root values (NDJSON).
+     * A malformed document ends the upload instead of failing it, so the documents read before it
+     * are still stored; the error is kept for the final result entry.
+     */
+    private static final class UploadReader implements Iterator<Document> {
+
+        private final MappingIterator<Document> values;
+        private Document next;
+        String error;
+
+        UploadReader(MappingIterator<Document> values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && error == null) {
+                try {
+                    if (values.hasNextValue()) {
+                        next = values.nextValue();
+                        if (next == null) error = "Malformed document: null";
+                    }
+                } catch (JsonProcessingException e) {
+                    error = "Malformed document: " + e.getOriginalMessage();
+                } catch (IOException e) {
+                    error = "Upload failed: " + e.getMessage();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Document result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Response invalidId() {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Invalid UUID format").build();
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) return DocumentService.DEFAULT_PAGE_SIZE;
+        if (limit < 1) throw new BadRequestException("limit must be positive");
+        return Math.min(limit, DocumentService.MAX_PAGE_SIZE);
     }
 }
@@ -0,0 +1,72 @@
+package com.sdtp.rest;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.sdtp.grpc.DocumentProcessorOuterClass;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Reads and writes protobuf messages as {@code application/x-protobuf} bodies, the binary
+ * alternative to JSON that {@link DocumentResource} negotiates on {@code Accept}.
+ */
+@Provider
+@Consumes(ProtobufMessageBodyHandler.APPLICATION_PROTOBUF)
+@Produces(ProtobufMessageBodyHandler.APPLICATION_PROTOBUF)
+public class ProtobufMessageBodyHandler implements MessageBodyReader<Message>, MessageBodyWriter<MessageLite> {
+
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF_TYPE = MediaType.valueOf(APPLICATION_PROTOBUF);
+
+    // Listed rather than looked up by reflection, which a native image would need registered
+    private static final Map<Class<?>, Parser<? extends Message>> PARSERS = Map.of(
+            DocumentProcessorOuterClass.Document.class, DocumentProcessorOuterClass.Document.parser());
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return PARSERS.containsKey(type);
+    }
+
+    @Override
+    public Message readFrom(Class<Message> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                            MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        try {
+            return PARSERS.get(type).parseFrom(entityStream);
+        } catch (InvalidProtocolBufferException e) {
+            throw new BadRequestException("Malformed protobuf body: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return MessageLite.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(MessageLite message, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType) {
+        return message.getSerializedSize();
+    }
+
+    @Override
+    public void writeTo(MessageLite message, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        message.writeTo(entityStream);
+    }
+}
@@ -0,0 +1,248 @@
+package com.sdtp.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sdtp.model.Document;
+import com.sdtp.model.DocumentSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of serialized JSON responses with their ETags: single documents keyed by id and
+ * checked against the document version, full tenant lists (and their summary views) keyed by
+ * tenant and checked against the tenant's list version, so a stale entry is never served even if
+ * an invalidation is missed. A document's tag is taken from its id and version, a list's is a hash
+ * of its bytes. Entries are weighed by their size in bytes. Documents whose
+ * body the store moved off the heap are not cached, so their JSON never lands back on it. The
+ * bytes do not depend on who asks, so callers authorize first and then share them.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+    // UUID keys hold documents, String keys tenant lists, SummaryKey keys tenant summary lists
+    private final Cache<Object, Entry> entries;
+    private final long maxEntryBytes;
+    // Document serializations in progress, so concurrent readers of a version share one
+    private final ConcurrentMap<UUID, Flight> serializing = new ConcurrentHashMap<>();
+
+    @Inject
+    public ResponseCache(ObjectMapper objectMapper, MeterRegistry registry,
+                         @ConfigProperty(name = "document.response-cache.max-size", defaultValue = "64M") MemorySize maxSize) {
+        this.objectMapper = objectMapper;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.asLongValue())
+                .weigher((Object key, Entry entry) -> entry.body.length)
+                .recordStats()
+                .build();
+        // One oversized list would otherwise flush every document out of the cache
+        this.maxEntryBytes = maxSize.asLongValue() / 4;
+        CaffeineCacheMetrics.monitor(registry, entries, "documents.responses");
+    }
+
+    /**
+     * The document's JSON, serialized at most once per version: concurrent readers of a version
+     * that is not cached yet are handed the one serialization in progress, run outside any cache
+     * lock, rather than each running their own. They are completed when it is, so no caller ever
+     * blocks on another's serialization. A document with an off-heap body is serialized on every
+     * call and never cached.
+     */
+    public Uni<Entry> document(Document doc) {
+        if (doc.getContentHandle() != null) {
+            return Uni.createFrom().item(() -> serialize(doc));
+        }
+        Entry entry = entries.getIfPresent(doc.getId());
+        if (entry != null && entry.version == doc.getVersion()) return Uni.createFrom().item(entry);
+
+        Flight flight = new Flight(doc.getVersion());
+        Flight running = serializing.putIfAbsent(doc.getId(), flight);
+        if (running != null) {
+            // Share a concurrent reader's serialization of this version; any other version is serialized alone
+            return running.version == doc.getVersion()
+                    ? Uni.createFrom().completionStage(running.entry)
+                    : Uni.createFrom().item(() -> serialize(doc));
+        }
+        try {
+            // A reader that finished between the cache miss and the putIfAbsent has stored its entry
+            entry = entries.getIfPresent(doc.getId());
+            if (entry == null || entry.version != doc.getVersion()) {
+                entry = store(doc.getId(), serialize(doc));
+            }
+            flight.entry.complete(entry);
+            return Uni.createFrom().item(entry);
+        } catch (Throwable e) {
+            // Errors too, such as running out of memory on a big body; readers sharing the flight would wait forever
+            flight.entry.completeExceptionally(e);
+            throw e;
+        } finally {
+            serializing.remove(doc.getId(), flight);
+        }
+    }
+
+    /**
+     * The tenant's cached document list at {@code listVersion}, or {@code null}.
+     */
+    public Entry tenantList(String tenantId, long listVersion) {
+        Entry entry = entries.getIfPresent(tenantId);
+        return entry != null && entry.version == listVersion ? entry : null;
+    }
+
+    /**
+     * Serialize a tenant list read at {@code listVersion} and cache it.
+     */
+    public Entry tenantList(String tenantId, long listVersion, List<Document> documents) {
+        return store(tenantId, serialize(tenantId, listVersion, documents));
+    }
+
+    /**
+     * The tenant's cached summary list at {@code listVersion}, or {@code null}.
+     */
+    public Entry tenantSummaries(String tenantId, long listVersion) {
+        Entry entry = entries.getIfPresent(new SummaryKey(tenantId));
+        return entry != null && entry.version == listVersion ? entry : null;
+    }
+
+    /**
+     * Serialize a tenant summary list read at {@code listVersion} and cache it.
+     */
+    public Entry tenantSummaries(String tenantId, long listVersion, List<DocumentSummary> summaries) {
+        return store(new SummaryKey(tenantId), serialize(tenantId, listVersion, summaries));
+    }
+
+    /**
+     * Drop what removing a document made stale.
+     */
+    public void invalidate(UUID id, String tenantId) {
+        entries.invalidate(id);
+        invalidateTenant(tenantId);
+    }
+
+    public void invalidateTenant(String tenantId) {
+        entries.invalidate(tenantId);
+        entries.invalidate(new SummaryKey(tenantId));
+    }
+
+    /**
+     * The strong ETag of a document's JSON. Every field that is serialized only changes along with
+     * the version, so the tag is known without serializing, or even reading, the body.
+     */
+    static EntityTag documentTag(Document doc) {
+        return new EntityTag(doc.getId() + "-" + doc.getVersion());
+    }
+
+    /**
+     * A strong {@code If-Match} list naming {@code etag}, see RFC 9110 13.1.1.
+     */
+    static boolean matches(String ifMatch, EntityTag etag) {
+        String quoted = '"' + etag.getValue() + '"';
+        for (String tag : ifMatch.split(",")) {
+            if (tag.trim().equals(quoted)) return true;
+        }
+        return false;
+    }
+
+    private Entry store(Object key, Entry entry) {
+        if (entry.body.length <= maxEntryBytes) {
+            // Only ever move forward: a slow reader must not replace a newer entry with its older one
+            entries.asMap().merge(key, entry, (current, candidate) -> candidate.version >= current.version ? candidate : current);
+        }
+        return entry;
+    }
+
+    private Entry serialize(Document doc) {
+        return new Entry(doc.getVersion(), bytes(doc.getId(), doc), documentTag(doc));
+    }
+
+    private Entry serialize(Object key, long version, Object value) {
+        byte[] body = bytes(key, value);
+        return new Entry(version, body, new EntityTag(hash(body)));
+    }
+
+    private byte[] bytes(Object key, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + key, e);
+        }
+    }
+
+    private static final class Flight {
+
+        private final long version;
+        private final CompletableFuture<Entry> entry = new CompletableFuture<>();
+
+        Flight(long version) {
+            this.version = version;
+        }
+    }
+
+    private static final class SummaryKey {
+
+        private final String tenantId;
+
+        SummaryKey(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SummaryKey other && tenantId.equals(other.tenantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return tenantId.hashCode();
+        }
+    }
+
+    /**
+     * Serialized body and its ETag.
+     */
+    public static final class Entry {
+
+        private final long version;
+        private final byte[] body;
+        private final EntityTag etag;
+
+        Entry(long version, byte[] body, EntityTag etag) {
+            this.version = version;
+            this.body = body;
+            this.etag = etag;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public EntityTag etag() {
+            return etag;
+        }
+    }
+
+    static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sdtp.rest;
+
+import com.sdtp.admission.TenantLimiter;
+import com.sdtp.admission.TenantOverloadedException;
+import com.sdtp.auth.AuthContextCache;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+/**
+ * Admits every authenticated REST request through the caller's tenant quota before the resource
+ * method runs. The concurrency slot is held until the response is fully written, which for
+ * streamed responses is well after the method returns. Anonymous requests ({@code /login}) are
+ * not tenant-scoped and pass through.
+ */
+public class TenantAdmissionFilter {
+
+    @Inject
+    TenantLimiter limiter;
+
+    @Inject
+    SecurityIdentity identity;
+
+    @Inject
+    AuthContextCache authContexts;
+
+    @ServerRequestFilter
+    public void admit(RoutingContext routing) {
+        if (identity.isAnonymous()) return;
+
+        TenantLimiter.Permit permit = limiter.acquire(authContexts.resolve(identity).tenantId(), 1);
+        routing.addEndHandler(ignored -> permit.release());
+    }
+
+    @ServerExceptionMapper
+    public Response overloaded(TenantOverloadedException e) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, e.retryAfterSeconds())
+                .type(MediaType.TEXT_PLAIN)
+                .entity(e.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.sdtp.service;
+
+import jakarta.ws.rs.BadRequestException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque pagination cursor: the URL-safe Base64 form of the last document id returned, preceded
+ * by its creation time in listings ordered by creation.
+ */
+public final class DocumentCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private DocumentCursor() {
+    }
+
+    public static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(lastId.getMostSignificantBits());
+        buffer.putLong(lastId.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    public static String encode(long createdAt, UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.putLong(createdAt);
+        buffer.putLong(lastId.getMostSignificantBits());
+        buffer.putLong(lastId.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    /**
+     * Decode a cursor, returning {@code null} for a missing one (start of the listing).
+     */
+    public static UUID decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        ByteBuffer buffer = bytes(cursor, 16);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Decode a cursor of a creation-ordered listing, returning {@code null} for a missing one.
+     */
+    public static Position decodePosition(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        ByteBuffer buffer = bytes(cursor, 24);
+        return new Position(buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+    }
+
+    private static ByteBuffer bytes(String cursor, int length) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (bytes.length != length) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Where a creation-ordered listing left off.
+     */
+    public static final class Position {
+
+        private final long createdAt;
+        private final UUID id;
+
+        Position(long createdAt, UUID id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        public long createdAt() {
+            return createdAt;
+        }
+
+        public UUID id() {
+            return id;
+        }
+    }
+}
@@ -1,106 +1,492 @@
 package com.sdtp.service;
 
+import com.sdtp.auth.AuthContext;
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.metrics.DocumentMetrics.Operation;
+import com.sdtp.metrics.DocumentMetrics.Outcome;
+import com.sdtp.model.BatchItemResult;
+import com.sdtp.model.ChangeEvent;
 import com.sdtp.model.Document;
+import com.sdtp.model.DocumentPage;
+import com.sdtp.model.DocumentSummary;
+import com.sdtp.model.SearchHit;
+import com.sdtp.store.DocumentStore;
+import com.sdtp.store.InMemoryDocumentStore;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @ApplicationScoped
 public class DocumentService {
 
-    private final Map<UUID, Document> documentStore = new HashMap<>();
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int BATCH_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    private final DocumentStore documentStore;
+    private final DocumentMetrics metrics;
+    private final StoreExecutor storeExecutor;
+    private final ChangeLog changeLog;
+    private final SingleFlight<LookupKey, Document> remoteLookups = new SingleFlight<>();
+
+    public DocumentService() {
+        this(new InMemoryDocumentStore());
+    }
+
+    public DocumentService(DocumentStore documentStore) {
+        this(documentStore, DocumentMetrics.NOOP, StoreExecutor.INLINE);
+    }
+
+    public DocumentService(DocumentStore documentStore, DocumentMetrics metrics, StoreExecutor storeExecutor) {
+        this(documentStore, metrics, storeExecutor, new ChangeLog(ChangeLog.DEFAULT_CAPACITY));
+    }
+
+    @Inject
+    public DocumentService(DocumentStore documentStore, DocumentMetrics metrics, StoreExecutor storeExecutor,
+                           ChangeLog changeLog) {
+        this.documentStore = documentStore;
+        this.metrics = metrics;
+        this.storeExecutor = storeExecutor;
+        this.changeLog = changeLog;
+    }
 
     /**
      * Create a new document (RBAC + ABAC enforced)
      */
-    public Uni<Document> createDocument(Document doc, JsonWebToken jwt) {
-        return Uni.createFrom().item(() -> {
-            String tenantId = jwt.getClaim("tenant_id");
-            Set<String> roles = jwt.getGroups();
-            String createdBy = jwt.getName();
-
-            if (!roles.contains("admin")) {
+    public Uni<Document> createDocument(Document doc, AuthContext auth) {
+        return storeExecutor.write(timed(Operation.CREATE, () -> {
+            if (!auth.isAdmin()) {
                 throw new ForbiddenException("Only admin users can create documents");
             }
 
-            doc.setTenantId(tenantId);
-            doc.setCreatedBy(createdBy);
+            doc.setTenantId(auth.tenantId());
+            doc.setCreatedBy(auth.principal());
 
-            Document newDoc = new Document(doc.getTitle(), doc.getContent(), tenantId, createdBy);
-            documentStore.put(newDoc.getId(), newDoc);
+            Document newDoc = new Document(doc.getTitle(), doc.getContent(), auth.tenantId(), auth.principal());
+            documentStore.put(newDoc, created -> changeLog.append(ChangeEvent.Type.CREATED, created));
+            metrics.observeTenant(auth.tenantId());
             return newDoc;
-        });
+        }));
     }
 
     /**
-     * Fetch a document by ID (RBAC + ABAC enforced)
+     * Create documents from a (possibly unbounded) upload. The caller is authorized once; documents
+     * are written in chunks of {@link #BATCH_CHUNK_SIZE} with one store write each, and the next
+     * chunk is only requested from upstream once the previous one is stored. A failed chunk is
+     * reported per document and does not stop the upload.
      */
-    public Uni<Document> getDocumentById(UUID id, JsonWebToken jwt) {
-        return Uni.createFrom().item(() -> {
-            Document doc = documentStore.get(id);
-            if (doc == null) {
-                throw new NotFoundException("Document not found");
+    public Multi<BatchItemResult> createDocuments(Multi<Document> documents, AuthContext auth) {
+        return Multi.createFrom().deferred(() -> {
+            if (!auth.isAdmin()) {
+                return Multi.createFrom().failure(new ForbiddenException("Only admin users can create documents"));
             }
 
-            String tenantId = jwt.getClaim("tenant_id");
-            Set<String> roles = jwt.getGroups();
+            long[] offset = {0};
+            return documents
+                    .group().intoLists().of(BATCH_CHUNK_SIZE)
+                    .onItem().transformToUniAndConcatenate(chunk -> {
+                        long first = offset[0];
+                        offset[0] += chunk.size();
+                        return storeExecutor.write(timed(Operation.CREATE_BATCH, () -> createChunk(chunk, auth)))
+                                .onItemOrFailure().transform((created, failure) -> chunkResults(first, chunk, created, failure));
+                    })
+                    .onItem().<BatchItemResult>disjoint();
+        });
+    }
 
-            if (!tenantId.equals(doc.getTenantId())) {
-                throw new ForbiddenException("Cannot access documents from other tenants");
-            }
+    /**
+     * Fetch a document by ID (RBAC + ABAC enforced)
+     */
+    public Uni<Document> getDocumentById(UUID id, AuthContext auth) {
+        return storeExecutor.read(timed(Operation.GET, () -> {
+            Document doc = find(id, auth);
 
-            if (!roles.contains("admin") && !roles.contains("viewer")) {
+            if (!auth.canRead()) {
                 throw new ForbiddenException("User does not have permission to read documents");
             }
 
             return doc;
-        });
+        }));
     }
 
     /**
-     * Fetch all documents for current tenant (RBAC + ABAC enforced)
+     * Fetch a document by ID through {@code fetch}, such as a call to the node serving the tenant.
+     * Concurrent readers of the same document in a tenant share one fetch, and each reader's
+     * tenant is checked against the result. Callers without read access are not coalesced, so the
+     * serving node refuses them itself (RBAC + ABAC enforced)
      */
-    public Uni<List<Document>> getAllDocumentsForTenant(JsonWebToken jwt) {
-        return Uni.createFrom().item(() -> {
-            String tenantId = jwt.getClaim("tenant_id");
-            Set<String> roles = jwt.getGroups();
+    public Uni<Document> getDocumentById(UUID id, AuthContext auth, Supplier<Uni<Document>> fetch) {
+        if (!auth.canRead()) {
+            return fetch.get();
+        }
+        return remoteLookups.join(new LookupKey(auth.tenantId(), id), fetch)
+                .map(doc -> {
+                    if (!auth.ownsTenant(doc.getTenantId())) {
+                        throw new ForbiddenException("Cannot access documents from other tenants");
+                    }
+                    return doc;
+                });
+    }
 
-            List<Document> list = new ArrayList<>();
-            for (Document doc : documentStore.values()) {
-                if (!tenantId.equals(doc.getTenantId())) continue;
+    /**
+     * Replace a document's title and content, or with {@code partial} only the fields that are set
+     * (RBAC + ABAC enforced). The store compares and sets, so there is no lock to wait on: with an
+     * {@code expectedVersion} a concurrent update fails the precondition, without one the update is
+     * retried on the latest version.
+     */
+    public Uni<Document> updateDocument(UUID id, Document changes, Long expectedVersion, boolean partial,
+                                        AuthContext auth) {
+        return storeExecutor.write(timed(Operation.UPDATE, () -> {
+            if (!auth.isAdmin()) {
+                throw new ForbiddenException("Only admin users can update documents");
+            }
+
+            while (true) {
+                Document current = find(id, auth);
+                checkVersion(current, expectedVersion);
 
-                if (roles.contains("admin") || roles.contains("viewer")) {
-                    list.add(doc);
+                boolean keepContent = partial && changes.getContent() == null;
+                Document updated = new Document(id,
+                        partial && changes.getTitle() == null ? current.getTitle() : changes.getTitle(),
+                        keepContent ? null : changes.getContent(),
+                        current.getTenantId(), current.getCreatedBy(), current.getVersion() + 1,
+                        current.getCreatedAt(), System.currentTimeMillis());
+                if (keepContent && current.getContentHandle() != null) {
+                    // Share the off-heap body instead of copying it
+                    updated.setContentHandle(current.getContentHandle());
+                } else if (keepContent) {
+                    updated.setContent(current.getContent());
+                }
+                if (documentStore.replace(current, updated, replaced -> changeLog.append(ChangeEvent.Type.UPDATED, replaced))) {
+                    return updated;
                 }
             }
-            return list;
-        });
+        }));
+    }
+
+    /**
+     * Delete a document, optionally only at {@code expectedVersion} (RBAC + ABAC enforced)
+     */
+    public Uni<Void> deleteDocument(UUID id, Long expectedVersion, AuthContext auth) {
+        return storeExecutor.write(timed(Operation.DELETE, () -> {
+            if (!auth.isAdmin()) {
+                throw new ForbiddenException("Only admin users can delete documents");
+            }
+
+            while (true) {
+                Document current = find(id, auth);
+                checkVersion(current, expectedVersion);
+                if (documentStore.remove(current, removed -> changeLog.append(ChangeEvent.Type.DELETED, removed))) {
+                    return null;
+                }
+            }
+        }));
+    }
+
+    /**
+     * Fetch all documents for current tenant (RBAC + ABAC enforced)
+     */
+    public Uni<List<Document>> getAllDocumentsForTenant(AuthContext auth) {
+        return storeExecutor.scan(timed(Operation.LIST_TENANT, () -> {
+            if (!auth.canRead()) {
+                return new ArrayList<Document>();
+            }
+            return new ArrayList<>(documentStore.findByTenant(auth.tenantId()));
+        }));
+    }
+
+    /**
+     * Version of the current tenant's document list; it changes with every write to the tenant, so
+     * it can key cached copies of the list. Empty when the caller may not read the list (RBAC + ABAC enforced)
+     */
+    public OptionalLong tenantListVersion(AuthContext auth) {
+        return auth.canRead() ? OptionalLong.of(documentStore.tenantVersion(auth.tenantId())) : OptionalLong.empty();
     }
 
     /**
      * Fetch documents created by current user (RBAC + ABAC enforced)
      */
-    public Uni<List<Document>> getDocumentsByUser(JsonWebToken jwt) {
-        return Uni.createFrom().item(() -> {
-            String tenantId = jwt.getClaim("tenant_id");
-            String username = jwt.getName();
-            Set<String> roles = jwt.getGroups();
+    public Uni<List<Document>> getDocumentsByUser(AuthContext auth) {
+        return storeExecutor.scan(timed(Operation.LIST_USER, () -> {
+            // Admin sees every tenant document, everyone else only their own
+            if (auth.isAdmin()) {
+                return new ArrayList<>(documentStore.findByTenant(auth.tenantId()));
+            }
+            return new ArrayList<>(documentStore.findByCreator(auth.tenantId(), auth.principal()));
+        }));
+    }
 
-            List<Document> list = new ArrayList<>();
-            for (Document doc : documentStore.values()) {
-                if (!tenantId.equals(doc.getTenantId())) continue;
+    /**
+     * Summaries of all documents for current tenant; bodies are never read (RBAC + ABAC enforced)
+     */
+    public Uni<List<DocumentSummary>> getTenantSummaries(AuthContext auth) {
+        return storeExecutor.scan(timed(Operation.LIST_TENANT, () -> summaries(tenantDocuments(auth, null))));
+    }
 
-                if (roles.contains("admin") || username.equals(doc.getCreatedBy())) {
-                    list.add(doc);
-                }
+    /**
+     * Summaries of the documents visible to the current user, see {@link #getDocumentsByUser} (RBAC + ABAC enforced)
+     */
+    public Uni<List<DocumentSummary>> getUserSummaries(AuthContext auth) {
+        return storeExecutor.scan(timed(Operation.LIST_USER, () -> summaries(userDocuments(auth, null))));
+    }
+
+    /**
+     * Fetch one page of the current tenant's documents in stable id order (RBAC + ABAC enforced)
+     */
+    public Uni<DocumentPage<Document>> getTenantDocumentsPage(String cursor, int limit, AuthContext auth) {
+        return storeExecutor.read(timed(Operation.LIST_TENANT,
+                () -> page(tenantDocuments(auth, DocumentCursor.decode(cursor)), limit, Function.identity())));
+    }
+
+    /**
+     * Fetch one page of the current user's documents in stable id order (RBAC + ABAC enforced)
+     */
+    public Uni<DocumentPage<Document>> getUserDocumentsPage(String cursor, int limit, AuthContext auth) {
+        return storeExecutor.read(timed(Operation.LIST_USER,
+                () -> page(userDocuments(auth, DocumentCursor.decode(cursor)), limit, Function.identity())));
+    }
+
+    /**
+     * {@link #getTenantDocumentsPage} as summaries; cursors are interchangeable between the two
+     */
+    public Uni<DocumentPage<DocumentSummary>> getTenantSummariesPage(String cursor, int limit, AuthContext auth) {
+        return timed(Operation.LIST_TENANT,
+                () -> page(tenantDocuments(auth, DocumentCursor.decode(cursor)), limit, DocumentSummary::of));
+    }
+
+    /**
+     * {@link #getUserDocumentsPage} as summaries; cursors are interchangeable between the two
+     */
+    public Uni<DocumentPage<DocumentSummary>> getUserSummariesPage(String cursor, int limit, AuthContext auth) {
+        return timed(Operation.LIST_USER,
+                () -> page(userDocuments(auth, DocumentCursor.decode(cursor)), limit, DocumentSummary::of));
+    }
+
+    /**
+     * Fetch one page of the current tenant's documents created in {@code [from, to)} Unix
+     * milliseconds (unbounded where {@code null}), newest or oldest first. Served from the store's
+     * creation-ordered index, so the newest few of a large tenant cost no more than a page of it
+     * (RBAC + ABAC enforced)
+     */
+    public Uni<DocumentPage<Document>> getTenantDocumentsByCreation(Long from, Long to, boolean newestFirst,
+                                                                    String cursor, int limit, AuthContext auth) {
+        return storeExecutor.read(timed(Operation.LIST_TENANT,
+                () -> createdPage(from, to, newestFirst, cursor, limit, auth, Function.identity())));
+    }
+
+    /**
+     * {@link #getTenantDocumentsByCreation} as summaries; cursors are interchangeable between the two
+     */
+    public Uni<DocumentPage<DocumentSummary>> getTenantSummariesByCreation(Long from, Long to, boolean newestFirst,
+                                                                           String cursor, int limit, AuthContext auth) {
+        return timed(Operation.LIST_TENANT,
+                () -> createdPage(from, to, newestFirst, cursor, limit, auth, DocumentSummary::of));
+    }
+
+    /**
+     * Full-text search over the current tenant's titles and contents, best match first (RBAC + ABAC enforced)
+     */
+    public Uni<List<SearchHit>> searchDocuments(String query, int limit, AuthContext auth) {
+        return storeExecutor.scan(timed(Operation.SEARCH, () -> {
+            if (query == null || query.isBlank()) {
+                throw new BadRequestException("Search query must not be empty");
+            }
+            if (!auth.canRead()) {
+                return List.<SearchHit>of();
+            }
+            return documentStore.search(auth.tenantId(), query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
+        }));
+    }
+
+    /**
+     * Stream all documents for current tenant, pulled lazily from the store on demand
+     */
+    public Multi<Document> streamTenantDocuments(AuthContext auth) {
+        return storeExecutor.stream(
+                Multi.createFrom().deferred(() -> Multi.createFrom().iterable(tenantDocuments(auth, null))));
+    }
+
+    /**
+     * Stream documents visible to the current user, pulled lazily from the store on demand
+     */
+    public Multi<Document> streamUserDocuments(AuthContext auth) {
+        return storeExecutor.stream(
+                Multi.createFrom().deferred(() -> Multi.createFrom().iterable(userDocuments(auth, null))));
+    }
+
+    /**
+     * Creates, updates and deletes in the current tenant after sequence {@code after}, then live as
+     * they happen, at the pace the subscriber requests them. {@code null} starts from now, 0 from
+     * the oldest change still held (RBAC + ABAC enforced)
+     *
+     * @throws com.sdtp.changes.ChangesExpiredException when the changes after {@code after} are gone
+     */
+    public Multi<ChangeEvent> subscribeChanges(Long after, AuthContext auth) {
+        if (after != null && after < 0) {
+            throw new BadRequestException("Change sequence must not be negative");
+        }
+        if (!auth.canRead()) {
+            throw new ForbiddenException("User does not have permission to read documents");
+        }
+        return changeLog.subscribe(auth.tenantId(), after);
+    }
+
+    private Document find(UUID id, AuthContext auth) {
+        Document doc = documentStore.get(id);
+        if (doc == null) {
+            throw new NotFoundException("Document not found");
+        }
+
+        if (!auth.ownsTenant(doc.getTenantId())) {
+            throw new ForbiddenException("Cannot access documents from other tenants");
+        }
+        return doc;
+    }
+
+    private static void checkVersion(Document current, Long expectedVersion) {
+        if (expectedVersion != null && current.getVersion() != expectedVersion) {
+            throw new ClientErrorException("Document is at version " + current.getVersion(),
+                    Response.Status.PRECONDITION_FAILED);
+        }
+    }
+
+    private List<Document> createChunk(List<Document> chunk, AuthContext auth) {
+        List<Document> created = new ArrayList<>(chunk.size());
+        for (Document doc : chunk) {
+            created.add(new Document(doc.getTitle(), doc.getContent(), auth.tenantId(), auth.principal()));
+        }
+        documentStore.putAll(created, doc -> changeLog.append(ChangeEvent.Type.CREATED, doc));
+        metrics.observeTenant(auth.tenantId());
+        return created;
+    }
+
+    private static List<BatchItemResult> chunkResults(long first, List<Document> chunk, List<Document> created,
+                                                      Throwable failure) {
+        List<BatchItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(failure == null
+                    ? BatchItemResult.created(first + i, created.get(i).getId().toString())
+                    : BatchItemResult.failed(first + i, failure.getMessage()));
+        }
+        return results;
+    }
+
+    /**
+     * Run {@code work} on subscription and record its latency under {@code operation}, by outcome.
+     */
+    private <T> Uni<T> timed(Operation operation, Supplier<T> work) {
+        return Uni.createFrom().item(() -> {
+            long start = System.nanoTime();
+            try {
+                T result = work.get();
+                metrics.record(operation, Outcome.OK, start);
+                return result;
+            } catch (RuntimeException e) {
+                metrics.record(operation, e, start);
+                throw e;
             }
-            return list;
         });
     }
+
+    private Iterable<Document> tenantDocuments(AuthContext auth, UUID after) {
+        if (!auth.canRead()) {
+            return List.of();
+        }
+        return documentStore.scanTenant(auth.tenantId(), after);
+    }
+
+    private Iterable<Document> userDocuments(AuthContext auth, UUID after) {
+        if (auth.isAdmin()) {
+            return documentStore.scanTenant(auth.tenantId(), after);
+        }
+        return documentStore.scanCreator(auth.tenantId(), auth.principal(), after);
+    }
+
+    private <T> DocumentPage<T> createdPage(Long from, Long to, boolean newestFirst, String cursor, int limit,
+                                            AuthContext auth, Function<Document, T> projection) {
+        long lower = from == null ? Long.MIN_VALUE : from;
+        long upper = to == null ? Long.MAX_VALUE : to;
+        if (lower >= upper) {
+            throw new BadRequestException("from must be before to");
+        }
+        DocumentCursor.Position after = DocumentCursor.decodePosition(cursor);
+        if (after != null) {
+            if (after.createdAt() < lower || after.createdAt() >= upper) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            // Resume in the part of the range the previous page had not reached
+            if (newestFirst) {
+                upper = after.createdAt() + 1;
+            } else {
+                lower = after.createdAt();
+            }
+        }
+        Iterable<Document> documents = auth.canRead()
+                ? documentStore.scanCreated(auth.tenantId(), lower, upper, newestFirst, after == null ? null : after.id())
+                : List.of();
+        return page(documents, limit, projection, last -> DocumentCursor.encode(last.getCreatedAt(), last.getId()));
+    }
+
+    private static <T> DocumentPage<T> page(Iterable<Document> documents, int limit, Function<Document, T> projection) {
+        return page(documents, limit, projection, last -> DocumentCursor.encode(last.getId()));
+    }
+
+    private static <T> DocumentPage<T> page(Iterable<Document> documents, int limit, Function<Document, T> projection,
+                                            Function<Document, String> cursorAfter) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<T> items = new ArrayList<>(Math.min(size, DEFAULT_PAGE_SIZE));
+
+        Iterator<Document> iterator = documents.iterator();
+        Document last = null;
+        while (items.size() < size && iterator.hasNext()) {
+            last = iterator.next();
+            items.add(projection.apply(last));
+        }
+        String nextCursor = iterator.hasNext() ? cursorAfter.apply(last) : null;
+        return new DocumentPage<>(items, nextCursor);
+    }
+
+    private static List<DocumentSummary> summaries(Iterable<Document> documents) {
+        List<DocumentSummary> result = new ArrayList<>();
+        for (Document doc : documents) {
+            result.add(DocumentSummary.of(doc));
+        }
+        return result;
+    }
+
+    private static final class LookupKey {
+
+        private final String tenantId;
+        private final UUID id;
+
+        LookupKey(String tenantId, UUID id) {
+            this.tenantId = tenantId;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LookupKey other && id.equals(other.id) && tenantId.equals(other.tenantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
 }
 
 
@@ -0,0 +1,30 @@
+package com.sdtp.service;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers asking for the same key share one asynchronous operation: the first
+ * caller starts it, callers arriving while it runs get its outcome, item or failure, and the first
+ * caller after it ends starts a new one. Nothing is kept once an operation ends, so a caller never
+ * sees an outcome older than its own request.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Uni<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Uni<V> join(K key, Supplier<Uni<V>> operation) {
+        return Uni.createFrom().deferred(() -> inFlight.computeIfAbsent(key, k -> start(k, operation)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Uni<V> start(K key, Supplier<Uni<V>> operation) {
+        Uni<V>[] flight = new Uni[1];
+        flight[0] = operation.get()
+                .onTermination().invoke(() -> inFlight.remove(key, flight[0]))
+                .memoize().indefinitely();
+        return flight[0];
+    }
+}
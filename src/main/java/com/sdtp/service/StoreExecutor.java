@@ -0,0 +1,157 @@
+package com.sdtp.service;
+
+import com.sdtp.store.DocumentStore;
+import com.sdtp.store.DocumentStoreConfig;
+import com.sdtp.store.DocumentStoreConfig.Execution.Mode;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which thread runs a store operation. REST and gRPC subscribe on the Vert.x event loop,
+ * so anything that can block there (durable writes waiting for their group commit, list calls
+ * that copy a whole tenant, reads of bodies kept on disk) is shifted to virtual threads or a
+ * bounded worker pool. Point and page reads of bodies held in memory stay on the calling thread.
+ */
+@Singleton
+public class StoreExecutor {
+
+    private static final Logger LOG = Logger.getLogger(StoreExecutor.class);
+
+    /** Runs everything on the calling thread, for services built outside CDI. */
+    public static final StoreExecutor INLINE = new StoreExecutor(Mode.EVENT_LOOP, 0, 0, false, false);
+
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final boolean writesBlock;
+    private final boolean readsBlock;
+
+    @Inject
+    StoreExecutor(DocumentStoreConfig config, DocumentStore store) {
+        this(config.execution().mode(), config.execution().workerThreads(), config.execution().workerQueue(),
+                store.writesBlock(), store.readsBlock());
+        LOG.infof("Blocking store operations run on %s", mode);
+    }
+
+    /**
+     * @param writesBlock whether writes must leave the calling thread, see {@link DocumentStore#writesBlock()}
+     */
+    public StoreExecutor(Mode mode, int workerThreads, int workerQueue, boolean writesBlock) {
+        this(mode, workerThreads, workerQueue, writesBlock, false);
+    }
+
+    /**
+     * @param writesBlock whether writes must leave the calling thread, see {@link DocumentStore#writesBlock()}
+     * @param readsBlock  whether reads of bodies must leave it too, see {@link DocumentStore#readsBlock()}
+     */
+    public StoreExecutor(Mode mode, int workerThreads, int workerQueue, boolean writesBlock, boolean readsBlock) {
+        ExecutorService virtual = mode == Mode.AUTO || mode == Mode.VIRTUAL ? virtualThreadExecutor() : null;
+        if (mode == Mode.VIRTUAL && virtual == null) {
+            LOG.warn("Virtual threads need Java 21 or later; falling back to the worker pool");
+        }
+        if (virtual != null) {
+            this.mode = Mode.VIRTUAL;
+            this.executor = virtual;
+        } else if (mode == Mode.EVENT_LOOP) {
+            this.mode = Mode.EVENT_LOOP;
+            this.executor = null;
+        } else {
+            this.mode = Mode.WORKER;
+            this.executor = workerPool(workerThreads, workerQueue);
+        }
+        this.writesBlock = writesBlock;
+        this.readsBlock = readsBlock;
+    }
+
+    /**
+     * The mode in effect once {@code auto} and unsupported modes are resolved.
+     */
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Dispatch a store write; only leaves the calling thread when the store's writes block.
+     */
+    public <T> Uni<T> write(Uni<T> work) {
+        return writesBlock ? offload(work) : work;
+    }
+
+    /**
+     * Dispatch a read that returns document bodies; only leaves the calling thread when reading a
+     * body may block. Whatever the caller chains on, such as serializing the body, runs there too.
+     */
+    public <T> Uni<T> read(Uni<T> work) {
+        return readsBlock ? offload(work) : work;
+    }
+
+    /**
+     * Dispatch a stream of document bodies; like {@link #read}, it is only subscribed, and pulled
+     * from, off the calling thread when reading a body may block.
+     */
+    public <T> Multi<T> stream(Multi<T> work) {
+        if (!readsBlock || executor == null) return work;
+        return work.runSubscriptionOn(executor)
+                .onFailure(RejectedExecutionException.class)
+                .transform(e -> new ServiceUnavailableException("Document store is overloaded"));
+    }
+
+    /**
+     * Dispatch an operation whose cost grows with the tenant size.
+     */
+    public <T> Uni<T> scan(Uni<T> work) {
+        return offload(work);
+    }
+
+    private <T> Uni<T> offload(Uni<T> work) {
+        if (executor == null) return work;
+        return work.runSubscriptionOn(executor)
+                .onFailure(RejectedExecutionException.class)
+                .transform(e -> new ServiceUnavailableException("Document store is overloaded"));
+    }
+
+    @PreDestroy
+    void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} looked up reflectively, so the service
+     * still builds for Java 17; {@code null} when the runtime does not have it.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService workerPool(int threads, int queue) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "document-store-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), factory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,161 @@
+package com.sdtp.store;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.SearchHit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind {@link com.sdtp.service.DocumentService}.
+ * Implementations must be safe for concurrent use from event-loop and worker threads.
+ * <p>
+ * The write methods that take an {@code applied} callback run it with each stored or removed
+ * document before the store releases the write, so the callbacks for any one document, and for
+ * one tenant, run in the order the store applied the writes.
+ */
+public interface DocumentStore {
+
+    /**
+     * Callback for a write nothing has to follow.
+     */
+    Consumer<Document> NOTHING = document -> { };
+
+    /**
+     * Look up a document by id, or {@code null} if it does not exist. Must never block behind writers.
+     */
+    Document get(UUID id);
+
+    /**
+     * Insert or replace a document, keyed by its id and partitioned by its tenant.
+     */
+    default void put(Document document) {
+        put(document, NOTHING);
+    }
+
+    void put(Document document, Consumer<Document> applied);
+
+    /**
+     * Insert or replace several documents as one write. Durable engines persist the batch with a
+     * single log append, so ingest pays one group commit per batch rather than per document.
+     */
+    default void putAll(List<Document> documents) {
+        putAll(documents, NOTHING);
+    }
+
+    default void putAll(List<Document> documents, Consumer<Document> applied) {
+        for (Document document : documents) {
+            put(document, applied);
+        }
+    }
+
+    /**
+     * Remove a document, returning the removed instance or {@code null}.
+     */
+    Document remove(UUID id);
+
+    /**
+     * Compare-and-set: store {@code replacement} only if {@code expected}, as returned by {@link #get},
+     * is still the stored instance for its id. Instances are compared by identity, so a writer that
+     * lost a race sees {@code false} and can re-read. The tenant must not change.
+     *
+     * @return whether {@code replacement} was stored
+     */
+    default boolean replace(Document expected, Document replacement) {
+        return replace(expected, replacement, NOTHING);
+    }
+
+    boolean replace(Document expected, Document replacement, Consumer<Document> applied);
+
+    /**
+     * Compare-and-remove: remove {@code expected} only if it is still the stored instance for its id.
+     *
+     * @return whether it was removed
+     */
+    default boolean remove(Document expected) {
+        return remove(expected, NOTHING);
+    }
+
+    boolean remove(Document expected, Consumer<Document> applied);
+
+    /**
+     * Weakly consistent view of the documents owned by a tenant.
+     */
+    Collection<Document> findByTenant(String tenantId);
+
+    /**
+     * Documents of a tenant created by the given user.
+     */
+    Collection<Document> findByCreator(String tenantId, String createdBy);
+
+    /**
+     * Lazy, id-ordered scan of a tenant's documents starting strictly after {@code after}
+     * (from the beginning when {@code null}). Iteration never copies the partition.
+     */
+    Iterable<Document> scanTenant(String tenantId, UUID after);
+
+    /**
+     * Lazy, id-ordered scan of the documents a user created within a tenant, see {@link #scanTenant}.
+     */
+    Iterable<Document> scanCreator(String tenantId, String createdBy, UUID after);
+
+    /**
+     * Lazy scan of a tenant's documents created in {@code [from, to)} Unix milliseconds, oldest or
+     * newest first, served from an index kept in creation order so that neither the newest few nor
+     * a time range need a full scan or a sort. A non-null {@code after} resumes past that document
+     * of an earlier scan, which must have been created at {@code from} (oldest first) or at
+     * {@code to - 1} (newest first).
+     */
+    Iterable<Document> scanCreated(String tenantId, long from, long to, boolean newestFirst, UUID after);
+
+    /**
+     * Up to {@code limit} documents of a tenant matching any term of {@code query} in their title or
+     * content, ranked by BM25. Only the tenant's own index is consulted.
+     */
+    List<SearchHit> search(String tenantId, String query, int limit);
+
+    /**
+     * Number of documents a tenant currently owns, in constant time.
+     */
+    int countByTenant(String tenantId);
+
+    /**
+     * Counter that moves forward after every write to a tenant's documents, so it can key cached
+     * copies of the tenant's list. Reading a value guarantees the writes it counts are visible.
+     */
+    long tenantVersion(String tenantId);
+
+    /**
+     * Tenants that have stored at least one document.
+     */
+    Set<String> tenants();
+
+    /**
+     * Weakly consistent view of every stored document across all tenants.
+     */
+    Collection<Document> values();
+
+    /**
+     * Total number of stored documents.
+     */
+    int size();
+
+    /**
+     * Whether {@link #put} and {@link #remove} may block the caller, e.g. on disk I/O. Such writes
+     * must not run on an event-loop thread.
+     */
+    default boolean writesBlock() {
+        return false;
+    }
+
+    /**
+     * Whether reading a document's body may block the caller, e.g. on disk I/O. Reads that return
+     * bodies must then not run on an event-loop thread either.
+     */
+    default boolean readsBlock() {
+        return false;
+    }
+}
@@ -0,0 +1,163 @@
+package com.sdtp.store;
+
+import com.sdtp.store.wal.FsyncPolicy;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.OptionalInt;
+
+@ConfigMapping(prefix = "document.store")
+public interface DocumentStoreConfig {
+
+    enum Engine {
+        MEMORY,
+        DURABLE
+    }
+
+    /**
+     * Storage engine; {@code memory} loses everything on restart.
+     */
+    @WithDefault("memory")
+    Engine engine();
+
+    Durable durable();
+
+    Content content();
+
+    Execution execution();
+
+    interface Execution {
+
+        enum Mode {
+            /** Virtual threads when the runtime has them, the worker pool otherwise. */
+            AUTO,
+            /** Everything on the calling thread, the pre-dispatch behaviour. */
+            EVENT_LOOP,
+            WORKER,
+            VIRTUAL
+        }
+
+        /**
+         * Where operations that may block (durable writes, unbounded list scans) run. Point reads, page
+         * reads and streams stay on the calling event loop unless the store keeps bodies on disk.
+         */
+        @WithDefault("auto")
+        Mode mode();
+
+        /**
+         * Threads of the bounded pool used by {@code worker} mode.
+         */
+        @WithDefault("64")
+        int workerThreads();
+
+        /**
+         * Operations allowed to wait for a worker before callers are turned away with 503.
+         */
+        @WithDefault("10000")
+        int workerQueue();
+    }
+
+    interface Content {
+
+        enum Storage {
+            HEAP,
+            DIRECT,
+            MAPPED,
+            TIERED
+        }
+
+        /**
+         * Where document bodies live: on-heap strings, direct buffer slabs, memory-mapped slab files,
+         * or segment files on disk with only the most used bodies cached on the heap.
+         */
+        @WithDefault("heap")
+        Storage storage();
+
+        /**
+         * Bodies with at least this many characters are moved off-heap.
+         */
+        @WithDefault("4096")
+        int offHeapThreshold();
+
+        /**
+         * Scratch directory for {@code mapped} slab files and {@code tiered} segment files.
+         */
+        @WithDefault("data/content")
+        Path directory();
+
+        /**
+         * Size of a slab, or of a {@code tiered} segment file.
+         */
+        @WithDefault("64M")
+        MemorySize slabSize();
+
+        /**
+         * With {@code tiered} storage, how many bytes of bodies stay cached on the heap.
+         */
+        @WithDefault("256M")
+        MemorySize hotSize();
+
+        enum Compression {
+            NONE,
+            DEFLATE
+        }
+
+        /**
+         * Compress bodies as stored; read paths inflate them on demand, and {@code /content} sends
+         * them still deflated to clients that accept it.
+         */
+        @WithDefault("none")
+        Compression compression();
+
+        /**
+         * With {@code heap} storage, bodies with at least this many characters are compressed.
+         * Off-heap storage compresses the bodies it moves off-heap.
+         */
+        @WithDefault("512")
+        int compressionThreshold();
+
+        /**
+         * Deflate level, 1 (fastest) to 9 (smallest).
+         */
+        @WithDefault("6")
+        int compressionLevel();
+    }
+
+    interface Durable {
+
+        /**
+         * Directory holding log segments and snapshots.
+         */
+        @WithDefault("data/documents")
+        Path directory();
+
+        @WithDefault("interval")
+        FsyncPolicy fsync();
+
+        /**
+         * Upper bound between two fsyncs when {@code fsync=interval}.
+         */
+        @WithDefault("50ms")
+        Duration fsyncInterval();
+
+        /**
+         * Size after which the log starts a new segment.
+         */
+        @WithDefault("64M")
+        MemorySize segmentSize();
+
+        /**
+         * How often a compacted snapshot is written when the log has changed.
+         */
+        @WithDefault("10m")
+        Duration snapshotInterval();
+
+        /**
+         * Threads that index the snapshot's documents on startup; one per processor when unset.
+         */
+        OptionalInt recoveryThreads();
+    }
+}
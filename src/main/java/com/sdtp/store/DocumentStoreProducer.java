@@ -0,0 +1,74 @@
+package com.sdtp.store;
+
+import com.sdtp.store.content.ContentStore;
+import com.sdtp.store.content.DeflateContentStore;
+import com.sdtp.store.content.SlabContentStore;
+import com.sdtp.store.content.TieredContentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Selects the {@link DocumentStore} engine from configuration. Startup-eager so a durable store
+ * replays its log before the first request arrives.
+ */
+@ApplicationScoped
+public class DocumentStoreProducer {
+
+    private static final Logger LOG = Logger.getLogger(DocumentStoreProducer.class);
+
+    @Produces
+    @Startup
+    @ApplicationScoped
+    DocumentStore documentStore(DocumentStoreConfig config, MeterRegistry registry) {
+        InMemoryDocumentStore memory = memoryStore(config.content(), registry);
+        return switch (config.engine()) {
+            case MEMORY -> memory;
+            case DURABLE -> {
+                DocumentStoreConfig.Durable durable = config.durable();
+                yield new DurableDocumentStore(memory, durable.directory(), durable.fsync(), durable.fsyncInterval(),
+                        durable.segmentSize().asLongValue(), durable.snapshotInterval(),
+                        durable.recoveryThreads().orElse(Runtime.getRuntime().availableProcessors()));
+            }
+        };
+    }
+
+    private static InMemoryDocumentStore memoryStore(DocumentStoreConfig.Content content, MeterRegistry registry) {
+        int slabBytes = (int) Math.min(content.slabSize().asLongValue(), Integer.MAX_VALUE);
+        ContentStore bodies = switch (content.storage()) {
+            case HEAP -> null;
+            case DIRECT -> new SlabContentStore(null, slabBytes);
+            case MAPPED -> new SlabContentStore(content.directory(), slabBytes);
+            case TIERED -> {
+                TieredContentStore tiered = new TieredContentStore(content.directory(), slabBytes,
+                        content.hotSize().asLongValue());
+                tiered.bindTo(registry);
+                yield tiered;
+            }
+        };
+        int threshold = content.offHeapThreshold();
+        if (content.compression() == DocumentStoreConfig.Content.Compression.DEFLATE) {
+            if (bodies == null) {
+                threshold = content.compressionThreshold();
+            }
+            bodies = new DeflateContentStore(bodies, content.compressionLevel());
+        }
+        return bodies == null ? new InMemoryDocumentStore() : new InMemoryDocumentStore(bodies, threshold);
+    }
+
+    void close(@Disposes DocumentStore store) {
+        if (store instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOG.error("Failed to close document store", e);
+            }
+        }
+    }
+}
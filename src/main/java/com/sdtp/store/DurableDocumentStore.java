@@ -0,0 +1,331 @@
+package com.sdtp.store;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.SearchHit;
+import com.sdtp.store.wal.FsyncPolicy;
+import com.sdtp.store.wal.LogRecords;
+import com.sdtp.store.wal.LogVisitor;
+import com.sdtp.store.wal.Snapshots;
+import com.sdtp.store.wal.WriteAheadLog;
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Persistent engine: an {@link InMemoryDocumentStore} for reads, with every mutation appended to a
+ * {@link WriteAheadLog} and periodically compacted into a snapshot.
+ * <p>
+ * A mutation is checked, logged and, once its group commit is acknowledged, applied in memory,
+ * all under a per-id stripe lock: log order matches memory order for any single document, and a
+ * change the log fails to take is never seen by readers. Writers on different stripes still share
+ * group commits.
+ */
+public class DurableDocumentStore implements DocumentStore, Closeable {
+
+    private static final Logger LOG = Logger.getLogger(DurableDocumentStore.class);
+    private static final int STRIPES = 256;
+
+    private final InMemoryDocumentStore memory;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Path directory;
+    private final WriteAheadLog wal;
+    private final ScheduledExecutorService snapshotter;
+    private final AtomicLong appendsSinceSnapshot = new AtomicLong();
+    private final ReentrantReadWriteLock snapshotBarrier = new ReentrantReadWriteLock();
+
+    public DurableDocumentStore(InMemoryDocumentStore memory, Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                                long segmentBytes, Duration snapshotInterval) {
+        this(memory, directory, fsyncPolicy, fsyncInterval, segmentBytes, snapshotInterval,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param recoveryThreads threads that store the snapshot's documents on startup
+     */
+    public DurableDocumentStore(InMemoryDocumentStore memory, Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                                long segmentBytes, Duration snapshotInterval, int recoveryThreads) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.memory = memory;
+        this.directory = directory;
+
+        long started = System.nanoTime();
+        long nextSegment;
+        try {
+            long snapshotEnd;
+            try (SnapshotLoader loader = new SnapshotLoader(memory, recoveryThreads)) {
+                snapshotEnd = Snapshots.replaySnapshot(directory, loader);
+            }
+            nextSegment = Snapshots.replayLog(directory, snapshotEnd, new LogVisitor() {
+                @Override
+                public void put(Document document) {
+                    memory.put(document);
+                }
+
+                @Override
+                public void remove(UUID id) {
+                    memory.remove(id);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover document store from " + directory, e);
+        }
+        LOG.infof("Recovered %d documents from %s in %d ms", memory.size(), directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        this.wal = new WriteAheadLog(directory, nextSegment, fsyncPolicy, fsyncInterval, segmentBytes);
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "document-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfChanged, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Document get(UUID id) {
+        return memory.get(id);
+    }
+
+    @Override
+    public void put(Document document, Consumer<Document> applied) {
+        // Encode while the body is still on-heap, before the memory store may move it off-heap
+        ByteBuffer record = LogRecords.put(document);
+        ReentrantLock stripe = stripe(document.getId());
+        stripe.lock();
+        try {
+            logThenApply(record, () -> {
+                memory.put(document, applied);
+                return null;
+            });
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * The whole batch becomes one log append, so it costs a single group commit. Every stripe the
+     * batch touches is held until it is applied, keeping log order equal to memory order per id.
+     */
+    @Override
+    public void putAll(List<Document> documents, Consumer<Document> applied) {
+        if (documents.isEmpty()) return;
+        ByteBuffer records = LogRecords.putAll(documents);
+
+        boolean[] touched = new boolean[STRIPES];
+        for (Document document : documents) {
+            touched[stripeIndex(document.getId())] = true;
+        }
+        // Ascending order so concurrent batches cannot deadlock
+        int locked = 0;
+        try {
+            for (; locked < STRIPES; locked++) {
+                if (touched[locked]) stripes[locked].lock();
+            }
+            logThenApply(records, () -> {
+                for (Document document : documents) {
+                    memory.put(document, applied);
+                }
+                return null;
+            });
+        } finally {
+            for (int i = 0; i < locked; i++) {
+                if (touched[i]) stripes[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Document remove(UUID id) {
+        ReentrantLock stripe = stripe(id);
+        stripe.lock();
+        try {
+            if (memory.get(id) == null) return null;
+            return logThenApply(LogRecords.remove(id), () -> memory.remove(id));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(Document expected, Document replacement, Consumer<Document> applied) {
+        ByteBuffer record = LogRecords.put(replacement);
+        ReentrantLock stripe = stripe(expected.getId());
+        stripe.lock();
+        try {
+            // Documents compare by identity, as the memory store's own check does
+            if (memory.get(expected.getId()) != expected) return false;
+            return logThenApply(record, () -> memory.replace(expected, replacement, applied));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Document expected, Consumer<Document> applied) {
+        ReentrantLock stripe = stripe(expected.getId());
+        stripe.lock();
+        try {
+            if (memory.get(expected.getId()) != expected) return false;
+            return logThenApply(LogRecords.remove(expected.getId()), () -> memory.remove(expected, applied));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Collection<Document> findByTenant(String tenantId) {
+        return memory.findByTenant(tenantId);
+    }
+
+    @Override
+    public Collection<Document> findByCreator(String tenantId, String createdBy) {
+        return memory.findByCreator(tenantId, createdBy);
+    }
+
+    @Override
+    public Iterable<Document> scanTenant(String tenantId, UUID after) {
+        return memory.scanTenant(tenantId, after);
+    }
+
+    @Override
+    public Iterable<Document> scanCreator(String tenantId, String createdBy, UUID after) {
+        return memory.scanCreator(tenantId, createdBy, after);
+    }
+
+    @Override
+    public Iterable<Document> scanCreated(String tenantId, long from, long to, boolean newestFirst, UUID after) {
+        return memory.scanCreated(tenantId, from, to, newestFirst, after);
+    }
+
+    @Override
+    public boolean writesBlock() {
+        // Every write waits for its group commit
+        return true;
+    }
+
+    @Override
+    public boolean readsBlock() {
+        return memory.readsBlock();
+    }
+
+    @Override
+    public List<SearchHit> search(String tenantId, String query, int limit) {
+        return memory.search(tenantId, query, limit);
+    }
+
+    @Override
+    public int countByTenant(String tenantId) {
+        return memory.countByTenant(tenantId);
+    }
+
+    @Override
+    public long tenantVersion(String tenantId) {
+        return memory.tenantVersion(tenantId);
+    }
+
+    @Override
+    public Set<String> tenants() {
+        return memory.tenants();
+    }
+
+    @Override
+    public Collection<Document> values() {
+        return memory.values();
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    /**
+     * Write a compacted snapshot of the current state and drop the log segments it covers.
+     */
+    public synchronized void snapshot() throws IOException {
+        // Everything enqueued after the roll lands in the new segment and is replayed on top of the
+        // snapshot; everything before it is applied in memory once the barrier is acquired
+        long nextSegment;
+        Lock barrier = snapshotBarrier.writeLock();
+        barrier.lock();
+        try {
+            nextSegment = wal.roll();
+        } finally {
+            barrier.unlock();
+        }
+        appendsSinceSnapshot.set(0);
+        Snapshots.write(directory, nextSegment, memory.values());
+    }
+
+    private void snapshotIfChanged() {
+        if (appendsSinceSnapshot.get() == 0) return;
+        try {
+            long started = System.nanoTime();
+            snapshot();
+            LOG.debugf("Snapshot of %d documents took %d ms", memory.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Document store snapshot failed", e);
+        }
+    }
+
+    /**
+     * Append {@code record}, wait for its group commit and only then apply the change in memory.
+     * Held as a reader of the snapshot barrier throughout, so a snapshot taken after the roll
+     * contains every change logged to the segments it replaces.
+     */
+    private <T> T logThenApply(ByteBuffer record, Supplier<T> apply) {
+        Lock inFlight = snapshotBarrier.readLock();
+        inFlight.lock();
+        try {
+            CompletableFuture<Long> logged = wal.append(record);
+            appendsSinceSnapshot.incrementAndGet();
+            try {
+                logged.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Failed to persist document mutation", e.getCause());
+            }
+            return apply.get();
+        } finally {
+            inFlight.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(UUID id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static int stripeIndex(UUID id) {
+        return (id.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdownNow();
+        wal.close();
+        memory.close();
+    }
+}
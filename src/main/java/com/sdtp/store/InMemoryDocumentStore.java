@@ -0,0 +1,253 @@
+package com.sdtp.store;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.SearchHit;
+import com.sdtp.store.content.ContentStore;
+import com.sdtp.store.search.InvertedIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Default heap-only engine: documents are partitioned by tenant, and a routing index maps
+ * each id to its partition so lookups by id never scan. Tenant and creator lookups are served
+ * from the partition indexes in O(result size), and each partition keeps its own full-text
+ * index. Bodies above a size threshold can be kept off-heap in a {@link ContentStore}, leaving
+ * only a handle in the {@link Document}.
+ */
+public class InMemoryDocumentStore implements DocumentStore, Closeable {
+
+    private final ConcurrentHashMap<String, TenantPartition> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, TenantPartition> routing = new ConcurrentHashMap<>();
+    private final ContentStore contentStore;
+    private final int offHeapThreshold;
+
+    public InMemoryDocumentStore() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param contentStore     off-heap storage for bodies, or {@code null} to keep every body on-heap
+     * @param offHeapThreshold bodies of at least this many characters are moved to {@code contentStore}
+     */
+    public InMemoryDocumentStore(ContentStore contentStore, int offHeapThreshold) {
+        this.contentStore = contentStore;
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    @Override
+    public Document get(UUID id) {
+        TenantPartition partition = routing.get(id);
+        return partition == null ? null : partition.documents.get(id);
+    }
+
+    @Override
+    public void put(Document document, Consumer<Document> applied) {
+        InvertedIndex.Terms terms = analyze(document);
+        offload(document);
+        TenantPartition partition = partitions.computeIfAbsent(document.getTenantId(), TenantPartition::new);
+        // Store before routing so a document is never visible by id without its body, and route
+        // before anything that follows the write can look it up
+        TenantPartition[] previousPartition = new TenantPartition[1];
+        Document previous = partition.put(document, terms, stored -> {
+            previousPartition[0] = routing.put(stored.getId(), partition);
+            applied.accept(stored);
+        });
+        if (previousPartition[0] != null && previousPartition[0] != partition) {
+            previous = previousPartition[0].remove(document.getId());
+        }
+        if (previous != null && previous.getContentHandle() != document.getContentHandle()) {
+            release(previous);
+        }
+    }
+
+    @Override
+    public Document remove(UUID id) {
+        TenantPartition partition = routing.remove(id);
+        Document removed = partition == null ? null : partition.remove(id);
+        if (removed != null) {
+            release(removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean replace(Document expected, Document replacement, Consumer<Document> applied) {
+        if (!expected.getId().equals(replacement.getId()) || !expected.getTenantId().equals(replacement.getTenantId())) {
+            throw new IllegalArgumentException("A replacement must keep the document id and tenant");
+        }
+        TenantPartition partition = routing.get(expected.getId());
+        if (partition == null) return false;
+
+        InvertedIndex.Terms terms = analyze(replacement);
+        offload(replacement);
+        boolean replaced = partition.replace(expected, replacement, terms, applied);
+        // A replacement may share the body of the document it replaces
+        if (expected.getContentHandle() != replacement.getContentHandle()) {
+            release(replaced ? expected : replacement);
+        }
+        return replaced;
+    }
+
+    @Override
+    public boolean remove(Document expected, Consumer<Document> applied) {
+        TenantPartition partition = routing.get(expected.getId());
+        if (partition == null || !partition.remove(expected, applied)) return false;
+        routing.remove(expected.getId(), partition);
+        release(expected);
+        return true;
+    }
+
+    @Override
+    public Collection<Document> findByTenant(String tenantId) {
+        TenantPartition partition = partitions.get(tenantId);
+        return partition == null ? List.of() : Collections.unmodifiableCollection(partition.documents.values());
+    }
+
+    @Override
+    public Collection<Document> findByCreator(String tenantId, String createdBy) {
+        TenantPartition partition = partitions.get(tenantId);
+        return partition == null ? List.of() : partition.byCreator(createdBy);
+    }
+
+    @Override
+    public Iterable<Document> scanTenant(String tenantId, UUID after) {
+        return () -> {
+            TenantPartition partition = partitions.get(tenantId);
+            return partition == null ? Collections.emptyIterator() : partition.scan(after);
+        };
+    }
+
+    @Override
+    public Iterable<Document> scanCreator(String tenantId, String createdBy, UUID after) {
+        return () -> {
+            TenantPartition partition = partitions.get(tenantId);
+            return partition == null ? Collections.emptyIterator() : partition.scanCreator(createdBy, after);
+        };
+    }
+
+    @Override
+    public Iterable<Document> scanCreated(String tenantId, long from, long to, boolean newestFirst, UUID after) {
+        return () -> {
+            TenantPartition partition = partitions.get(tenantId);
+            return partition == null ? Collections.emptyIterator() : partition.scanCreated(from, to, newestFirst, after);
+        };
+    }
+
+    @Override
+    public List<SearchHit> search(String tenantId, String query, int limit) {
+        TenantPartition partition = partitions.get(tenantId);
+        return partition == null ? List.of() : partition.search(query, limit);
+    }
+
+    @Override
+    public int countByTenant(String tenantId) {
+        TenantPartition partition = partitions.get(tenantId);
+        return partition == null ? 0 : partition.size.get();
+    }
+
+    @Override
+    public long tenantVersion(String tenantId) {
+        TenantPartition partition = partitions.get(tenantId);
+        return partition == null ? 0 : partition.version.get();
+    }
+
+    @Override
+    public Set<String> tenants() {
+        return Collections.unmodifiableSet(partitions.keySet());
+    }
+
+    @Override
+    public Collection<Document> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Document> iterator() {
+                return new PartitionIterator(partitions.values().iterator());
+            }
+
+            @Override
+            public int size() {
+                return InMemoryDocumentStore.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return routing.size();
+    }
+
+    @Override
+    public boolean writesBlock() {
+        return contentStore != null && contentStore.blocks();
+    }
+
+    @Override
+    public boolean readsBlock() {
+        return contentStore != null && contentStore.blocks();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (contentStore instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Tokenize for the full-text index while the body is still a {@code String}; once offloaded,
+     * reading it back may mean inflating it.
+     */
+    private static InvertedIndex.Terms analyze(Document document) {
+        return InvertedIndex.analyze(document.getTitle(), document.getContent());
+    }
+
+    private void offload(Document document) {
+        if (contentStore == null || document.getContentHandle() != null) return;
+        String content = document.getContent();
+        if (content != null && content.length() >= offHeapThreshold) {
+            document.setContentHandle(contentStore.store(content));
+        }
+    }
+
+    private void release(Document document) {
+        if (contentStore != null && document.getContentHandle() != null) {
+            contentStore.release(document.getContentHandle());
+        }
+    }
+
+    private static final class PartitionIterator implements Iterator<Document> {
+
+        private final Iterator<TenantPartition> partitions;
+        private Iterator<Document> current = Collections.emptyIterator();
+
+        PartitionIterator(Iterator<TenantPartition> partitions) {
+            this.partitions = partitions;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (!partitions.hasNext()) return false;
+                current = partitions.next().documents.values().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sdtp.store;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.wal.LogVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stores the documents of a snapshot on several threads while the snapshot is still being decoded,
+ * since indexing them costs more than reading them. A snapshot holds each document once and no
+ * removals, so the order documents land in does not matter; {@link #close} returns once all of
+ * them are stored, before the order-sensitive log is replayed on top.
+ */
+final class SnapshotLoader implements LogVisitor, AutoCloseable {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final InMemoryDocumentStore memory;
+    private final ExecutorService workers;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private List<Document> batch = new ArrayList<>(BATCH_SIZE);
+
+    /**
+     * @param threads indexing threads; with one, documents are stored on the decoding thread
+     */
+    SnapshotLoader(InMemoryDocumentStore memory, int threads) {
+        this.memory = memory;
+        this.workers = threads <= 1 ? null : Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "snapshot-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void put(Document document) {
+        if (workers == null) {
+            memory.put(document);
+            return;
+        }
+        batch.add(document);
+        if (batch.size() == BATCH_SIZE) {
+            submit();
+        }
+    }
+
+    @Override
+    public void remove(UUID id) {
+        // Snapshots do not hold removals; should one appear, it still applies after what came before
+        awaitStored();
+        memory.remove(id);
+    }
+
+    @Override
+    public void close() {
+        try {
+            awaitStored();
+        } finally {
+            if (workers != null) workers.shutdownNow();
+        }
+    }
+
+    private void submit() {
+        List<Document> documents = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        pending.add(workers.submit(() -> {
+            for (Document document : documents) {
+                memory.put(document);
+            }
+        }));
+    }
+
+    private void awaitStored() {
+        if (workers == null) return;
+        if (!batch.isEmpty()) {
+            submit();
+        }
+        try {
+            for (Future<?> stored : pending) {
+                stored.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot load snapshot", e.getCause());
+        }
+        pending.clear();
+    }
+}
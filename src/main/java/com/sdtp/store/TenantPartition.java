@@ -0,0 +1,317 @@
+package com.sdtp.store;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.SearchHit;
+import com.sdtp.store.search.InvertedIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * All documents of a single tenant, ordered by id. Reads are lock-free. Writes take the partition's
+ * write lock only around the map update, its index append and the caller's {@code applied}
+ * callback, so the full-text index and the callbacks see a tenant's writes in the same order as
+ * the map; tokenizing happens before the lock.
+ * The partition itself is the tenant index; {@link #byCreator} is the tenant+creator index,
+ * {@link #byCreated} orders the tenant by creation time and {@link #fullText} is the tenant's
+ * full-text index.
+ */
+final class TenantPartition {
+
+    final String tenantId;
+    final ConcurrentSkipListMap<UUID, Document> documents = new ConcurrentSkipListMap<>();
+    final ConcurrentHashMap<String, NavigableSet<UUID>> byCreator = new ConcurrentHashMap<>();
+    // Time-ordered ids sort by when the id was generated, not by the creation time a document carries
+    final ConcurrentSkipListSet<CreatedKey> byCreated = new ConcurrentSkipListSet<>();
+    // ConcurrentSkipListMap.size() walks the whole map
+    final AtomicInteger size = new AtomicInteger();
+    // Bumped after every applied write, so a reader that sees a value also sees the write behind it
+    final AtomicLong version = new AtomicLong();
+    final InvertedIndex fullText = new InvertedIndex();
+    private final ReentrantLock writes = new ReentrantLock();
+
+    TenantPartition(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    /**
+     * @param terms the document's {@link InvertedIndex#analyze analysis}, taken before its body was
+     *              offloaded or compressed
+     * @param applied run with {@code document} under the write lock once it is stored
+     * @return the document previously stored under the same id, or {@code null}
+     */
+    Document put(Document document, InvertedIndex.Terms terms, Consumer<Document> applied) {
+        UUID id = document.getId();
+        // Index first so a concurrent reader resolving ids can at worst see an id whose body is not there yet
+        indexCreator(document);
+        byCreated.add(new CreatedKey(document.getCreatedAt(), id));
+        Document previous;
+        writes.lock();
+        try {
+            previous = documents.put(id, document);
+            fullText.index(id, terms);
+            applied.accept(document);
+        } finally {
+            writes.unlock();
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        } else {
+            unindexCreatorIfChanged(previous, document);
+            unindexCreatedIfChanged(previous, document);
+        }
+        version.incrementAndGet();
+        return previous;
+    }
+
+    /**
+     * Store {@code replacement} only if {@code expected} is still the stored instance of its id,
+     * then run {@code applied} with it under the write lock.
+     */
+    boolean replace(Document expected, Document replacement, InvertedIndex.Terms terms, Consumer<Document> applied) {
+        UUID id = expected.getId();
+        indexCreator(replacement);
+        byCreated.add(new CreatedKey(replacement.getCreatedAt(), id));
+        boolean replaced;
+        writes.lock();
+        try {
+            // Document has identity equality, so this compares instances
+            replaced = documents.replace(id, expected, replacement);
+            if (replaced) {
+                fullText.index(id, terms);
+                applied.accept(replacement);
+            }
+        } finally {
+            writes.unlock();
+        }
+        if (replaced) {
+            unindexCreatorIfChanged(expected, replacement);
+            unindexCreatedIfChanged(expected, replacement);
+            version.incrementAndGet();
+        } else {
+            Document current = documents.get(id);
+            unindexCreatorIfChanged(replacement, current);
+            unindexCreatedIfChanged(replacement, current);
+        }
+        return replaced;
+    }
+
+    Document remove(UUID id) {
+        Document removed;
+        writes.lock();
+        try {
+            removed = documents.remove(id);
+            if (removed != null) fullText.remove(id);
+        } finally {
+            writes.unlock();
+        }
+        if (removed != null) {
+            removed(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove {@code expected} only if it is still the stored instance of its id, then run
+     * {@code applied} with it under the write lock.
+     */
+    boolean remove(Document expected, Consumer<Document> applied) {
+        UUID id = expected.getId();
+        boolean removed;
+        writes.lock();
+        try {
+            removed = documents.remove(id, expected);
+            if (removed) {
+                fullText.remove(id);
+                applied.accept(expected);
+            }
+        } finally {
+            writes.unlock();
+        }
+        if (removed) {
+            removed(expected);
+        }
+        return removed;
+    }
+
+    Collection<Document> byCreator(String createdBy) {
+        Set<UUID> ids = byCreator.get(createdBy);
+        if (ids == null) return List.of();
+
+        List<Document> result = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Document doc = documents.get(id);
+            if (doc != null) result.add(doc);
+        }
+        return result;
+    }
+
+    /**
+     * Best full-text matches first. A document removed while the query ran is left out.
+     */
+    List<SearchHit> search(String query, int limit) {
+        List<InvertedIndex.Hit> hits = fullText.search(query, limit);
+        List<SearchHit> result = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            Document doc = documents.get(hit.id());
+            if (doc != null) result.add(new SearchHit(doc, hit.score()));
+        }
+        return result;
+    }
+
+    /**
+     * Documents in id order, strictly after {@code after} when it is non-null.
+     */
+    Iterator<Document> scan(UUID after) {
+        var view = after == null ? documents : documents.tailMap(after, false);
+        return view.values().iterator();
+    }
+
+    /**
+     * Documents of one creator in id order, strictly after {@code after} when it is non-null.
+     */
+    Iterator<Document> scanCreator(String createdBy, UUID after) {
+        NavigableSet<UUID> ids = byCreator.get(createdBy);
+        if (ids == null) return Collections.emptyIterator();
+
+        return resolve((after == null ? ids : ids.tailSet(after, false)).iterator(), id -> id);
+    }
+
+    /**
+     * Documents created in {@code [from, to)}, oldest or newest first. A non-null {@code after}
+     * resumes past that document, created at {@code from} oldest first or at {@code to - 1} newest first.
+     */
+    Iterator<Document> scanCreated(long from, long to, boolean newestFirst, UUID after) {
+        if (from >= to) return Collections.emptyIterator();
+        NavigableSet<CreatedKey> range;
+        if (newestFirst) {
+            range = after == null
+                    ? byCreated.subSet(CreatedKey.first(from), true, CreatedKey.first(to), false)
+                    : byCreated.subSet(CreatedKey.first(from), true, new CreatedKey(to - 1, after), false);
+            range = range.descendingSet();
+        } else {
+            range = after == null
+                    ? byCreated.subSet(CreatedKey.first(from), true, CreatedKey.first(to), false)
+                    : byCreated.subSet(new CreatedKey(from, after), false, CreatedKey.first(to), false);
+        }
+        return resolve(range.iterator(), key -> key.id);
+    }
+
+    /**
+     * The documents behind index entries, skipping entries whose document is gone.
+     */
+    private <K> Iterator<Document> resolve(Iterator<K> keys, Function<K, UUID> idOf) {
+        return new Iterator<>() {
+            private Document next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && keys.hasNext()) {
+                    next = documents.get(idOf.apply(keys.next()));
+                }
+                return next != null;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Document result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private void indexCreator(Document document) {
+        if (document.getCreatedBy() != null) {
+            byCreator.computeIfAbsent(document.getCreatedBy(), k -> new ConcurrentSkipListSet<>()).add(document.getId());
+        }
+    }
+
+    /**
+     * Drop the creator entry {@code stale} added unless {@code current} still needs it.
+     */
+    private void unindexCreatorIfChanged(Document stale, Document current) {
+        if (stale.getCreatedBy() != null
+                && (current == null || !stale.getCreatedBy().equals(current.getCreatedBy()))) {
+            unindexCreator(stale.getCreatedBy(), stale.getId());
+        }
+    }
+
+    /**
+     * Drop the creation entry {@code stale} added unless {@code current} has the same one.
+     */
+    private void unindexCreatedIfChanged(Document stale, Document current) {
+        if (current == null || stale.getCreatedAt() != current.getCreatedAt()) {
+            byCreated.remove(new CreatedKey(stale.getCreatedAt(), stale.getId()));
+        }
+    }
+
+    private void removed(Document document) {
+        size.decrementAndGet();
+        version.incrementAndGet();
+        byCreated.remove(new CreatedKey(document.getCreatedAt(), document.getId()));
+        if (document.getCreatedBy() != null) {
+            unindexCreator(document.getCreatedBy(), document.getId());
+        }
+    }
+
+    private void unindexCreator(String createdBy, UUID id) {
+        Set<UUID> ids = byCreator.get(createdBy);
+        if (ids != null) ids.remove(id);
+    }
+
+    /**
+     * Position in {@link #byCreated}: creation time, then id to order documents created in the same millisecond.
+     */
+    static final class CreatedKey implements Comparable<CreatedKey> {
+
+        private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+        final long createdAt;
+        final UUID id;
+
+        CreatedKey(long createdAt, UUID id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        /**
+         * Sorts before every document created at {@code createdAt}.
+         */
+        static CreatedKey first(long createdAt) {
+            return new CreatedKey(createdAt, MIN_ID);
+        }
+
+        @Override
+        public int compareTo(CreatedKey other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CreatedKey other && createdAt == other.createdAt && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(createdAt) * 31 + id.hashCode();
+        }
+    }
+}
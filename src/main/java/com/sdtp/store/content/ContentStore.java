@@ -0,0 +1,34 @@
+package com.sdtp.store.content;
+
+import com.sdtp.model.ContentHandle;
+
+/**
+ * Storage for document bodies outside their {@code String}s: off-heap slabs, compressed, or both.
+ */
+public interface ContentStore {
+
+    /**
+     * Copy a body out of the heap and return the handle that now owns it.
+     */
+    ContentHandle store(String content);
+
+    /**
+     * Copy already encoded bytes (UTF-8, or compressed by a wrapping store) and return the handle
+     * that now owns them; its {@link ContentHandle#bytes()} are exactly these bytes.
+     */
+    ContentHandle store(byte[] bytes);
+
+    /**
+     * Signal that no stored document references the handle any more. Readers that still hold
+     * the handle keep a valid view; the space is reclaimed once its slab is unreferenced.
+     */
+    void release(ContentHandle handle);
+
+    /**
+     * Whether storing a body or reading one back may wait on disk I/O, a file read or a page
+     * fault, so that neither should run on an event-loop thread.
+     */
+    default boolean blocks() {
+        return false;
+    }
+}
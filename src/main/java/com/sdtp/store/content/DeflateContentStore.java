@@ -0,0 +1,208 @@
+package com.sdtp.store.content;
+
+import com.sdtp.model.ContentHandle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps bodies as deflate-compressed UTF-8 (the zlib format HTTP calls {@code deflate}), on the
+ * heap or in a delegate store such as {@link SlabContentStore}. Nothing is inflated until a reader
+ * asks for the body, and REST hands the compressed bytes unchanged to clients that accept
+ * {@code deflate}.
+ * <p>
+ * A body that deflate does not shrink by at least an eighth is kept as plain UTF-8 instead; the
+ * attempt stops as soon as the output passes that size. Deflaters and inflaters are reused per
+ * thread, since setting one up costs more than compressing a small body.
+ */
+public final class DeflateContentStore implements ContentStore, Closeable {
+
+    public static final String ENCODING = "deflate";
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+
+    private final ContentStore delegate;
+    private final ThreadLocal<Deflater> deflaters;
+    private final LongAdder bodyBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+
+    /**
+     * @param delegate where the stored bytes go, or {@code null} to keep them on the heap
+     * @param level    deflate level, 1 (fastest) to 9 (smallest)
+     */
+    public DeflateContentStore(ContentStore delegate, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between 1 and 9");
+        }
+        this.delegate = delegate;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    @Override
+    public ContentHandle store(String content) {
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = deflate(utf8);
+        ContentHandle handle;
+        if (compressed == null) {
+            handle = delegate == null ? new HeapHandle(utf8) : delegate.store(utf8);
+        } else {
+            ContentHandle stored = delegate == null ? new HeapHandle(compressed) : delegate.store(compressed);
+            handle = new DeflatedHandle(stored, utf8.length);
+        }
+        bodyBytes.add(utf8.length);
+        storedBytes.add(compressed == null ? utf8.length : compressed.length);
+        return handle;
+    }
+
+    /**
+     * Bytes that are already encoded are stored as they are.
+     */
+    @Override
+    public ContentHandle store(byte[] bytes) {
+        bodyBytes.add(bytes.length);
+        storedBytes.add(bytes.length);
+        return delegate == null ? new HeapHandle(bytes.clone()) : delegate.store(bytes);
+    }
+
+    @Override
+    public void release(ContentHandle handle) {
+        ContentHandle stored = handle instanceof DeflatedHandle deflated ? deflated.stored : handle;
+        bodyBytes.add(-handle.length());
+        storedBytes.add(-stored.length());
+        if (delegate != null) {
+            delegate.release(stored);
+        }
+    }
+
+    @Override
+    public boolean blocks() {
+        return delegate != null && delegate.blocks();
+    }
+
+    /**
+     * Uncompressed UTF-8 size of the bodies currently held.
+     */
+    public long bodyBytes() {
+        return bodyBytes.sum();
+    }
+
+    /**
+     * What those bodies take up as stored.
+     */
+    public long storedBytes() {
+        return storedBytes.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * @return the compressed bytes, or {@code null} when they would not be at least 1/8 smaller
+     */
+    private byte[] deflate(byte[] utf8) {
+        int limit = utf8.length - utf8.length / 8;
+        byte[] out = new byte[limit];
+        Deflater deflater = deflaters.get();
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == limit) return null;
+                length += deflater.deflate(out, length, limit - length);
+            }
+            return length == limit ? out : Arrays.copyOf(out, length);
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int length) {
+        byte[] out = new byte[length];
+        Inflater inflater = INFLATERS.get();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(out, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Compressed body is truncated");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed body is corrupt", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    private static final class HeapHandle implements ContentHandle {
+        final byte[] bytes;
+
+        HeapHandle(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public ByteBuffer bytes() {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+    }
+
+    private static final class DeflatedHandle implements ContentHandle {
+        final ContentHandle stored;
+        final int length;
+
+        DeflatedHandle(ContentHandle stored, int length) {
+            this.stored = stored;
+            this.length = length;
+        }
+
+        /**
+         * Inflated on every call; the result is not kept, so an idle body stays compressed.
+         */
+        @Override
+        public ByteBuffer bytes() {
+            return ByteBuffer.wrap(inflate(stored.bytes(), length)).asReadOnlyBuffer();
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public String asString() {
+            return new String(inflate(stored.bytes(), length), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String encoding() {
+            return ENCODING;
+        }
+
+        @Override
+        public ByteBuffer encodedBytes() {
+            return stored.bytes();
+        }
+    }
+}
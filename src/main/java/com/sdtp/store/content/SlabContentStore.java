@@ -0,0 +1,228 @@
+package com.sdtp.store.content;
+
+import com.sdtp.model.ContentHandle;
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Stores bodies in large off-heap slabs with lock-free bump allocation. Slabs are either direct
+ * {@link ByteBuffer}s or, when a directory is given, memory-mapped segment files that the OS can
+ * page out under pressure.
+ * <p>
+ * Space is reclaimed per slab: once a full slab has had every body released it is dropped and,
+ * for mapped slabs, its file deleted. Outstanding handles keep their slab's buffer reachable, so a
+ * reader never observes freed memory.
+ */
+public final class SlabContentStore implements ContentStore, Closeable {
+
+    private static final Logger LOG = Logger.getLogger(SlabContentStore.class);
+    private static final String SLAB_SUFFIX = ".slab";
+
+    private final Path directory;
+    private final int slabBytes;
+    private final AtomicInteger nextSlabId = new AtomicInteger();
+    private final AtomicReference<Slab> current = new AtomicReference<>();
+    private final Set<Slab> slabs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory where to map slab files, or {@code null} for direct buffers
+     */
+    public SlabContentStore(Path directory, int slabBytes) {
+        this.directory = directory;
+        this.slabBytes = slabBytes;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                // Slabs are scratch space; durable copies of bodies live in the document log
+                try (Stream<Path> stale = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) stale::iterator) {
+                        if (file.toString().endsWith(SLAB_SUFFIX)) Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot prepare content directory " + directory, e);
+            }
+        }
+        current.set(newSlab(slabBytes));
+    }
+
+    /**
+     * Mapped slabs fault their pages in from the slab files.
+     */
+    @Override
+    public boolean blocks() {
+        return directory != null;
+    }
+
+    @Override
+    public ContentHandle store(String content) {
+        return store(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ContentHandle store(byte[] bytes) {
+        if (bytes.length > slabBytes / 4) {
+            // Large bodies get a dedicated slab rather than fragmenting the shared one
+            Slab slab = newSlab(bytes.length);
+            slab.allocate(bytes.length);
+            slab.seal();
+            return slab.write(0, bytes);
+        }
+
+        while (true) {
+            Slab slab = current.get();
+            int offset = slab.allocate(bytes.length);
+            if (offset >= 0) {
+                return slab.write(offset, bytes);
+            }
+            Slab next = newSlab(slabBytes);
+            if (current.compareAndSet(slab, next)) {
+                slab.seal();
+            } else {
+                next.dispose();
+            }
+        }
+    }
+
+    @Override
+    public void release(ContentHandle handle) {
+        if (handle instanceof SlabHandle slabHandle) {
+            slabHandle.slab.free(slabHandle.length);
+        }
+    }
+
+    /**
+     * Off-heap bytes currently held by live bodies.
+     */
+    public long liveBytes() {
+        long live = 0;
+        for (Slab slab : slabs) live += slab.live.get();
+        return live;
+    }
+
+    public int slabCount() {
+        return slabs.size();
+    }
+
+    @Override
+    public void close() {
+        for (Slab slab : slabs) {
+            slab.dispose();
+        }
+    }
+
+    private Slab newSlab(int capacity) {
+        if (directory == null) {
+            return register(new Slab(ByteBuffer.allocateDirect(capacity), null));
+        }
+        Path file = directory.resolve(String.format("content-%010d%s", nextSlabId.getAndIncrement(), SLAB_SUFFIX));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return register(new Slab(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map content slab " + file, e);
+        }
+    }
+
+    private Slab register(Slab slab) {
+        slabs.add(slab);
+        return slab;
+    }
+
+    private final class Slab {
+        final ByteBuffer buffer;
+        final Path file;
+        final AtomicInteger top = new AtomicInteger();
+        final AtomicLong live = new AtomicLong();
+        volatile boolean sealed;
+
+        Slab(ByteBuffer buffer, Path file) {
+            this.buffer = buffer;
+            this.file = file;
+        }
+
+        /**
+         * @return the offset of the reserved range, or -1 if the slab is full
+         */
+        int allocate(int length) {
+            while (true) {
+                int offset = top.get();
+                if (offset + length > buffer.capacity()) return -1;
+                if (top.compareAndSet(offset, offset + length)) {
+                    live.addAndGet(length);
+                    return offset;
+                }
+            }
+        }
+
+        SlabHandle write(int offset, byte[] bytes) {
+            buffer.put(offset, bytes);
+            return new SlabHandle(this, offset, bytes.length);
+        }
+
+        void seal() {
+            sealed = true;
+            maybeDispose();
+        }
+
+        void free(int length) {
+            live.addAndGet(-length);
+            maybeDispose();
+        }
+
+        private void maybeDispose() {
+            if (sealed && live.get() == 0 && slabs.remove(this)) {
+                dispose();
+            }
+        }
+
+        void dispose() {
+            slabs.remove(this);
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOG.warnf(e, "Cannot delete content slab %s", file);
+                }
+            }
+        }
+    }
+
+    private static final class SlabHandle implements ContentHandle {
+        final Slab slab;
+        final int offset;
+        final int length;
+
+        SlabHandle(Slab slab, int offset, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public ByteBuffer bytes() {
+            return slab.buffer.slice(offset, length).asReadOnlyBuffer();
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.sdtp.store.content;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sdtp.model.ContentHandle;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every body in append-only segment files on local disk and only the hot ones on the heap.
+ * The heap copies live in a cache bounded by their total size, whose W-TinyLFU policy admits a
+ * body by how often it was read recently, so a scan over cold documents does not flush the working
+ * set. A body that was evicted is read back from its segment, and cached again, the next time it is
+ * asked for.
+ * <p>
+ * Bodies are written to their segment as they are stored, so eviction only drops the heap copy.
+ * Segments are allocated and reclaimed like {@link SlabContentStore} slabs: once a full segment
+ * has had every body released its file is deleted. Outstanding handles keep the segment's file open,
+ * so a reader never observes a deleted body.
+ */
+public final class TieredContentStore implements ContentStore, MeterBinder, Closeable {
+
+    private static final Logger LOG = Logger.getLogger(TieredContentStore.class);
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Cache<TieredHandle, byte[]> hot;
+    private final AtomicInteger nextSegmentId = new AtomicInteger();
+    private final AtomicReference<Segment> current = new AtomicReference<>();
+    private final Set<Segment> segments = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory    where segment files go
+     * @param segmentBytes size of a segment file
+     * @param hotBytes     upper bound on the bodies cached on the heap
+     */
+    public TieredContentStore(Path directory, long segmentBytes, long hotBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.hot = Caffeine.newBuilder()
+                .maximumWeight(hotBytes)
+                .weigher((TieredHandle handle, byte[] body) -> body.length)
+                .recordStats()
+                // Evict on the storing thread, so a burst of writes cannot outrun the bound
+                .executor(Runnable::run)
+                .build();
+        try {
+            Files.createDirectories(directory);
+            // Segments are scratch space; durable copies of bodies live in the document log
+            try (Stream<Path> stale = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) stale::iterator) {
+                    if (file.toString().endsWith(SEGMENT_SUFFIX)) Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare content directory " + directory, e);
+        }
+        current.set(newSegment(segmentBytes));
+    }
+
+    @Override
+    public ContentHandle store(String content) {
+        return store(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ContentHandle store(byte[] bytes) {
+        TieredHandle handle;
+        if (bytes.length > segmentBytes / 4) {
+            // Large bodies get a dedicated segment rather than fragmenting the shared one
+            Segment segment = newSegment(bytes.length);
+            segment.allocate(bytes.length);
+            segment.seal();
+            handle = segment.write(0, bytes);
+        } else {
+            while (true) {
+                Segment segment = current.get();
+                long offset = segment.allocate(bytes.length);
+                if (offset >= 0) {
+                    handle = segment.write(offset, bytes);
+                    break;
+                }
+                Segment next = newSegment(segmentBytes);
+                if (current.compareAndSet(segment, next)) {
+                    segment.seal();
+                } else {
+                    next.dispose();
+                }
+            }
+        }
+        hot.put(handle, bytes.clone());
+        return handle;
+    }
+
+    @Override
+    public void release(ContentHandle handle) {
+        if (handle instanceof TieredHandle tiered) {
+            // Flag first, so a reader still holding the handle cannot cache the body again
+            tiered.released = true;
+            hot.invalidate(tiered);
+            tiered.segment.free(tiered.length);
+        }
+    }
+
+    /**
+     * Every body is written to a segment file, and a cold one is read back from it.
+     */
+    @Override
+    public boolean blocks() {
+        return true;
+    }
+
+    /**
+     * Bytes of live bodies on disk, hot or not.
+     */
+    public long liveBytes() {
+        long live = 0;
+        for (Segment segment : segments) live += segment.live.get();
+        return live;
+    }
+
+    /**
+     * Bytes of bodies currently cached on the heap.
+     */
+    public long hotBytes() {
+        return hot.policy().eviction().orElseThrow().weightedSize().orElse(0);
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Hit ratio and evictions of the heap cache as {@code cache.*} meters named
+     * {@code documents.bodies}, plus the bytes held on the heap and on disk.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, hot, "documents.bodies");
+        Gauge.builder("documents.bodies.hot.bytes", this, TieredContentStore::hotBytes)
+                .description("Bytes of document bodies cached on the heap")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("documents.bodies.stored.bytes", this, TieredContentStore::liveBytes)
+                .description("Bytes of live document bodies in segment files")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        hot.invalidateAll();
+        for (Segment segment : segments) {
+            segment.dispose();
+            new ChannelCloser(segment.channel).run();
+        }
+    }
+
+    private Segment newSegment(long capacity) {
+        Path file = directory.resolve(String.format("content-%010d%s", nextSegmentId.getAndIncrement(), SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(channel, file, capacity);
+            CLEANER.register(segment, new ChannelCloser(channel));
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create content segment " + file, e);
+        }
+    }
+
+    private final class Segment {
+        final FileChannel channel;
+        final Path file;
+        final long capacity;
+        final AtomicLong top = new AtomicLong();
+        final AtomicLong live = new AtomicLong();
+        volatile boolean sealed;
+
+        Segment(FileChannel channel, Path file, long capacity) {
+            this.channel = channel;
+            this.file = file;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return the offset of the reserved range, or -1 if the segment is full
+         */
+        long allocate(int length) {
+            while (true) {
+                long offset = top.get();
+                if (offset + length > capacity) return -1;
+                if (top.compareAndSet(offset, offset + length)) {
+                    live.addAndGet(length);
+                    return offset;
+                }
+            }
+        }
+
+        TieredHandle write(long offset, byte[] bytes) {
+            ByteBuffer src = ByteBuffer.wrap(bytes);
+            try {
+                while (src.hasRemaining()) {
+                    channel.write(src, offset + src.position());
+                }
+            } catch (IOException e) {
+                free(bytes.length);
+                throw new UncheckedIOException("Cannot write content segment " + file, e);
+            }
+            return new TieredHandle(this, offset, bytes.length);
+        }
+
+        byte[] read(long offset, int length) {
+            ByteBuffer dst = ByteBuffer.allocate(length);
+            try {
+                while (dst.hasRemaining()) {
+                    if (channel.read(dst, offset + dst.position()) < 0) {
+                        throw new IllegalStateException("Content segment " + file + " is truncated");
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read content segment " + file, e);
+            }
+            return dst.array();
+        }
+
+        void seal() {
+            sealed = true;
+            maybeDispose();
+        }
+
+        void free(int length) {
+            live.addAndGet(-length);
+            maybeDispose();
+        }
+
+        private void maybeDispose() {
+            if (sealed && live.get() == 0 && segments.remove(this)) {
+                dispose();
+            }
+        }
+
+        /**
+         * Deletes the file; the channel stays open for outstanding handles until the segment is
+         * collected.
+         */
+        void dispose() {
+            segments.remove(this);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warnf(e, "Cannot delete content segment %s", file);
+            }
+        }
+    }
+
+    private static final class ChannelCloser implements Runnable {
+        private final FileChannel channel;
+
+        ChannelCloser(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debugf(e, "Cannot close content segment channel");
+            }
+        }
+    }
+
+    // Identity equality: every stored body is its own cache entry
+    private final class TieredHandle implements ContentHandle {
+        final Segment segment;
+        final long offset;
+        final int length;
+        volatile boolean released;
+
+        TieredHandle(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public ByteBuffer bytes() {
+            byte[] body;
+            if (released) {
+                // A released body is not worth heap budget, nor keeping its segment reachable
+                body = hot.getIfPresent(this);
+                if (body == null) body = segment.read(offset, length);
+            } else {
+                body = hot.get(this, h -> segment.read(offset, length));
+                // Released while it was being loaded
+                if (released) hot.invalidate(this);
+            }
+            return ByteBuffer.wrap(body).asReadOnlyBuffer();
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.sdtp.store.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text index over the title and content of one tenant's documents, ranked with BM25.
+ * <p>
+ * Every indexed document gets a dense int ordinal; each term maps to a {@link PostingList} of
+ * ordinals. Replacing or removing a document only clears its ordinal, so writes never rewrite
+ * postings. Once cleared ordinals outnumber live ones, the postings are compacted in one pass.
+ * Document frequencies still count cleared postings until then, which only shifts idf slightly.
+ * <p>
+ * One index per tenant, so a query can only ever reach its own tenant's postings. Searches share
+ * a read lock; writes tokenize outside the lock and hold the write lock only to append.
+ */
+public final class InvertedIndex {
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    /** Each title occurrence counts as this many content occurrences. */
+    static final int TITLE_WEIGHT = 2;
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    // Per ordinal; a null id marks a replaced or removed document
+    private UUID[] ids = new UUID[16];
+    private int[] lengths = new int[16];
+    private int nextOrdinal;
+    private long totalLength;
+
+    /**
+     * Index a document, replacing whatever was indexed under the same id.
+     */
+    public void index(UUID id, String title, String content) {
+        index(id, analyze(title, content));
+    }
+
+    /**
+     * Index terms produced by {@link #analyze}, replacing whatever was indexed under the same id.
+     */
+    public void index(UUID id, Terms terms) {
+        lock.writeLock().lock();
+        try {
+            clear(id);
+            if (terms.frequencies.isEmpty()) return;
+
+            int ordinal = nextOrdinal++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ordinal * 2);
+                lengths = Arrays.copyOf(lengths, ordinal * 2);
+            }
+            ids[ordinal] = id;
+            lengths[ordinal] = terms.length;
+            ordinals.put(id, ordinal);
+            totalLength += terms.length;
+            for (Map.Entry<String, int[]> entry : terms.frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new PostingList()).add(ordinal, entry.getValue()[0]);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tokenize a document without touching the index, so callers can do it outside their own locks.
+     */
+    public static Terms analyze(String title, String content) {
+        Map<String, int[]> frequencies = new HashMap<>();
+        int length = Tokenizer.count(title, TITLE_WEIGHT, frequencies) + Tokenizer.count(content, 1, frequencies);
+        return new Terms(frequencies, length);
+    }
+
+    public void remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            clear(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} documents matching any term of {@code query}, best match first.
+     * Equal scores keep index order.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = Tokenizer.terms(query);
+        if (terms.isEmpty() || limit < 1) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int live = ordinals.size();
+            if (live == 0) return List.of();
+
+            List<PostingList> matched = new ArrayList<>(terms.size());
+            int candidates = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    matched.add(list);
+                    candidates += list.count();
+                }
+            }
+            if (matched.isEmpty()) return List.of();
+
+            float averageLength = (float) totalLength / live;
+            // A document can match several terms, but no more than the live documents can match
+            Scores scores = new Scores(Math.min(candidates, live));
+            for (PostingList list : matched) {
+                int documentFrequency = Math.min(list.count(), live);
+                float idf = (float) Math.log(1 + (live - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                list.forEach((ordinal, frequency) -> {
+                    if (ids[ordinal] == null) return;
+                    float norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                    scores.add(ordinal, idf * frequency * (K1 + 1) / (frequency + norm));
+                });
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed (live) documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void clear(UUID id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            ids[ordinal] = null;
+            totalLength -= lengths[ordinal];
+        }
+    }
+
+    /**
+     * Drop cleared ordinals from every posting list once they make up more than half of them.
+     * Live ordinals are renumbered in order, so every list stays sorted.
+     */
+    private void compactIfSparse() {
+        int cleared = nextOrdinal - ordinals.size();
+        if (cleared < MIN_COMPACTION || cleared <= ordinals.size()) return;
+
+        int[] remap = new int[nextOrdinal];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (ids[ordinal] == null) {
+                remap[ordinal] = -1;
+            } else {
+                remap[ordinal] = live;
+                ids[live] = ids[ordinal];
+                lengths[live] = lengths[ordinal];
+                ordinals.put(ids[live], live);
+                live++;
+            }
+        }
+        Arrays.fill(ids, live, nextOrdinal, null);
+        nextOrdinal = live;
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, live)) * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+
+        for (Iterator<Map.Entry<String, PostingList>> it = postings.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PostingList> entry = it.next();
+            PostingList compacted = entry.getValue().remap(remap);
+            if (compacted == null) {
+                it.remove();
+            } else {
+                entry.setValue(compacted);
+            }
+        }
+    }
+
+    private List<Hit> top(Scores scores, int limit) {
+        // Min-heap of the best hits so far; the weakest (lowest score, then latest ordinal) is on top
+        PriorityQueue<int[]> heap = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int byScore = Float.compare(Float.intBitsToFloat(a[1]), Float.intBitsToFloat(b[1]));
+            return byScore != 0 ? byScore : Integer.compare(b[0], a[0]);
+        });
+        for (int slot = 0; slot < scores.keys.length; slot++) {
+            int ordinal = scores.keys[slot];
+            if (ordinal < 0) continue;
+            heap.add(new int[]{ordinal, Float.floatToIntBits(scores.values[slot])});
+            if (heap.size() > limit) heap.poll();
+        }
+
+        List<Hit> hits = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int[] entry = heap.poll();
+            hits.add(new Hit(ids[entry[0]], Float.intBitsToFloat(entry[1])));
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * Weighted term frequencies of one document.
+     */
+    public static final class Terms {
+
+        private final Map<String, int[]> frequencies;
+        private final int length;
+
+        private Terms(Map<String, int[]> frequencies, int length) {
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A matching document id and its BM25 score.
+     */
+    public static final class Hit {
+
+        private final UUID id;
+        private final float score;
+
+        Hit(UUID id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public UUID id() {
+            return id;
+        }
+
+        public float score() {
+            return score;
+        }
+    }
+
+    /**
+     * Ordinal to accumulated score, open addressing over primitive arrays.
+     */
+    private static final class Scores {
+
+        int[] keys;
+        float[] values;
+        private int size;
+
+        Scores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new float[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int ordinal, float score) {
+            int mask = keys.length - 1;
+            int slot = (ordinal * 0x9E3779B9) >>> 1 & mask;
+            while (keys[slot] >= 0 && keys[slot] != ordinal) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] < 0) {
+                keys[slot] = ordinal;
+                if (++size * 2 > keys.length) {
+                    values[slot] = score;
+                    grow();
+                    return;
+                }
+            }
+            values[slot] += score;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) add(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sdtp.store.search;
+
+import java.util.Arrays;
+
+/**
+ * Postings of one term: ascending document ordinals with their term frequencies, stored as
+ * varint-encoded (ordinal delta, frequency) pairs in one growable byte array. Ordinals are handed
+ * out in increasing order, so appending keeps the list sorted and most deltas fit in one byte.
+ * Not thread-safe; {@link InvertedIndex} guards every list with its lock.
+ */
+final class PostingList {
+
+    interface Visitor {
+        void visit(int ordinal, int frequency);
+    }
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int count;
+    private int last = -1;
+
+    void add(int ordinal, int frequency) {
+        if (ordinal <= last) {
+            throw new IllegalArgumentException("Ordinal " + ordinal + " is not after " + last);
+        }
+        // Two varints take at most 10 bytes
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(length + 10, data.length + (data.length >> 1)));
+        }
+        writeVarint(ordinal - last);
+        writeVarint(frequency);
+        last = ordinal;
+        count++;
+    }
+
+    /**
+     * Number of postings, including ones whose document has since been removed.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Encoded size in bytes.
+     */
+    int bytes() {
+        return length;
+    }
+
+    void forEach(Visitor visitor) {
+        byte[] bytes = data;
+        int position = 0;
+        int ordinal = -1;
+        while (position < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = bytes[position++];
+                frequency |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            ordinal += delta;
+            visitor.visit(ordinal, frequency);
+        }
+    }
+
+    /**
+     * Re-encode the postings whose ordinal maps to a non-negative value in {@code remap}.
+     *
+     * @return the trimmed list, or {@code null} when no posting survives
+     */
+    PostingList remap(int[] remap) {
+        PostingList result = new PostingList();
+        forEach((ordinal, frequency) -> {
+            int mapped = remap[ordinal];
+            if (mapped >= 0) result.add(mapped, frequency);
+        });
+        if (result.count == 0) return null;
+        result.data = Arrays.copyOf(result.data, result.length);
+        return result;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
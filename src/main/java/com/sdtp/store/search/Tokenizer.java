@@ -0,0 +1,63 @@
+package com.sdtp.store.search;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into lower-cased runs of letters and digits. Index and query text go through the
+ * same rules, so a term only has to match exactly.
+ */
+final class Tokenizer {
+
+    /** Longer runs (encoded blobs, hashes) are cut here rather than bloating the dictionary. */
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Add {@code weight} to the frequency of every term occurrence in {@code text}.
+     *
+     * @return the weighted number of occurrences
+     */
+    static int count(String text, int weight, Map<String, int[]> frequencies) {
+        int[] total = {0};
+        forEach(text, term -> {
+            frequencies.computeIfAbsent(term, k -> new int[1])[0] += weight;
+            total[0] += weight;
+        });
+        return total[0];
+    }
+
+    /**
+     * Distinct terms of {@code text} in first-occurrence order.
+     */
+    static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        forEach(text, terms::add);
+        return terms;
+    }
+
+    private static void forEach(String text, Consumer<String> sink) {
+        if (text == null) return;
+
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            } else if (term.length() > 0) {
+                sink.accept(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            sink.accept(term.toString());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.sdtp.store.wal;
+
+/**
+ * When the write-ahead log forces appended records to stable storage.
+ */
+public enum FsyncPolicy {
+    /** fsync every group commit before acknowledging it. */
+    ALWAYS,
+    /** fsync at most once per configured interval; acknowledged writes may be lost on an OS crash. */
+    INTERVAL,
+    /** Leave flushing to the OS; only a clean shutdown forces the log. */
+    NEVER
+}
@@ -0,0 +1,162 @@
+package com.sdtp.store.wal;
+
+import com.sdtp.model.Document;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary framing of log and snapshot records:
+ * {@code [int payloadLength][int crc32c(payload)][byte op][long idMsb][long idLsb][fields...]}.
+ * Strings are written as {@code [int byteLength][utf-8 bytes]}, with length -1 for null. Puts
+ * append {@code [long version][long createdAt][long updatedAt]} after the strings.
+ */
+public final class LogRecords {
+
+    static final int HEADER_BYTES = 8;
+
+    static final byte OP_PUT = 1;
+    static final byte OP_REMOVE = 2;
+
+    private LogRecords() {
+    }
+
+    public static ByteBuffer put(Document document) {
+        byte[] title = utf8(document.getTitle());
+        byte[] content = utf8(document.getContent());
+        byte[] tenantId = utf8(document.getTenantId());
+        byte[] createdBy = utf8(document.getCreatedBy());
+
+        int payload = 1 + 16 + sizeOf(title) + sizeOf(content) + sizeOf(tenantId) + sizeOf(createdBy) + 24;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload);
+        buffer.position(HEADER_BYTES);
+        buffer.put(OP_PUT);
+        putId(buffer, document.getId());
+        putString(buffer, title);
+        putString(buffer, content);
+        putString(buffer, tenantId);
+        putString(buffer, createdBy);
+        buffer.putLong(document.getVersion());
+        buffer.putLong(document.getCreatedAt());
+        buffer.putLong(document.getUpdatedAt());
+        return seal(buffer, payload);
+    }
+
+    /**
+     * Put records of several documents back to back in one buffer; replays exactly like separate appends.
+     */
+    public static ByteBuffer putAll(List<Document> documents) {
+        ByteBuffer[] records = new ByteBuffer[documents.size()];
+        int total = 0;
+        for (int i = 0; i < records.length; i++) {
+            records[i] = put(documents.get(i));
+            total += records[i].remaining();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (ByteBuffer record : records) {
+            buffer.put(record);
+        }
+        return buffer.flip();
+    }
+
+    public static ByteBuffer remove(UUID id) {
+        int payload = 1 + 16;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload);
+        buffer.position(HEADER_BYTES);
+        buffer.put(OP_REMOVE);
+        putId(buffer, id);
+        return seal(buffer, payload);
+    }
+
+    /**
+     * Decode records from {@code buffer} until it is exhausted or a torn/corrupt record is found.
+     *
+     * @return the number of bytes consumed by intact records
+     */
+    static int decode(ByteBuffer buffer, LogVisitor visitor) {
+        int start = buffer.position();
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int recordStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(recordStart);
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(recordStart);
+                break;
+            }
+
+            apply(payload, visitor);
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Length of the record starting at the buffer's position, or -1 if its header is incomplete.
+     */
+    static int peekLength(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) return -1;
+        return HEADER_BYTES + buffer.getInt(buffer.position());
+    }
+
+    private static void apply(ByteBuffer payload, LogVisitor visitor) {
+        byte op = payload.get();
+        UUID id = new UUID(payload.getLong(), payload.getLong());
+        switch (op) {
+            case OP_PUT -> visitor.put(new Document(id,
+                    getString(payload), getString(payload), getString(payload), getString(payload), payload.getLong(),
+                    payload.getLong(), payload.getLong()));
+            case OP_REMOVE -> visitor.remove(id);
+            default -> throw new IllegalStateException("Unknown log record type " + op);
+        }
+    }
+
+    private static ByteBuffer seal(ByteBuffer buffer, int payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, payload);
+        buffer.putInt(0, payload);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    private static void putId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
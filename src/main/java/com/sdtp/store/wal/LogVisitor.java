@@ -0,0 +1,15 @@
+package com.sdtp.store.wal;
+
+import com.sdtp.model.Document;
+
+import java.util.UUID;
+
+/**
+ * Receives decoded mutations while a snapshot or log segment is replayed.
+ */
+public interface LogVisitor {
+
+    void put(Document document);
+
+    void remove(UUID id);
+}
@@ -0,0 +1,46 @@
+package com.sdtp.store.wal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a snapshot or log segment through read-only memory-mapped windows, so startup reads
+ * straight from the page cache without copying through heap buffers.
+ */
+final class MappedLogReader {
+
+    private static final long WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private MappedLogReader() {
+    }
+
+    /**
+     * @return the length of the intact prefix of the file; anything after it is a torn write
+     */
+    static long replay(Path file, LogVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long window = Math.min(WINDOW_BYTES, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+
+                // A single record larger than the window gets a window of its own
+                int next = LogRecords.peekLength(buffer);
+                if (next > window && position + next <= size) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, next);
+                }
+
+                int consumed = LogRecords.decode(buffer, visitor);
+                if (consumed == 0) {
+                    break;
+                }
+                position += consumed;
+            }
+            return position;
+        }
+    }
+}
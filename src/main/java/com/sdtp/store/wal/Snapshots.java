@@ -0,0 +1,135 @@
+package com.sdtp.store.wal;
+
+import com.sdtp.model.Document;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compacted snapshots of the full document set. A snapshot named after segment {@code n} holds
+ * every mutation logged before segment {@code n}, so recovery replays it and then segments
+ * {@code n, n+1, ...} only. Snapshots use the same record framing as log segments.
+ */
+public final class Snapshots {
+
+    private static final Logger LOG = Logger.getLogger(Snapshots.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private Snapshots() {
+    }
+
+    /**
+     * Write a snapshot covering everything before {@code nextSegment}, then delete the snapshots
+     * and log segments it supersedes. Nothing is deleted before the snapshot's name is on disk.
+     */
+    public static void write(Path directory, long nextSegment, Iterable<Document> documents) throws IOException {
+        Path target = path(directory, nextSegment);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            for (Document document : documents) {
+                ByteBuffer record = LogRecords.put(document);
+                out.write(record.array(), 0, record.limit());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        // Readers only ever see complete snapshots
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // A crash must not keep the deletes below but lose the rename
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+
+        for (long snapshot : list(directory)) {
+            if (snapshot < nextSegment) Files.deleteIfExists(path(directory, snapshot));
+        }
+        for (long segment : WriteAheadLog.segments(directory)) {
+            if (segment < nextSegment) Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+        }
+    }
+
+    /**
+     * Rebuild state from the newest snapshot and the log segments written after it.
+     *
+     * @return the segment number the write-ahead log should continue with
+     */
+    public static long recover(Path directory, LogVisitor visitor) throws IOException {
+        return replayLog(directory, replaySnapshot(directory, visitor), visitor);
+    }
+
+    /**
+     * Replay the newest snapshot, the first half of {@link #recover}. A snapshot holds every
+     * document once and no removals.
+     *
+     * @return the first log segment not covered by the snapshot
+     * @throws IOException when the snapshot is corrupt: the segments it replaced are gone, so
+     *                     starting without the rest of it would silently lose documents
+     */
+    public static long replaySnapshot(Path directory, LogVisitor visitor) throws IOException {
+        List<Long> snapshots = list(directory);
+        if (snapshots.isEmpty()) return 0;
+        long from = snapshots.get(snapshots.size() - 1);
+        Path snapshot = path(directory, from);
+        long intact = MappedLogReader.replay(snapshot, visitor);
+        if (intact < Files.size(snapshot)) {
+            throw new IOException("Snapshot " + snapshot + " is corrupt after byte " + intact);
+        }
+        return from;
+    }
+
+    /**
+     * Replay the log segments from segment {@code from} on, in order, the second half of
+     * {@link #recover}.
+     *
+     * @return the segment number the write-ahead log should continue with
+     */
+    public static long replayLog(Path directory, long from, LogVisitor visitor) throws IOException {
+        long next = from;
+        for (long segment : WriteAheadLog.segments(directory)) {
+            if (segment < from) continue;
+            Path path = WriteAheadLog.segmentPath(directory, segment);
+            long intact = MappedLogReader.replay(path, visitor);
+            if (intact < Files.size(path)) {
+                // Torn tail from a crash mid-append or a failed write the log could not take back;
+                // the log moves to a new segment after either, so nothing after it in this one was acknowledged
+                LOG.warnf("Truncating torn write in %s at byte %d", path, intact);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(intact);
+                }
+            }
+            next = segment + 1;
+        }
+        return next;
+    }
+
+    static Path path(Path directory, long nextSegment) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, nextSegment, SNAPSHOT_SUFFIX));
+    }
+
+    private static List<Long> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SNAPSHOT_PREFIX) && n.endsWith(SNAPSHOT_SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(SNAPSHOT_PREFIX.length(), n.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.sdtp.store.wal;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only mutation log split into numbered segment files.
+ * <p>
+ * Callers enqueue encoded records; a single writer thread drains everything queued so far,
+ * writes it with one gathering {@link FileChannel#write(ByteBuffer[])} and forces the group
+ * according to the {@link FsyncPolicy} before completing the callers' futures (group commit).
+ * A new segment is started on every open and whenever the current one exceeds its size budget,
+ * so existing segments are immutable once written. A group that fails to write is cut back off
+ * its segment before anything else is appended, so a torn record can only ever end a segment.
+ */
+public final class WriteAheadLog implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(WriteAheadLog.class);
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final int MAX_GROUP = 4_096;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final long segmentBytes;
+    private final BlockingQueue<Append> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+
+    private FileChannel channel;
+    private long segment;
+    private long written;
+    private long lastForce = System.nanoTime();
+    private boolean dirty;
+    private volatile boolean closed;
+
+    public WriteAheadLog(Path directory, long nextSegment, FsyncPolicy fsyncPolicy,
+                         Duration fsyncInterval, long segmentBytes) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            openSegment(nextSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, e);
+        }
+
+        writer = new Thread(this::run, "document-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a record built by {@link LogRecords}. The future completes once the record is
+     * written and, depending on the fsync policy, forced to disk. Blocks while the queue is full.
+     */
+    public CompletableFuture<Long> append(ByteBuffer record) {
+        return enqueue(new Append(record));
+    }
+
+    /**
+     * Close the current segment and continue in a new one.
+     *
+     * @return the number of the new segment; every record appended after this call lands in it or later
+     */
+    public long roll() {
+        return enqueue(new Append(null)).join();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    private CompletableFuture<Long> enqueue(Append append) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        try {
+            queue.put(append);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to write-ahead log", e);
+        }
+        // Closed since the check: the writer may already have drained the queue and exited. If it
+        // has not taken this append, take it back; otherwise the writer completes it.
+        if (closed && queue.remove(append)) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        return append.done;
+    }
+
+    private void run() {
+        List<Append> group = new ArrayList<>(MAX_GROUP);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Append first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    maybeForce(false);
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Write-ahead log group commit failed", e);
+                group.forEach(a -> a.done.completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<Append> group) throws IOException {
+        int start = 0;
+        for (int i = 0; i < group.size(); i++) {
+            if (group.get(i).record == null) {
+                // Flush everything queued ahead of the roll into the old segment first
+                write(group.subList(start, i));
+                rollSegment();
+                group.get(i).done.complete(segment);
+                start = i + 1;
+            }
+        }
+        write(group.subList(start, group.size()));
+        if (written >= segmentBytes) {
+            rollSegment();
+        }
+    }
+
+    private void write(List<Append> appends) throws IOException {
+        if (appends.isEmpty()) return;
+
+        ByteBuffer[] buffers = new ByteBuffer[appends.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = appends.get(i).record;
+        }
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) remaining += buffer.remaining();
+        long end = written + remaining;
+        try {
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            dirty = true;
+            maybeForce(fsyncPolicy == FsyncPolicy.ALWAYS);
+        } catch (IOException e) {
+            discardFailedWrite();
+            throw e;
+        }
+        written = end;
+
+        long segmentOfGroup = segment;
+        for (Append append : appends) {
+            append.done.complete(segmentOfGroup);
+        }
+    }
+
+    /**
+     * Take back whatever part of a failed group reached the segment, so later records never follow
+     * a torn one. Where the segment cannot be cut back, it is left with the torn tail, which
+     * recovery truncates, and appends continue in a new segment.
+     */
+    private void discardFailedWrite() throws IOException {
+        try {
+            channel.truncate(written);
+            channel.position(written);
+        } catch (IOException e) {
+            LOG.warnf(e, "Cannot truncate %s after a failed write; continuing in a new segment",
+                    segmentPath(directory, segment));
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // The segment is abandoned either way
+            }
+            openSegment(segment + 1);
+        }
+    }
+
+    private void maybeForce(boolean now) throws IOException {
+        if (!dirty || fsyncPolicy == FsyncPolicy.NEVER && !now) return;
+        if (now || System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+            channel.force(false);
+            lastForce = System.nanoTime();
+            dirty = false;
+        }
+    }
+
+    private long pollTimeoutNanos() {
+        return fsyncPolicy == FsyncPolicy.INTERVAL && dirty ? fsyncIntervalNanos : TimeUnit.MILLISECONDS.toNanos(200);
+    }
+
+    private void rollSegment() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+        channel.close();
+        openSegment(segment + 1);
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        written = 0;
+        channel = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // No interrupt: it would close the FileChannel under the writer. The writer polls with a
+        // short timeout and exits once the queue is drained.
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writer.isAlive()) {
+            // Left behind by a writer that stopped before draining the queue
+            List<Append> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(a -> a.done.completeExceptionally(new IllegalStateException("Write-ahead log is closed")));
+        }
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Existing segment numbers in ascending order.
+     */
+    static List<Long> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static final class Append {
+        final ByteBuffer record;
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Append(ByteBuffer record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sdtp;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.auth.AuthContextCache;
+import org.eclipse.microprofile.jwt.Claims;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.ForbiddenException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthContextCacheTest {
+
+    @Test
+    void resolve_parsesClaimsOncePerToken() {
+        AuthContextCache cache = new AuthContextCache(100);
+        JsonWebToken jwt = mock(JsonWebToken.class);
+        when(jwt.getTokenID()).thenReturn("jti-1");
+        when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
+        when(jwt.getGroups()).thenReturn(Set.of("viewer"));
+        when(jwt.getName()).thenReturn("bob");
+        when(jwt.getClaim(Claims.exp)).thenReturn((Object) (System.currentTimeMillis() / 1000 + 600));
+
+        AuthContext first = cache.resolve(jwt);
+        AuthContext second = cache.resolve(jwt);
+
+        assertSame(first, second);
+        assertEquals("tenant1", first.tenantId());
+        assertEquals("bob", first.principal());
+        assertTrue(first.canRead());
+        assertFalse(first.isAdmin());
+        verify(jwt, times(1)).getGroups();
+        verify(jwt, times(1)).getClaim("tenant_id");
+    }
+
+    @Test
+    void resolve_expiredTokenIsNotRetained() {
+        AuthContextCache cache = new AuthContextCache(100);
+        JsonWebToken jwt = mock(JsonWebToken.class);
+        when(jwt.getTokenID()).thenReturn("jti-expired");
+        when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
+        when(jwt.getGroups()).thenReturn(Set.of("admin"));
+        when(jwt.getClaim(Claims.exp)).thenReturn((Object) (System.currentTimeMillis() / 1000 - 5));
+
+        cache.resolve(jwt);
+        cache.resolve(jwt);
+
+        verify(jwt, times(2)).getGroups();
+    }
+
+    @Test
+    void of_tokenWithoutTenant_forbidden() {
+        JsonWebToken jwt = mock(JsonWebToken.class);
+        when(jwt.getGroups()).thenReturn(Set.of("admin"));
+
+        assertThrows(ForbiddenException.class, () -> AuthContext.of(jwt));
+    }
+}
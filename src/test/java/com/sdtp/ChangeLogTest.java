@@ -0,0 +1,94 @@
+package com.sdtp;
+
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.changes.ChangesExpiredException;
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.Document;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+    // Feed subscribers on the appending thread so the test sees every delivery synchronously
+    private final ChangeLog log = new ChangeLog(4, Runnable::run);
+
+    @Test
+    void subscribers_replayFromAnOffsetThenFollowLive_atTheirOwnPace() {
+        for (int i = 0; i < 3; i++) {
+            log.append(ChangeEvent.Type.CREATED, document("tenant1"));
+        }
+        log.append(ChangeEvent.Type.CREATED, document("tenant2"));
+
+        AssertSubscriber<ChangeEvent> replay = log.subscribe("tenant1", 1L).subscribe().withSubscriber(AssertSubscriber.create(1));
+        AssertSubscriber<ChangeEvent> live = log.subscribe("tenant1", null).subscribe().withSubscriber(AssertSubscriber.create(10));
+
+        assertEquals(List.of(2L), sequences(replay));
+        replay.request(5);
+        assertEquals(List.of(2L, 3L), sequences(replay));
+        assertTrue(live.getItems().isEmpty());
+
+        Document doc = document("tenant1");
+        log.append(ChangeEvent.Type.DELETED, doc);
+
+        assertEquals(List.of(2L, 3L, 4L), sequences(replay));
+        ChangeEvent deleted = live.getItems().get(0);
+        assertEquals(4, deleted.getSequence());
+        assertEquals(ChangeEvent.Type.DELETED, deleted.getType());
+        assertEquals(doc.getId(), deleted.getDocumentId());
+        assertEquals(4, log.lastSequence("tenant1"));
+        assertEquals(1, log.lastSequence("tenant2"));
+
+        live.cancel();
+        assertEquals(1, log.subscribers());
+    }
+
+    @Test
+    void expiredOffsetsAndSlowSubscribers_fail() {
+        AssertSubscriber<ChangeEvent> slow = log.subscribe("tenant1", 0L).subscribe().withSubscriber(AssertSubscriber.create(1));
+        for (int i = 0; i < 6; i++) {
+            log.append(ChangeEvent.Type.CREATED, document("tenant1"));
+        }
+
+        // Sequence 1 was delivered; 2 was overwritten before it was asked for
+        slow.request(1);
+        slow.assertFailedWith(ChangesExpiredException.class);
+        assertEquals(List.of(1L), sequences(slow));
+        assertThrows(ChangesExpiredException.class, () -> log.subscribe("tenant1", 1L));
+        assertThrows(ChangesExpiredException.class, () -> log.subscribe("tenant1", 7L));
+
+        AssertSubscriber<ChangeEvent> retained = log.subscribe("tenant1", 0L).subscribe().withSubscriber(AssertSubscriber.create(10));
+        assertEquals(List.of(3L, 4L, 5L, 6L), sequences(retained));
+    }
+
+    @Test
+    void growingRing_keepsEveryEventUpToCapacity() {
+        ChangeLog growing = new ChangeLog(100, Runnable::run);
+        AssertSubscriber<ChangeEvent> paused = growing.subscribe("tenant1", 0L).subscribe().withSubscriber(AssertSubscriber.create(1));
+        for (int i = 0; i < 90; i++) {
+            growing.append(ChangeEvent.Type.CREATED, document("tenant1"));
+        }
+
+        // Moved through several larger rings while the subscriber held its place at 2
+        paused.request(Long.MAX_VALUE);
+        assertEquals(LongStream.rangeClosed(1, 90).boxed().toList(), sequences(paused));
+        for (int i = 0; i < 30; i++) {
+            growing.append(ChangeEvent.Type.CREATED, document("tenant1"));
+        }
+        assertEquals(120, sequences(paused).size());
+        AssertSubscriber<ChangeEvent> retained = growing.subscribe("tenant1", 0L).subscribe().withSubscriber(AssertSubscriber.create(200));
+        assertEquals(LongStream.rangeClosed(21, 120).boxed().toList(), sequences(retained));
+    }
+
+    private static Document document(String tenantId) {
+        return new Document("Title", "Content", tenantId, "alice");
+    }
+
+    private static List<Long> sequences(AssertSubscriber<ChangeEvent> subscriber) {
+        return subscriber.getItems().stream().map(ChangeEvent::getSequence).toList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.sdtp;
+
+import com.sdtp.model.ContentHandle;
+import com.sdtp.model.Document;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.DeflateContentStore;
+import com.sdtp.store.content.SlabContentStore;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflateContentStoreTest {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog, ünd noch einmal. ".repeat(40);
+
+    @Test
+    void compressibleBodies_areStoredDeflatedAndInflatedOnRead() throws Exception {
+        DeflateContentStore content = new DeflateContentStore(null, 6);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 512);
+
+        Document doc = new Document("Text", TEXT, "tenant1", "alice");
+        Document small = new Document("Small", "tiny", "tenant1", "alice");
+        store.put(doc);
+        store.put(small);
+
+        ContentHandle handle = store.get(doc.getId()).getContentHandle();
+        int utf8Length = TEXT.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(DeflateContentStore.ENCODING, handle.encoding());
+        assertEquals(utf8Length, handle.length());
+        assertTrue(content.storedBytes() < content.bodyBytes() / 4);
+        assertNull(small.getContentHandle());
+        assertEquals(TEXT, store.get(doc.getId()).getContent());
+        assertEquals(utf8Length, store.get(doc.getId()).getContentBytes().remaining());
+
+        // What is passed through to clients is a standard zlib stream
+        ByteBuffer encoded = handle.encodedBytes();
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded);
+        byte[] inflated = new byte[utf8Length];
+        assertEquals(utf8Length, inflater.inflate(inflated));
+        assertTrue(inflater.finished());
+        assertEquals(TEXT, new String(inflated, StandardCharsets.UTF_8));
+
+        store.remove(doc.getId());
+        assertEquals(0, content.bodyBytes());
+        assertEquals(0, content.storedBytes());
+    }
+
+    @Test
+    void incompressibleBodies_areStoredAsPlainUtf8() {
+        // Nothing repeats, so the zlib header and trailer outweigh any saving
+        String body = "0123456789abcdefghij";
+        DeflateContentStore content = new DeflateContentStore(null, 9);
+
+        ContentHandle handle = content.store(body);
+
+        assertNull(handle.encoding());
+        assertEquals(body, handle.asString());
+        assertEquals(content.bodyBytes(), content.storedBytes());
+    }
+
+    @Test
+    void offHeapDelegate_holdsTheCompressedBytes() {
+        SlabContentStore slabs = new SlabContentStore(null, 1 << 16);
+        DeflateContentStore content = new DeflateContentStore(slabs, 1);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 100);
+
+        Document doc = new Document("Text", TEXT, "tenant1", "alice");
+        store.put(doc);
+
+        assertTrue(doc.getContentHandle().encodedBytes().isDirect());
+        assertEquals(content.storedBytes(), slabs.liveBytes());
+        assertEquals(TEXT, store.get(doc.getId()).getContent());
+
+        store.remove(doc.getId());
+        assertEquals(0, slabs.liveBytes());
+    }
+}
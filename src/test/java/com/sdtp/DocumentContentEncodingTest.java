@@ -0,0 +1,127 @@
+package com.sdtp;
+
+import com.sdtp.auth.TokenIssuer;
+import com.sdtp.auth.User;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@code GET /documents/{id}/content} with bodies stored deflated: passed through as stored to
+ * clients that accept deflate, inflated for the others.
+ */
+@QuarkusTest
+@TestProfile(DocumentContentEncodingTest.DeflatedBodies.class)
+public class DocumentContentEncodingTest {
+
+    public static class DeflatedBodies implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "document.store.content.compression", "deflate",
+                    "document.store.content.compression-threshold", "64");
+        }
+    }
+
+    private static final String BODY = "A body long and repetitive enough to be stored deflated. ".repeat(40);
+
+    @Inject
+    TokenIssuer tokens;
+
+    @Test
+    void acceptsDeflate_getsTheStoredBytes() throws DataFormatException {
+        String token = token();
+        String id = create(token);
+
+        Response response = raw(token).header("Accept-Encoding", "gzip, deflate").get("/documents/" + id + "/content");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("deflate", response.header("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.header("Vary"));
+        byte[] encoded = response.asByteArray();
+        assertTrue(encoded.length < BODY.length());
+        assertEquals(BODY, inflate(encoded));
+    }
+
+    @Test
+    void withoutDeflate_getsTheBodyInflated() {
+        String token = token();
+        String id = create(token);
+
+        for (String acceptEncoding : new String[]{"identity", "gzip", "deflate;q=0, *"}) {
+            Response response = raw(token).header("Accept-Encoding", acceptEncoding).get("/documents/" + id + "/content");
+
+            assertEquals(200, response.statusCode());
+            assertNull(response.header("Content-Encoding"), acceptEncoding);
+            assertEquals("Accept-Encoding", response.header("Vary"));
+            assertEquals(BODY, response.asString());
+        }
+    }
+
+    @Test
+    void encodedAndPlainBodies_haveTheirOwnTags() {
+        String token = token();
+        String id = create(token);
+
+        String deflated = raw(token).header("Accept-Encoding", "deflate").get("/documents/" + id + "/content").header("ETag");
+        String plain = raw(token).header("Accept-Encoding", "identity").get("/documents/" + id + "/content").header("ETag");
+
+        assertNotEquals(plain, deflated);
+        assertEquals(304, raw(token).header("Accept-Encoding", "deflate").header("If-None-Match", deflated)
+                .get("/documents/" + id + "/content").statusCode());
+        assertEquals(200, raw(token).header("Accept-Encoding", "identity").header("If-None-Match", deflated)
+                .get("/documents/" + id + "/content").statusCode());
+    }
+
+    /**
+     * A request that neither asks for nor decodes a content coding unless told to.
+     */
+    private static RequestSpecification raw(String token) {
+        return given().config(RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+                .auth().oauth2(token);
+    }
+
+    private static String create(String token) {
+        Response created = given().auth().oauth2(token).contentType(ContentType.JSON)
+                .body(Map.of("title", "Compressible", "content", BODY))
+                .post("/documents");
+        assertEquals(201, created.statusCode());
+        return created.path("id");
+    }
+
+    private String token() {
+        return tokens.issue(new User("alice", null, "tenant-" + UUID.randomUUID(), Set.of("admin"))).token();
+    }
+
+    private static String inflate(byte[] encoded) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(buffer);
+            if (n == 0 && inflater.needsInput()) break;
+            out.write(buffer, 0, n);
+        }
+        inflater.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.sdtp;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.DocumentIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentIdsTest {
+
+    @Test
+    void ids_areVersion7AndIncreaseWithinAThread() {
+        long before = System.currentTimeMillis();
+        UUID previous = DocumentIds.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = DocumentIds.next();
+            assertTrue(id.compareTo(previous) > 0, "not increasing after " + previous);
+            previous = id;
+        }
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, previous.version());
+        assertEquals(2, previous.variant());
+        assertTrue(DocumentIds.timestamp(previous) >= before);
+        // A burst may borrow a few milliseconds ahead of the clock
+        assertTrue(DocumentIds.timestamp(previous) <= after + 100);
+        assertEquals(0, DocumentIds.timestamp(UUID.randomUUID()));
+
+        Document doc = new Document("T", "C", "tenant1", "alice");
+        assertEquals(DocumentIds.timestamp(doc.getId()), doc.getCreatedAt());
+        assertEquals(doc.getCreatedAt(), doc.getUpdatedAt());
+    }
+
+    @Test
+    void concurrentThreads_neverCollide() throws Exception {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(DocumentIds.next());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(8 * 50_000, ids.size());
+    }
+}
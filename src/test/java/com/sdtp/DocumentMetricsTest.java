@@ -0,0 +1,76 @@
+package com.sdtp;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.model.Document;
+import com.sdtp.service.DocumentService;
+import com.sdtp.service.StoreExecutor;
+import com.sdtp.store.InMemoryDocumentStore;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.NotFoundException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentMetricsTest {
+
+    SimpleMeterRegistry registry;
+    InMemoryDocumentStore store;
+    DocumentService documentService;
+
+    AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+    AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+    AuthContext otherTenant = new AuthContext("tenant2", "carol", AuthContext.ROLE_ADMIN, 0);
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        store = new InMemoryDocumentStore();
+        documentService = new DocumentService(store, new DocumentMetrics(registry, store), StoreExecutor.INLINE);
+    }
+
+    @Test
+    void operations_recordedByOutcome() {
+        Document saved = documentService.createDocument(new Document("T", "C", null, null), admin).await().indefinitely();
+        documentService.getDocumentById(saved.getId(), viewer).await().indefinitely();
+
+        assertThrows(ForbiddenException.class,
+                () -> documentService.createDocument(new Document(), viewer).await().indefinitely());
+        assertThrows(ForbiddenException.class,
+                () -> documentService.getDocumentById(saved.getId(), otherTenant).await().indefinitely());
+        assertThrows(NotFoundException.class,
+                () -> documentService.getDocumentById(UUID.randomUUID(), viewer).await().indefinitely());
+        documentService.getTenantDocumentsPage(null, 10, viewer).await().indefinitely();
+
+        assertEquals(1, timer("create", "ok").count());
+        assertEquals(1, timer("create", "forbidden").count());
+        assertEquals(1, timer("get", "ok").count());
+        assertEquals(1, timer("get", "forbidden").count());
+        assertEquals(1, timer("get", "not-found").count());
+        assertEquals(1, timer("list_tenant", "ok").count());
+        assertEquals(0, timer("list_user", "ok").count());
+    }
+
+    @Test
+    void storedGauge_tracksTenantSize() {
+        store.put(new Document("Recovered", "C", "tenant0", "x"));
+        new DocumentMetrics(registry, store);
+
+        Document saved = documentService.createDocument(new Document("T", "C", null, null), admin).await().indefinitely();
+        documentService.createDocument(new Document("T", "C", null, null), admin).await().indefinitely();
+        store.remove(saved.getId());
+
+        assertEquals(1, registry.get("documents.stored").tag("tenant", "tenant0").gauge().value());
+        assertEquals(1, registry.get("documents.stored").tag("tenant", "tenant1").gauge().value());
+        assertNull(registry.find("documents.stored").tag("tenant", "tenant2").gauge());
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return registry.get("documents.operations").tag("operation", operation).tag("outcome", outcome).timer();
+    }
+}
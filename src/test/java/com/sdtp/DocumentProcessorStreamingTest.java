@@ -0,0 +1,198 @@
+package com.sdtp;
+
+import com.sdtp.admission.TenantLimiter;
+import com.sdtp.auth.AuthContext;
+import com.sdtp.auth.AuthContextCache;
+import com.sdtp.grpc.DocumentProcessorGrpc;
+import com.sdtp.grpc.DocumentProcessorGrpcService;
+import com.sdtp.grpc.DocumentProcessorOuterClass;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.model.Document;
+import com.sdtp.service.DocumentService;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.security.identity.CurrentIdentityAssociation;
+import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Exercises the streaming and batch RPCs of the real service over a local gRPC server.
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentProcessorStreamingTest {
+
+    @Spy
+    DocumentService documentService = new DocumentService();
+
+    @Mock
+    CurrentIdentityAssociation currentIdentityAssociation;
+
+    @Spy
+    AuthContextCache authContexts = new AuthContextCache();
+
+    @Spy
+    TenantLimiter limiter = new TenantLimiter(true, new SimpleMeterRegistry(),
+            new TenantLimiter.Limits(1000, 2000, 256), Map.of());
+
+    @Spy
+    DocumentMetrics metrics = DocumentMetrics.NOOP;
+
+    @InjectMocks
+    DocumentProcessorGrpcService grpcService;
+
+    Server server;
+    ManagedChannel channel;
+    List<UUID> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws Exception {
+        JsonWebToken admin = new DocumentStoreConcurrencyTest.StaticJwt("alice", Set.of("admin"), "tenant1");
+        for (int i = 0; i < 200; i++) {
+            Document doc = new Document();
+            doc.setTitle("D" + i);
+            doc.setContent("Body " + i);
+            ids.add(documentService.createDocument(doc, AuthContext.of(admin)).await().indefinitely().getId());
+        }
+        JsonWebToken other = new DocumentStoreConcurrencyTest.StaticJwt("carol", Set.of("admin"), "tenant2");
+        Document foreign = new Document();
+        foreign.setTitle("Foreign");
+        ids.add(documentService.createDocument(foreign, AuthContext.of(other)).await().indefinitely().getId());
+
+        when(currentIdentityAssociation.getDeferredIdentity()).thenReturn(Uni.createFrom().item(
+                QuarkusSecurityIdentity.builder()
+                        .setPrincipal(new DocumentStoreConcurrencyTest.StaticJwt("bob", Set.of("viewer"), "tenant1"))
+                        .addRole("viewer")
+                        .build()));
+
+        server = ServerBuilder.forPort(0).addService(grpcService).build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void processStream_resolvesIdentityOnceAndReportsPerItemStatus() throws Exception {
+        Map<String, DocumentProcessorOuterClass.DocumentResponse> responses = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+
+        StreamObserver<DocumentProcessorOuterClass.DocumentRequest> requests =
+                DocumentProcessorGrpc.newStub(channel).processStream(new StreamObserver<>() {
+                    @Override
+                    public void onNext(DocumentProcessorOuterClass.DocumentResponse response) {
+                        responses.put(response.getDocumentId(), response);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        error[0] = t;
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        done.countDown();
+                    }
+                });
+
+        for (UUID id : ids) {
+            requests.onNext(request(id.toString(), true));
+        }
+        String missing = UUID.randomUUID().toString();
+        requests.onNext(request(missing, false));
+        requests.onNext(request("not-a-uuid", false));
+        requests.onCompleted();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(error[0]);
+        assertEquals(ids.size() + 2, responses.size());
+        assertEquals("Processed", responses.get(ids.get(7).toString()).getStatus());
+        assertEquals("Body 7", responses.get(ids.get(7).toString()).getContent().toStringUtf8());
+        assertEquals("PERMISSION_DENIED", responses.get(ids.get(200).toString()).getStatus());
+        assertEquals("NOT_FOUND", responses.get(missing).getStatus());
+        assertEquals("INVALID_ARGUMENT", responses.get("not-a-uuid").getStatus());
+        verify(currentIdentityAssociation, times(1)).getDeferredIdentity();
+    }
+
+    @Test
+    void processBatch_returnsResponsesInRequestOrder() {
+        DocumentProcessorOuterClass.DocumentBatchRequest.Builder batch =
+                DocumentProcessorOuterClass.DocumentBatchRequest.newBuilder();
+        for (int i = 0; i < 50; i++) {
+            batch.addDocumentIds(ids.get(i).toString());
+        }
+        batch.addDocumentIds(UUID.randomUUID().toString());
+
+        DocumentProcessorOuterClass.DocumentBatchResponse response =
+                DocumentProcessorGrpc.newBlockingStub(channel).processBatch(batch.build());
+
+        assertEquals(51, response.getResponsesCount());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(ids.get(i).toString(), response.getResponses(i).getDocumentId());
+            assertEquals("Processed", response.getResponses(i).getStatus());
+            assertTrue(response.getResponses(i).getContent().isEmpty());
+        }
+        assertEquals("NOT_FOUND", response.getResponses(50).getStatus());
+        verify(currentIdentityAssociation, times(1)).getDeferredIdentity();
+    }
+
+    @Test
+    void getDocument_returnsFullDocument() {
+        DocumentProcessorGrpc.DocumentProcessorBlockingStub stub = DocumentProcessorGrpc.newBlockingStub(channel);
+
+        DocumentProcessorOuterClass.Document doc = stub.getDocument(getRequest(ids.get(3).toString()));
+
+        assertEquals(ids.get(3).toString(), doc.getId());
+        assertEquals("D3", doc.getTitle());
+        assertEquals("Body 3", doc.getContent());
+        assertEquals("tenant1", doc.getTenantId());
+        assertEquals("alice", doc.getCreatedBy());
+        assertEquals(1, doc.getVersion());
+        assertEquals(Status.Code.PERMISSION_DENIED, assertThrows(StatusRuntimeException.class,
+                () -> stub.getDocument(getRequest(ids.get(200).toString()))).getStatus().getCode());
+        assertEquals(Status.Code.INVALID_ARGUMENT, assertThrows(StatusRuntimeException.class,
+                () -> stub.getDocument(getRequest("not-a-uuid"))).getStatus().getCode());
+    }
+
+    private static DocumentProcessorOuterClass.GetDocumentRequest getRequest(String id) {
+        return DocumentProcessorOuterClass.GetDocumentRequest.newBuilder().setDocumentId(id).build();
+    }
+
+    private static DocumentProcessorOuterClass.DocumentRequest request(String id, boolean includeContent) {
+        return DocumentProcessorOuterClass.DocumentRequest.newBuilder()
+                .setDocumentId(id)
+                .setIncludeContent(includeContent)
+                .build();
+    }
+}
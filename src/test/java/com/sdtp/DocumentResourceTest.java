@@ -0,0 +1,183 @@
+package com.sdtp;
+
+import com.sdtp.auth.TokenIssuer;
+import com.sdtp.auth.User;
+import com.sdtp.grpc.DocumentProcessorOuterClass;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The REST endpoints over HTTP, each test in a tenant of its own.
+ */
+@QuarkusTest
+public class DocumentResourceTest {
+
+    private static final String PROTOBUF = "application/x-protobuf";
+
+    @Inject
+    TokenIssuer tokens;
+
+    // ----- POST /documents/batch -----
+    @Test
+    void batch_ndjson_reportsEachDocumentAsALine() {
+        String token = adminToken();
+
+        Response response = given().auth().oauth2(token).contentType(RestMediaType.APPLICATION_NDJSON)
+                .body("{\"title\":\"One\",\"content\":\"1\"}\n{\"title\":\"Two\",\"content\":\"2\"}\n"
+                        .getBytes(StandardCharsets.UTF_8))
+                .post("/documents/batch");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.contentType().startsWith(RestMediaType.APPLICATION_NDJSON));
+        List<String> lines = response.asString().lines().filter(line -> !line.isBlank()).toList();
+        assertEquals(2, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonPath result = new JsonPath(lines.get(i));
+            assertEquals(i, result.getInt("index"));
+            assertEquals("created", result.getString("status"));
+            assertEquals(200, given().auth().oauth2(token).get("/documents/" + result.getString("id")).statusCode());
+        }
+    }
+
+    @Test
+    void batch_jsonArray_stopsAtAMalformedDocument() {
+        String token = adminToken();
+
+        Response response = given().auth().oauth2(token).contentType(ContentType.JSON)
+                .body("[{\"title\":\"One\",\"content\":\"1\"}, {\"title\": ], {\"title\":\"Three\"}]")
+                .post("/documents/batch");
+
+        assertEquals(200, response.statusCode());
+        List<Map<String, Object>> results = response.jsonPath().getList("$");
+        assertEquals(2, results.size());
+        assertEquals("created", results.get(0).get("status"));
+        assertEquals(1, results.get(1).get("index"));
+        assertEquals("failed", results.get(1).get("status"));
+        assertTrue(((String) results.get(1).get("error")).startsWith("Malformed document"));
+        // Everything before the malformed document stays created
+        assertEquals(1, given().auth().oauth2(token).get("/documents/tenant").jsonPath().getList("$").size());
+    }
+
+    @Test
+    void batch_viewer_forbidden() {
+        Response response = given().auth().oauth2(token(Set.of("viewer"))).contentType(ContentType.JSON)
+                .body("[{\"title\":\"One\"}]")
+                .post("/documents/batch");
+
+        assertEquals(403, response.statusCode());
+    }
+
+    // ----- conditional requests -----
+    @Test
+    void ifNoneMatch_currentTag_notModified() {
+        String token = adminToken();
+        String id = create(token, "Policy", "Body");
+
+        Response read = given().auth().oauth2(token).get("/documents/" + id);
+        String etag = read.header("ETag");
+        assertEquals(200, read.statusCode());
+        assertNotNull(etag);
+
+        Response revalidated = given().auth().oauth2(token).header("If-None-Match", etag).get("/documents/" + id);
+        assertEquals(304, revalidated.statusCode());
+        assertEquals(etag, revalidated.header("ETag"));
+        assertEquals("", revalidated.asString());
+    }
+
+    @Test
+    void ifMatch_staleTag_preconditionFailed() {
+        String token = adminToken();
+        String id = create(token, "Policy", "Body");
+        String original = given().auth().oauth2(token).get("/documents/" + id).header("ETag");
+
+        Response replaced = given().auth().oauth2(token).contentType(ContentType.JSON).header("If-Match", original)
+                .body(Map.of("title", "Policy", "content", "Edited"))
+                .put("/documents/" + id);
+        assertEquals(200, replaced.statusCode());
+        assertEquals(2, replaced.jsonPath().getInt("version"));
+        String current = replaced.header("ETag");
+        assertNotEquals(original, current);
+
+        // Every conditional write against the old tag fails; the document keeps the replacement
+        assertEquals(412, given().auth().oauth2(token).contentType(ContentType.JSON).header("If-Match", original)
+                .body(Map.of("title", "Lost update")).put("/documents/" + id).statusCode());
+        assertEquals(412, given().auth().oauth2(token).contentType("application/merge-patch+json")
+                .header("If-Match", original).body("{\"title\":\"Lost update\"}").patch("/documents/" + id).statusCode());
+        assertEquals(412, given().auth().oauth2(token).header("If-Match", original).delete("/documents/" + id).statusCode());
+        assertEquals("Edited", given().auth().oauth2(token).get("/documents/" + id).path("content"));
+
+        assertEquals(204, given().auth().oauth2(token).header("If-Match", current).delete("/documents/" + id).statusCode());
+        assertEquals(404, given().auth().oauth2(token).get("/documents/" + id).statusCode());
+    }
+
+    // ----- application/x-protobuf -----
+    @Test
+    void protobuf_createAndReadWhenRankedAboveJson() throws Exception {
+        String token = adminToken();
+        DocumentProcessorOuterClass.Document message = DocumentProcessorOuterClass.Document.newBuilder()
+                .setTitle("Binary").setContent("Sent as protobuf").build();
+
+        Response created = given().auth().oauth2(token).contentType(PROTOBUF).accept(PROTOBUF)
+                .body(message.toByteArray())
+                .post("/documents");
+        assertEquals(201, created.statusCode());
+        assertTrue(created.contentType().startsWith(PROTOBUF));
+        DocumentProcessorOuterClass.Document stored = DocumentProcessorOuterClass.Document.parseFrom(created.asByteArray());
+        assertEquals("Sent as protobuf", stored.getContent());
+        assertEquals(1, stored.getVersion());
+
+        Response read = given().auth().oauth2(token).accept(PROTOBUF).get("/documents/" + stored.getId());
+        assertEquals(200, read.statusCode());
+        assertTrue(read.contentType().startsWith(PROTOBUF));
+        assertEquals(stored, DocumentProcessorOuterClass.Document.parseFrom(read.asByteArray()));
+
+        Response list = given().auth().oauth2(token).accept(PROTOBUF).get("/documents/tenant");
+        assertEquals(List.of(stored), DocumentProcessorOuterClass.DocumentList.parseFrom(list.asByteArray()).getDocumentsList());
+    }
+
+    @Test
+    void protobuf_jsonStaysTheDefault() {
+        String token = adminToken();
+        String id = create(token, "Policy", "Body");
+
+        for (String accept : List.of("*/*", "application/json", PROTOBUF + ";q=0.5, application/json")) {
+            Response read = given().auth().oauth2(token).accept(accept).get("/documents/" + id);
+            assertEquals(200, read.statusCode());
+            assertTrue(read.contentType().startsWith("application/json"), accept);
+            assertEquals("Body", read.path("content"));
+        }
+    }
+
+    private static String create(String token, String title, String content) {
+        Response created = given().auth().oauth2(token).contentType(ContentType.JSON)
+                .body(Map.of("title", title, "content", content))
+                .post("/documents");
+        assertEquals(201, created.statusCode());
+        return created.path("id");
+    }
+
+    private String adminToken() {
+        return token(Set.of("admin", "viewer"));
+    }
+
+    /**
+     * A token for a fresh tenant, so tests never see each other's documents.
+     */
+    private String token(Set<String> roles) {
+        return tokens.issue(new User("alice", null, "tenant-" + UUID.randomUUID(), roles)).token();
+    }
+}
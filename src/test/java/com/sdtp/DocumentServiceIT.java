@@ -1,5 +1,6 @@
 package com.sdtp;
 
+import com.sdtp.auth.AuthContext;
 import com.sdtp.model.Document;
 import com.sdtp.service.DocumentService;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
@@ -36,13 +37,13 @@ public class DocumentServiceIT {
     @Test
     void tenantIsolation_enforced() {
         Document doc1 = new Document("Doc1", "Content1", "tenant1", "alice");
-        documentService.createDocument(doc1, adminJwt).await().indefinitely();
+        documentService.createDocument(doc1, AuthContext.of(adminJwt)).await().indefinitely();
 
         JsonWebToken tenant2Admin = new MockJwt("charlie", Set.of("admin"), "tenant2");
         Document doc2 = new Document("Doc2", "Content2", "tenant2", "charlie");
-        documentService.createDocument(doc2, tenant2Admin).await().indefinitely();
+        documentService.createDocument(doc2, AuthContext.of(tenant2Admin)).await().indefinitely();
 
-        List<Document> tenant1Docs = documentService.getAllDocumentsForTenant(viewerJwt).await().indefinitely();
+        List<Document> tenant1Docs = documentService.getAllDocumentsForTenant(AuthContext.of(viewerJwt)).await().indefinitely();
         assertEquals(1, tenant1Docs.size());
         assertEquals("tenant1", tenant1Docs.get(0).getTenantId());
     }
@@ -52,13 +53,13 @@ public class DocumentServiceIT {
     void multiUserFlow_adminAndViewer() {
         Document d1 = new Document("D1", "Content1", "tenant1", "alice");
         Document d2 = new Document("D2", "Content2", "tenant1", "alice");
-        documentService.createDocument(d1, adminJwt).await().indefinitely();
-        documentService.createDocument(d2, adminJwt).await().indefinitely();
+        documentService.createDocument(d1, AuthContext.of(adminJwt)).await().indefinitely();
+        documentService.createDocument(d2, AuthContext.of(adminJwt)).await().indefinitely();
 
-        List<Document> viewerDocs = documentService.getDocumentsByUser(viewerJwt).await().indefinitely();
+        List<Document> viewerDocs = documentService.getDocumentsByUser(AuthContext.of(viewerJwt)).await().indefinitely();
         assertEquals(0, viewerDocs.size());
 
-        List<Document> tenantDocs = documentService.getAllDocumentsForTenant(viewerJwt).await().indefinitely();
+        List<Document> tenantDocs = documentService.getAllDocumentsForTenant(AuthContext.of(viewerJwt)).await().indefinitely();
         assertEquals(2, tenantDocs.size());
     }
 
@@ -68,7 +69,7 @@ public class DocumentServiceIT {
         Document doc = new Document("ViewerDoc", "Content", "tenant1", "bob");
 
         assertThrows(jakarta.ws.rs.ForbiddenException.class, () -> {
-            documentService.createDocument(doc, viewerJwt).await().indefinitely();
+            documentService.createDocument(doc, AuthContext.of(viewerJwt)).await().indefinitely();
         });
     }
 
@@ -76,12 +77,12 @@ public class DocumentServiceIT {
     @Test
     void crossTenantAccess_forbidden() {
         Document doc = new Document("Doc1", "Content", "tenant1", "alice");
-        Document created = documentService.createDocument(doc, adminJwt).await().indefinitely();
+        Document created = documentService.createDocument(doc, AuthContext.of(adminJwt)).await().indefinitely();
 
         JsonWebToken tenant2Viewer = new MockJwt("eve", Set.of("viewer"), "tenant2");
 
         assertThrows(jakarta.ws.rs.ForbiddenException.class, () -> {
-            documentService.getDocumentById(created.getId(), tenant2Viewer).await().indefinitely();
+            documentService.getDocumentById(created.getId(), AuthContext.of(tenant2Viewer)).await().indefinitely();
         });
     }
 
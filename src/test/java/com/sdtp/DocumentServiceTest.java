@@ -1,17 +1,32 @@
 package com.sdtp;
 
+import com.sdtp.auth.AuthContext;
+import com.sdtp.model.BatchItemResult;
+import com.sdtp.model.ContentHandle;
 import com.sdtp.model.Document;
+import com.sdtp.model.DocumentPage;
+import com.sdtp.model.DocumentSummary;
 import com.sdtp.service.DocumentService;
+import com.sdtp.store.InMemoryDocumentStore;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,12 +53,41 @@ class DocumentServiceTest {
         doc.setTitle("Test");
         doc.setContent("Content");
 
-        Document created = documentService.createDocument(doc, jwt).await().indefinitely();
+        Document created = documentService.createDocument(doc, AuthContext.of(jwt)).await().indefinitely();
         assertNotNull(created.getId());
         assertEquals("tenant1", created.getTenantId());
         assertEquals("alice", created.getCreatedBy());
     }
 
+    @Test
+    void createDocuments_reportsEachItemInOrder() {
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        Multi<Document> upload = Multi.createFrom().range(0, 2500)
+                .map(i -> new Document("T" + i, "Content " + i, "other", "mallory"));
+
+        List<BatchItemResult> results = documentService.createDocuments(upload, admin)
+                .collect().asList().await().indefinitely();
+
+        assertEquals(2500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(BatchItemResult.CREATED, results.get(i).getStatus());
+        }
+        Document stored = documentService.getDocumentById(UUID.fromString(results.get(1234).getId()), admin).await().indefinitely();
+        assertEquals("Content 1234", stored.getContent());
+        assertEquals("tenant1", stored.getTenantId());
+        assertEquals("alice", stored.getCreatedBy());
+    }
+
+    @Test
+    void createDocuments_nonAdmin_forbidden() {
+        AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+        Multi<Document> upload = Multi.createFrom().item(new Document("T", "C", null, null));
+
+        assertThrows(ForbiddenException.class,
+                () -> documentService.createDocuments(upload, viewer).collect().asList().await().indefinitely());
+    }
+
     @Test
     void createDocument_nonAdmin_forbidden() {
         when(jwt.getGroups()).thenReturn(Set.of("viewer"));
@@ -54,7 +98,7 @@ class DocumentServiceTest {
         doc.setTitle("Test");
 
         assertThrows(ForbiddenException.class, () -> {
-            documentService.createDocument(doc, jwt).await().indefinitely();
+            documentService.createDocument(doc, AuthContext.of(jwt)).await().indefinitely();
         });
     }
 
@@ -69,14 +113,14 @@ class DocumentServiceTest {
         Document doc = new Document();
         doc.setTitle("Doc1");
         doc.setContent("Content1");
-        Document created = documentService.createDocument(doc, jwt).await().indefinitely();
+        Document created = documentService.createDocument(doc, AuthContext.of(jwt)).await().indefinitely();
 
         // Step 2: switch JWT to viewer for fetching
         when(jwt.getGroups()).thenReturn(Set.of("viewer"));
         when(jwt.getName()).thenReturn("bob");
         when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
 
-        Document fetched = documentService.getDocumentById(created.getId(), jwt).await().indefinitely();
+        Document fetched = documentService.getDocumentById(created.getId(), AuthContext.of(jwt)).await().indefinitely();
 
         assertEquals(created.getId(), fetched.getId());
         assertEquals("Doc1", fetched.getTitle());
@@ -90,16 +134,48 @@ class DocumentServiceTest {
 
         Document doc = new Document();
         doc.setTitle("Doc1");
-        Document created = documentService.createDocument(doc, jwt).await().indefinitely();
+        Document created = documentService.createDocument(doc, AuthContext.of(jwt)).await().indefinitely();
 
         // Change JWT tenant
         when(jwt.getClaim("tenant_id")).thenReturn("tenant2");
 
         assertThrows(ForbiddenException.class, () -> {
-            documentService.getDocumentById(created.getId(), jwt).await().indefinitely();
+            documentService.getDocumentById(created.getId(), AuthContext.of(jwt)).await().indefinitely();
         });
     }
 
+    @Test
+    void getDocumentById_concurrentFetchesAreSharedButCheckedPerCaller() {
+        Document doc = new Document("Policy", "Shared", "tenant1", "alice");
+        AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        AuthContext otherTenant = new AuthContext("tenant2", "eve", AuthContext.ROLE_ADMIN, 0);
+        CompletableFuture<Document> leader = new CompletableFuture<>();
+        AtomicInteger fetches = new AtomicInteger();
+        Supplier<Uni<Document>> fetch = () -> {
+            fetches.incrementAndGet();
+            return Uni.createFrom().completionStage(leader);
+        };
+
+        CompletableFuture<Document> first = documentService.getDocumentById(doc.getId(), viewer, fetch)
+                .subscribeAsCompletionStage();
+        CompletableFuture<Document> second = documentService.getDocumentById(doc.getId(), admin, fetch)
+                .subscribeAsCompletionStage();
+        CompletableFuture<Document> foreign = documentService.getDocumentById(doc.getId(), otherTenant, fetch)
+                .subscribeAsCompletionStage();
+        assertEquals(2, fetches.get());
+
+        leader.complete(doc);
+        assertSame(doc, first.join());
+        assertSame(doc, second.join());
+        CompletionException refused = assertThrows(CompletionException.class, foreign::join);
+        assertInstanceOf(ForbiddenException.class, refused.getCause());
+
+        // Once the shared fetch is over, the next reader starts a new one
+        documentService.getDocumentById(doc.getId(), viewer, fetch).await().indefinitely();
+        assertEquals(3, fetches.get());
+    }
+
     // ----- getAllDocumentsForTenant tests -----
     @Test
     void getAllDocumentsForTenant_asAdmin() {
@@ -110,10 +186,10 @@ class DocumentServiceTest {
         // create docs
         Document d1 = new Document(); d1.setTitle("D1");
         Document d2 = new Document(); d2.setTitle("D2");
-        documentService.createDocument(d1, jwt).await().indefinitely();
-        documentService.createDocument(d2, jwt).await().indefinitely();
+        documentService.createDocument(d1, AuthContext.of(jwt)).await().indefinitely();
+        documentService.createDocument(d2, AuthContext.of(jwt)).await().indefinitely();
 
-        List<Document> docs = documentService.getAllDocumentsForTenant(jwt).await().indefinitely();
+        List<Document> docs = documentService.getAllDocumentsForTenant(AuthContext.of(jwt)).await().indefinitely();
         assertEquals(2, docs.size());
     }
 
@@ -128,14 +204,14 @@ class DocumentServiceTest {
         when(jwt.getName()).thenReturn("alice");
         Document d1 = new Document(); d1.setTitle("D1");
         Document d2 = new Document(); d2.setTitle("D2");
-        documentService.createDocument(d1, jwt).await().indefinitely();
-        documentService.createDocument(d2, jwt).await().indefinitely();
+        documentService.createDocument(d1, AuthContext.of(jwt)).await().indefinitely();
+        documentService.createDocument(d2, AuthContext.of(jwt)).await().indefinitely();
 
         // switch to viewer
         when(jwt.getGroups()).thenReturn(Set.of("viewer"));
         when(jwt.getName()).thenReturn("bob");
 
-        List<Document> docs = documentService.getAllDocumentsForTenant(jwt).await().indefinitely();
+        List<Document> docs = documentService.getAllDocumentsForTenant(AuthContext.of(jwt)).await().indefinitely();
         assertEquals(2, docs.size());
     }
 
@@ -148,12 +224,214 @@ class DocumentServiceTest {
 
         Document d1 = new Document(); d1.setTitle("D1");
         Document d2 = new Document(); d2.setTitle("D2");
-        documentService.createDocument(d1, jwt).await().indefinitely();
-        documentService.createDocument(d2, jwt).await().indefinitely();
+        documentService.createDocument(d1, AuthContext.of(jwt)).await().indefinitely();
+        documentService.createDocument(d2, AuthContext.of(jwt)).await().indefinitely();
 
-        List<Document> docs = documentService.getDocumentsByUser(jwt).await().indefinitely();
+        List<Document> docs = documentService.getDocumentsByUser(AuthContext.of(jwt)).await().indefinitely();
         assertEquals(2, docs.size());
     }
 
+    @Test
+    void summaries_neverReadBodies() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        DocumentService service = new DocumentService(store);
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+        ContentHandle body = mock(ContentHandle.class);
+        for (String title : List.of("D1", "D2", "D3")) {
+            Document doc = new Document(title, null, "tenant1", "alice");
+            doc.setContentHandle(body);
+            store.put(doc);
+        }
+        // Indexing on put reads the body; listing must not
+        clearInvocations(body);
+
+        List<DocumentSummary> summaries = service.getTenantSummaries(viewer).await().indefinitely();
+        DocumentPage<DocumentSummary> first = service.getTenantSummariesPage(null, 2, admin).await().indefinitely();
+        DocumentPage<DocumentSummary> rest = service.getUserSummariesPage(first.getNextCursor(), 2, admin)
+                .await().indefinitely();
+
+        assertEquals(3, summaries.size());
+        assertEquals("alice", summaries.get(0).getCreatedBy());
+        assertEquals(2, first.getItems().size());
+        assertEquals(1, rest.getItems().size());
+        assertNull(rest.getNextCursor());
+        assertTrue(service.getUserSummaries(viewer).await().indefinitely().isEmpty());
+        verifyNoInteractions(body);
+    }
 
+    // ----- pagination and streaming tests -----
+    @Test
+    void getTenantDocumentsPage_walksAllPagesWithoutDuplicates() {
+        when(jwt.getGroups()).thenReturn(Set.of("admin"));
+        when(jwt.getName()).thenReturn("alice");
+        when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
+
+        for (int i = 0; i < 5; i++) {
+            Document d = new Document(); d.setTitle("D" + i);
+            documentService.createDocument(d, AuthContext.of(jwt)).await().indefinitely();
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DocumentPage<Document> page = documentService.getTenantDocumentsPage(cursor, 2, AuthContext.of(jwt)).await().indefinitely();
+            page.getItems().forEach(d -> assertTrue(seen.add(d.getId())));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void getTenantDocumentsByCreation_pagesNewestOrOldestFirstWithinRange() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        DocumentService service = new DocumentService(store);
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        // Two documents per millisecond, with ids that do not sort by time
+        for (int i = 0; i < 10; i++) {
+            store.put(new Document(UUID.randomUUID(), "D" + i, "C", "tenant1", "alice", 1, 1000 + i / 2, 1000 + i / 2));
+        }
+        store.put(new Document(UUID.randomUUID(), "Other", "C", "tenant2", "bob", 1, 2000, 2000));
+
+        DocumentPage<Document> newest = service.getTenantDocumentsByCreation(null, null, true, null, 3, admin)
+                .await().indefinitely();
+        assertEquals(List.of(1004L, 1004L, 1003L), newest.getItems().stream().map(Document::getCreatedAt).toList());
+
+        for (boolean newestFirst : new boolean[]{true, false}) {
+            List<Long> times = new ArrayList<>();
+            Set<UUID> seen = new HashSet<>();
+            String cursor = null;
+            do {
+                DocumentPage<Document> page = service.getTenantDocumentsByCreation(1001L, 1004L, newestFirst, cursor, 4, admin)
+                        .await().indefinitely();
+                page.getItems().forEach(d -> {
+                    assertTrue(seen.add(d.getId()));
+                    times.add(d.getCreatedAt());
+                });
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(newestFirst ? List.of(1003L, 1003L, 1002L, 1002L, 1001L, 1001L)
+                    : List.of(1001L, 1001L, 1002L, 1002L, 1003L, 1003L), times);
+        }
+
+        Document oldest = service.getTenantDocumentsByCreation(null, null, false, null, 1, admin)
+                .await().indefinitely().getItems().get(0);
+        service.deleteDocument(oldest.getId(), null, admin).await().indefinitely();
+        assertEquals(9, service.getTenantDocumentsByCreation(null, null, false, null, 100, admin)
+                .await().indefinitely().getItems().size());
+
+        assertThrows(BadRequestException.class, () -> service
+                .getTenantDocumentsByCreation(1004L, 1001L, true, null, 4, admin).await().indefinitely());
+        String idCursor = service.getTenantDocumentsPage(null, 1, admin).await().indefinitely().getNextCursor();
+        assertThrows(BadRequestException.class, () -> service
+                .getTenantDocumentsByCreation(null, null, true, idCursor, 4, admin).await().indefinitely());
+    }
+
+    // ----- update and delete tests -----
+    @Test
+    void updateDocument_bumpsVersionAndKeepsOwnership() {
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        AuthContext otherAdmin = new AuthContext("tenant1", "carol", AuthContext.ROLE_ADMIN, 0);
+        Document created = documentService.createDocument(new Document("Draft", "alpha", null, null), admin)
+                .await().indefinitely();
+        assertEquals(1, created.getVersion());
+
+        Document patch = new Document();
+        patch.setTitle("Final");
+        Document patched = documentService.updateDocument(created.getId(), patch, 1L, true, otherAdmin)
+                .await().indefinitely();
+
+        assertEquals(2, patched.getVersion());
+        assertEquals(created.getCreatedAt(), patched.getCreatedAt());
+        assertTrue(patched.getUpdatedAt() >= created.getUpdatedAt());
+        assertEquals("Final", patched.getTitle());
+        assertEquals("alpha", patched.getContent());
+        assertEquals("alice", patched.getCreatedBy());
+        assertEquals(1, documentService.searchDocuments("final", 10, admin).await().indefinitely().size());
+        assertTrue(documentService.searchDocuments("draft", 10, admin).await().indefinitely().isEmpty());
+
+        Document replacement = new Document();
+        replacement.setTitle("Replaced");
+        Document replaced = documentService.updateDocument(created.getId(), replacement, null, false, admin)
+                .await().indefinitely();
+        assertEquals(3, replaced.getVersion());
+        assertNull(replaced.getContent());
+    }
+
+    @Test
+    void updateDocument_staleVersion_preconditionFailed() {
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        Document created = documentService.createDocument(new Document("T", "C", null, null), admin)
+                .await().indefinitely();
+        documentService.updateDocument(created.getId(), new Document("T2", "C2", null, null), 1L, false, admin)
+                .await().indefinitely();
+
+        ClientErrorException stale = assertThrows(ClientErrorException.class, () -> documentService
+                .updateDocument(created.getId(), new Document("T3", "C3", null, null), 1L, false, admin)
+                .await().indefinitely());
+        assertEquals(412, stale.getResponse().getStatus());
+        assertThrows(ClientErrorException.class,
+                () -> documentService.deleteDocument(created.getId(), 1L, admin).await().indefinitely());
+
+        documentService.deleteDocument(created.getId(), 2L, admin).await().indefinitely();
+        assertThrows(NotFoundException.class,
+                () -> documentService.getDocumentById(created.getId(), admin).await().indefinitely());
+    }
+
+    @Test
+    void updateAndDelete_viewerOrOtherTenant_forbidden() {
+        AuthContext admin = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+        AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+        AuthContext foreignAdmin = new AuthContext("tenant2", "mallory", AuthContext.ROLE_ADMIN, 0);
+        UUID id = documentService.createDocument(new Document("T", "C", null, null), admin)
+                .await().indefinitely().getId();
+
+        assertThrows(ForbiddenException.class, () -> documentService
+                .updateDocument(id, new Document("X", "X", null, null), null, false, viewer).await().indefinitely());
+        assertThrows(ForbiddenException.class, () -> documentService
+                .updateDocument(id, new Document("X", "X", null, null), null, false, foreignAdmin).await().indefinitely());
+        assertThrows(ForbiddenException.class,
+                () -> documentService.deleteDocument(id, null, foreignAdmin).await().indefinitely());
+        assertEquals("T", documentService.getDocumentById(id, admin).await().indefinitely().getTitle());
+    }
+
+    @Test
+    void searchDocuments_blankQuery_badRequest() {
+        AuthContext viewer = new AuthContext("tenant1", "bob", AuthContext.ROLE_VIEWER, 0);
+
+        assertThrows(BadRequestException.class,
+                () -> documentService.searchDocuments("  ", 10, viewer).await().indefinitely());
+    }
+
+    @Test
+    void getTenantDocumentsPage_invalidCursor_badRequest() {
+        when(jwt.getGroups()).thenReturn(Set.of("viewer"));
+        when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
+
+        assertThrows(BadRequestException.class, () -> {
+            documentService.getTenantDocumentsPage("not-a-cursor", 10, AuthContext.of(jwt)).await().indefinitely();
+        });
+    }
+
+    @Test
+    void streamUserDocuments_viewer_seesOnlyOwn() {
+        when(jwt.getGroups()).thenReturn(Set.of("admin"));
+        when(jwt.getName()).thenReturn("alice");
+        when(jwt.getClaim("tenant_id")).thenReturn("tenant1");
+        Document d1 = new Document(); d1.setTitle("D1");
+        documentService.createDocument(d1, AuthContext.of(jwt)).await().indefinitely();
+
+        when(jwt.getGroups()).thenReturn(Set.of("viewer"));
+        when(jwt.getName()).thenReturn("bob");
+
+        List<Document> streamed = documentService.streamUserDocuments(AuthContext.of(jwt)).collect().asList().await().indefinitely();
+        assertTrue(streamed.isEmpty());
+
+        List<Document> tenant = documentService.streamTenantDocuments(AuthContext.of(jwt)).collect().asList().await().indefinitely();
+        assertEquals(1, tenant.size());
+    }
 }
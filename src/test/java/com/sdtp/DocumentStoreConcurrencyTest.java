@@ -0,0 +1,321 @@
+package com.sdtp;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.model.ChangeEvent;
+import com.sdtp.model.Document;
+import com.sdtp.service.DocumentService;
+import com.sdtp.service.StoreExecutor;
+import com.sdtp.store.InMemoryDocumentStore;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests proving the store loses no updates under heavy concurrent writes.
+ */
+class DocumentStoreConcurrencyTest {
+
+    static final int THREADS = 64;
+    static final int DOCS_PER_THREAD = 500;
+    static final int TENANTS = 4;
+
+    InMemoryDocumentStore store;
+    DocumentService documentService;
+
+    @BeforeEach
+    void setup() {
+        store = new InMemoryDocumentStore();
+        documentService = new DocumentService(store);
+    }
+
+    @Test
+    void concurrentCreates_noLostUpdates() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<UUID> created = new ConcurrentLinkedQueue<>();
+        AtomicInteger readMisses = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    JsonWebToken admin = new StaticJwt("admin-" + thread, Set.of("admin"), "tenant" + (thread % TENANTS));
+                    start.await();
+                    for (int i = 0; i < DOCS_PER_THREAD; i++) {
+                        Document doc = new Document();
+                        doc.setTitle("T" + thread + "-" + i);
+                        Document saved = documentService.createDocument(doc, AuthContext.of(admin)).await().indefinitely();
+                        created.add(saved.getId());
+                        // Read-your-write from a concurrently mutated store
+                        if (documentService.getDocumentById(saved.getId(), AuthContext.of(admin)).await().indefinitely() == null) {
+                            readMisses.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(0, readMisses.get());
+        assertEquals(THREADS * DOCS_PER_THREAD, created.size());
+        assertEquals(THREADS * DOCS_PER_THREAD, store.size());
+        assertEquals(THREADS * DOCS_PER_THREAD, store.values().size());
+        for (UUID id : created) {
+            assertNotNull(store.get(id));
+        }
+
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            JsonWebToken viewer = new StaticJwt("viewer", Set.of("viewer"), "tenant" + tenant);
+            List<Document> docs = documentService.getAllDocumentsForTenant(AuthContext.of(viewer)).await().indefinitely();
+            assertEquals(THREADS / TENANTS * DOCS_PER_THREAD, docs.size());
+        }
+    }
+
+    @Test
+    void concurrentPutAndRemove_sizeStaysConsistent() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < DOCS_PER_THREAD; i++) {
+                        Document doc = new Document("T", "C", "tenant" + (thread % TENANTS), "u" + thread);
+                        store.put(doc);
+                        // Every other document is removed again by the same writer
+                        if (i % 2 == 0) {
+                            assertSame(doc, store.remove(doc.getId()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(THREADS * DOCS_PER_THREAD / 2, store.size());
+        assertEquals(THREADS * DOCS_PER_THREAD / 2, store.values().size());
+    }
+
+    @Test
+    void concurrentWrites_secondaryIndexesStayConsistent() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < DOCS_PER_THREAD; i++) {
+                        Document doc = new Document("T", "C", "tenant" + (thread % TENANTS), "u" + thread);
+                        store.put(doc);
+                        if (i % 2 == 0) {
+                            // Re-assign every other document to a shared creator, then drop a quarter entirely
+                            store.put(new Document(doc.getId(), "T", "C", doc.getTenantId(), "shared"));
+                            if (i % 4 == 0) store.remove(doc.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int perThreadOwn = DOCS_PER_THREAD / 2;
+        int perThreadShared = DOCS_PER_THREAD / 4;
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(perThreadOwn, store.findByCreator("tenant" + (t % TENANTS), "u" + t).size());
+        }
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            int threadsPerTenant = THREADS / TENANTS;
+            assertEquals(threadsPerTenant * perThreadShared, store.findByCreator("tenant" + tenant, "shared").size());
+            assertEquals(threadsPerTenant * (perThreadOwn + perThreadShared), store.findByTenant("tenant" + tenant).size());
+            assertEquals(threadsPerTenant * (perThreadOwn + perThreadShared), store.countByTenant("tenant" + tenant));
+        }
+        assertTrue(store.findByTenant("unknown").isEmpty());
+        assertEquals(0, store.countByTenant("unknown"));
+    }
+
+    @Test
+    void concurrentUpdates_versionCountsEveryAppliedWrite() throws Exception {
+        AuthContext admin = new AuthContext("tenant0", "admin", AuthContext.ROLE_ADMIN, 0);
+        Document doc = documentService.createDocument(new Document("T", "C", null, null), admin).await().indefinitely();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conditionalWins = new AtomicInteger();
+        int updatesPerThread = 50;
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        Document patch = new Document();
+                        patch.setTitle("T" + thread + "-" + i);
+                        if (thread % 2 == 0) {
+                            // Unconditional: retried on conflict, so it always lands
+                            documentService.updateDocument(doc.getId(), patch, null, true, admin).await().indefinitely();
+                        } else {
+                            long seen = store.get(doc.getId()).getVersion();
+                            try {
+                                documentService.updateDocument(doc.getId(), patch, seen, true, admin).await().indefinitely();
+                                conditionalWins.incrementAndGet();
+                            } catch (ClientErrorException e) {
+                                assertEquals(412, e.getResponse().getStatus());
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long applied = THREADS / 2 * updatesPerThread + conditionalWins.get();
+        Document last = store.get(doc.getId());
+        assertEquals(1 + applied, last.getVersion());
+        assertEquals("C", last.getContent());
+        assertEquals(1, store.countByTenant("tenant0"));
+    }
+
+    @Test
+    void updateRacingDelete_changeLogNeverUpdatesAfterDelete() throws Exception {
+        int rounds = 2000;
+        ChangeLog changeLog = new ChangeLog(rounds * 3, Runnable::run);
+        DocumentService service = new DocumentService(store, DocumentMetrics.NOOP, StoreExecutor.INLINE, changeLog);
+        AuthContext admin = new AuthContext("tenant0", "admin", AuthContext.ROLE_ADMIN, 0);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            ids.add(service.createDocument(new Document("T", "C", null, null), admin).await().indefinitely().getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CyclicBarrier together = new CyclicBarrier(2);
+        try {
+            Future<?> updates = pool.submit(() -> {
+                for (UUID id : ids) {
+                    together.await();
+                    Document patch = new Document();
+                    patch.setTitle("T2");
+                    try {
+                        service.updateDocument(id, patch, null, true, admin).await().indefinitely();
+                    } catch (NotFoundException e) {
+                        // Deleted first
+                    }
+                }
+                return null;
+            });
+            Future<?> deletes = pool.submit(() -> {
+                for (UUID id : ids) {
+                    together.await();
+                    service.deleteDocument(id, null, admin).await().indefinitely();
+                }
+                return null;
+            });
+            updates.get(60, TimeUnit.SECONDS);
+            deletes.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        AssertSubscriber<ChangeEvent> events = changeLog.subscribe("tenant0", 0L).subscribe()
+                .withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        Map<UUID, ChangeEvent> last = new HashMap<>();
+        for (ChangeEvent event : events.getItems()) {
+            ChangeEvent previous = last.put(event.getDocumentId(), event);
+            if (previous != null) {
+                assertNotEquals(ChangeEvent.Type.DELETED, previous.getType(), "event after the delete of " + event.getDocumentId());
+                assertTrue(event.getVersion() > previous.getVersion()
+                        || event.getType() == ChangeEvent.Type.DELETED && event.getVersion() == previous.getVersion());
+            }
+        }
+        assertEquals(rounds, last.size());
+        for (ChangeEvent event : last.values()) {
+            assertEquals(ChangeEvent.Type.DELETED, event.getType());
+        }
+    }
+
+    static class StaticJwt implements JsonWebToken {
+        final String name;
+        final Set<String> groups;
+        final String tenantId;
+
+        StaticJwt(String name, Set<String> groups, String tenantId) {
+            this.name = name;
+            this.groups = groups;
+            this.tenantId = tenantId;
+        }
+
+        @Override
+        public Set<String> getGroups() { return groups; }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getClaim(String claimName) {
+            if ("tenant_id".equals(claimName)) return (T) tenantId;
+            return null;
+        }
+
+        @Override
+        public Set<String> getClaimNames() { return Set.of("tenant_id"); }
+    }
+}
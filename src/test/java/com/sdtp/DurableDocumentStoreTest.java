@@ -0,0 +1,278 @@
+package com.sdtp;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.DurableDocumentStore;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.wal.FsyncPolicy;
+import com.sdtp.store.wal.LogRecords;
+import com.sdtp.store.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableDocumentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    DurableDocumentStore open(long segmentBytes) {
+        return new DurableDocumentStore(new InMemoryDocumentStore(), dir, FsyncPolicy.ALWAYS, Duration.ofMillis(10), segmentBytes, Duration.ofHours(1));
+    }
+
+    @Test
+    void restart_replaysLog() throws IOException {
+        List<Document> docs = new ArrayList<>();
+        try (DurableDocumentStore store = open(1 << 20)) {
+            for (int i = 0; i < 100; i++) {
+                Document doc = new Document("T" + i, "Content " + i, "tenant" + (i % 3), "alice");
+                store.put(doc);
+                docs.add(doc);
+            }
+            store.remove(docs.get(0).getId());
+        }
+
+        try (DurableDocumentStore store = open(1 << 20)) {
+            assertEquals(99, store.size());
+            assertNull(store.get(docs.get(0).getId()));
+            Document restored = store.get(docs.get(42).getId());
+            assertEquals("T42", restored.getTitle());
+            assertEquals("Content 42", restored.getContent());
+            assertEquals("tenant0", restored.getTenantId());
+            assertEquals("alice", restored.getCreatedBy());
+            assertEquals(docs.get(42).getCreatedAt(), restored.getCreatedAt());
+            assertEquals(33, store.findByTenant("tenant0").size());
+            // The creation index is rebuilt too; the newest tenant0 document is the 100th (i = 99)
+            assertEquals(docs.get(99).getId(),
+                    store.scanCreated("tenant0", Long.MIN_VALUE, Long.MAX_VALUE, true, null).iterator().next().getId());
+        }
+    }
+
+    @Test
+    void snapshot_compactsSegmentsAndKeepsLaterWrites() throws IOException {
+        Document kept;
+        Document late;
+        try (DurableDocumentStore store = open(512)) {
+            for (int i = 0; i < 50; i++) {
+                store.put(new Document("T" + i, "C", "tenant1", "alice"));
+            }
+            kept = new Document("Kept", "C", "tenant1", "alice");
+            store.put(kept);
+
+            store.snapshot();
+            assertEquals(1, countFiles(".snap"));
+            assertEquals(1, countFiles(".wal"));
+
+            late = new Document("Late", "C", "tenant1", "bob");
+            store.put(late);
+            store.remove(kept.getId());
+        }
+
+        try (DurableDocumentStore store = open(512)) {
+            assertEquals(51, store.size());
+            assertNull(store.get(kept.getId()));
+            assertEquals("Late", store.get(late.getId()).getTitle());
+        }
+    }
+
+    @Test
+    void snapshot_isLoadedOnSeveralThreadsBeforeTheLog() throws IOException {
+        List<Document> docs = new ArrayList<>();
+        Document updated;
+        try (DurableDocumentStore store = open(1 << 20)) {
+            for (int i = 0; i < 5000; i++) {
+                Document doc = new Document("T" + i, "Content " + i, "tenant" + (i % 4), "alice");
+                docs.add(doc);
+            }
+            store.putAll(docs);
+            store.snapshot();
+
+            store.remove(docs.get(0).getId());
+            Document current = docs.get(1);
+            updated = new Document(current.getId(), "Updated", "New content", current.getTenantId(), "alice",
+                    current.getVersion() + 1);
+            assertTrue(store.replace(current, updated));
+        }
+
+        try (DurableDocumentStore store = new DurableDocumentStore(new InMemoryDocumentStore(), dir,
+                FsyncPolicy.ALWAYS, Duration.ofMillis(10), 1 << 20, Duration.ofHours(1), 4)) {
+            assertEquals(4999, store.size());
+            assertNull(store.get(docs.get(0).getId()));
+            assertEquals("New content", store.get(updated.getId()).getContent());
+            assertEquals(1250, store.findByTenant("tenant2").size());
+            assertEquals("Content 4321", store.get(docs.get(4321).getId()).getContent());
+        }
+    }
+
+    @Test
+    void putAll_isRecoveredAsOneRecordPerDocument() throws IOException {
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            docs.add(new Document("T" + i, "Content " + i, "tenant1", "alice"));
+        }
+        try (DurableDocumentStore store = open(1 << 20)) {
+            store.putAll(docs);
+            assertEquals(20, store.countByTenant("tenant1"));
+        }
+
+        try (DurableDocumentStore store = open(1 << 20)) {
+            assertEquals(20, store.size());
+            assertEquals("Content 7", store.get(docs.get(7).getId()).getContent());
+        }
+    }
+
+    @Test
+    void replaceAndConditionalRemove_areRecoveredWithVersions() throws IOException {
+        Document kept = new Document("T", "C", "tenant1", "alice");
+        Document dropped = new Document("D", "C", "tenant1", "alice");
+        try (DurableDocumentStore store = open(1 << 20)) {
+            store.put(kept);
+            store.put(dropped);
+            Document updated = new Document(kept.getId(), "T2", "C2", "tenant1", "alice", 2);
+            assertTrue(store.replace(kept, updated));
+            assertFalse(store.replace(kept, new Document(kept.getId(), "Lost", "C", "tenant1", "alice", 2)));
+            assertTrue(store.remove(dropped));
+            assertFalse(store.remove(dropped));
+        }
+
+        try (DurableDocumentStore store = open(1 << 20)) {
+            assertEquals(1, store.size());
+            Document restored = store.get(kept.getId());
+            assertEquals("T2", restored.getTitle());
+            assertEquals(2, restored.getVersion());
+        }
+    }
+
+    @Test
+    void failedAppend_isNeitherVisibleNorRecovered() throws IOException {
+        Path blocked = dir.resolve(String.format("segment-%020d.wal", 1));
+        Document logged = new Document("Logged", "C", "tenant1", "alice");
+        Document failed = new Document("Failed", "C", "tenant1", "alice");
+        Document after = new Document("After", "C", "tenant1", "alice");
+        try (DurableDocumentStore store = open(1)) {
+            // Every group rolls the segment; a directory where segment 1 belongs makes that roll fail
+            Files.createDirectories(blocked);
+            store.put(logged);
+            assertThrows(IllegalStateException.class, () -> store.put(failed));
+            assertNull(store.get(failed.getId()));
+            assertEquals(1, store.findByTenant("tenant1").size());
+
+            // The log has moved on to a new segment and takes appends again
+            store.put(after);
+            assertSame(after, store.get(after.getId()));
+        }
+        Files.delete(blocked);
+
+        try (DurableDocumentStore store = open(1)) {
+            assertEquals(2, store.size());
+            assertNotNull(store.get(logged.getId()));
+            assertNull(store.get(failed.getId()));
+            assertNotNull(store.get(after.getId()));
+        }
+    }
+
+    @Test
+    void appendsRacingClose_completeOrFail() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            WriteAheadLog wal = new WriteAheadLog(dir.resolve("race-" + round), 0, FsyncPolicy.NEVER,
+                    Duration.ofMillis(10), 1 << 20);
+            ConcurrentLinkedQueue<CompletableFuture<Long>> appended = new ConcurrentLinkedQueue<>();
+            ExecutorService appenders = Executors.newFixedThreadPool(4);
+            try {
+                for (int t = 0; t < 4; t++) {
+                    appenders.submit(() -> {
+                        try {
+                            while (true) {
+                                appended.add(wal.append(LogRecords.remove(UUID.randomUUID())));
+                            }
+                        } catch (IllegalStateException closed) {
+                            return null;
+                        }
+                    });
+                }
+                Thread.sleep(5);
+                wal.close();
+            } finally {
+                appenders.shutdown();
+                assertTrue(appenders.awaitTermination(10, TimeUnit.SECONDS));
+            }
+            // An append the writer never took would leave its caller waiting forever
+            for (CompletableFuture<Long> append : appended) {
+                try {
+                    append.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException failed) {
+                    assertInstanceOf(IllegalStateException.class, failed.getCause());
+                }
+            }
+        }
+    }
+
+    @Test
+    void corruptSnapshot_failsRecovery() throws IOException {
+        try (DurableDocumentStore store = open(1 << 20)) {
+            for (int i = 0; i < 10; i++) {
+                store.put(new Document("T" + i, "C", "tenant1", "alice"));
+            }
+            store.snapshot();
+        }
+
+        Path snapshot = newestFile(".snap");
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), Files.size(snapshot) / 2);
+        }
+
+        assertThrows(UncheckedIOException.class, () -> open(1 << 20));
+    }
+
+    @Test
+    void tornTail_isTruncatedOnRecovery() throws IOException {
+        Document doc = new Document("T", "C", "tenant1", "alice");
+        try (DurableDocumentStore store = open(1 << 20)) {
+            store.put(doc);
+        }
+
+        // Simulate a crash in the middle of writing the next record
+        Path segment = newestFile(".wal");
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 42, 42}));
+        }
+
+        try (DurableDocumentStore store = open(1 << 20)) {
+            assertEquals(1, store.size());
+            assertEquals("T", store.get(doc.getId()).getTitle());
+        }
+        assertEquals(intactSize, Files.size(segment));
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(suffix)).count();
+        }
+    }
+
+    private Path newestFile(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(suffix)).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.sdtp;
+
+import com.sdtp.cluster.HashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void placement_isDeterministicAndDistinct() {
+        HashRing ring = new HashRing(List.of("node-1", "node-2", "node-3"), 128);
+        HashRing reordered = new HashRing(List.of("node-3", "node-1", "node-2"), 128);
+
+        for (int i = 0; i < 100; i++) {
+            String key = "tenant-" + i;
+            List<String> owners = ring.owners(key, 2);
+            assertEquals(reordered.owners(key, 2), owners);
+            assertEquals(2, owners.stream().distinct().count());
+            assertEquals(ring.owner(key), owners.get(0));
+        }
+        assertEquals(3, ring.owners("tenant-0", 5).size());
+    }
+
+    @Test
+    void keys_spreadEvenly_andAddingANodeMovesAboutItsShare() {
+        HashRing three = new HashRing(List.of("node-1", "node-2", "node-3"), 128);
+        HashRing four = new HashRing(List.of("node-1", "node-2", "node-3", "node-4"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "tenant-" + i;
+            counts.merge(three.owner(key), 1, Integer::sum);
+            String after = four.owner(key);
+            if (!after.equals(three.owner(key))) {
+                moved++;
+                // Keys only move to the new node
+                assertEquals("node-4", after);
+            }
+        }
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - KEYS / 3) < KEYS / 3 * 0.2, "unbalanced: " + counts);
+        }
+        assertTrue(moved > KEYS / 4 * 0.7 && moved < KEYS / 4 * 1.3, "moved " + moved);
+    }
+}
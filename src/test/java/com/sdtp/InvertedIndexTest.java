@@ -0,0 +1,88 @@
+package com.sdtp;
+
+import com.sdtp.model.Document;
+import com.sdtp.model.SearchHit;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.search.InvertedIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    @Test
+    void search_ranksTitleAndFrequentMatchesFirst() {
+        InvertedIndex index = new InvertedIndex();
+        UUID inTitle = UUID.randomUUID();
+        UUID twice = UUID.randomUUID();
+        UUID once = UUID.randomUUID();
+        index.index(once, "Notes", "the quarterly report is late");
+        index.index(twice, "Notes", "the report on the report and more context");
+        index.index(inTitle, "Report", "numbers for the board");
+        index.index(UUID.randomUUID(), "Lunch", "menu for friday");
+
+        List<InvertedIndex.Hit> hits = index.search("REPORT", 10);
+
+        assertEquals(List.of(inTitle, twice, once), hits.stream().map(InvertedIndex.Hit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertTrue(hits.get(1).score() > hits.get(2).score());
+        assertEquals(1, index.search("report board", 1).size());
+        assertTrue(index.search("missing", 10).isEmpty());
+    }
+
+    @Test
+    void replaceAndRemove_updateTheIndex() {
+        InvertedIndex index = new InvertedIndex();
+        UUID id = UUID.randomUUID();
+        index.index(id, "Draft", "alpha");
+        index.index(id, "Final", "beta");
+
+        assertTrue(index.search("alpha draft", 10).isEmpty());
+        assertEquals(id, index.search("beta", 10).get(0).id());
+
+        index.remove(id);
+        assertTrue(index.search("beta final", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void compaction_keepsLiveDocumentsSearchable() {
+        InvertedIndex index = new InvertedIndex();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.index(id, "Doc " + i, "shared term" + (i % 10));
+        }
+        for (int i = 0; i < 5000; i++) {
+            if (i % 10 != 0) index.remove(ids.get(i));
+        }
+
+        assertEquals(500, index.size());
+        List<InvertedIndex.Hit> hits = index.search("term0", 1000);
+        assertEquals(500, hits.size());
+        assertTrue(index.search("term1", 10).isEmpty());
+        assertEquals(ids.get(4990), index.search("4990", 10).get(0).id());
+    }
+
+    @Test
+    void store_searchIsIsolatedPerTenant() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        Document mine = new Document("Budget", "secret plans", "tenant1", "alice");
+        store.put(mine);
+        store.put(new Document("Budget", "secret plans", "tenant2", "mallory"));
+
+        List<SearchHit> hits = store.search("tenant1", "secret budget", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals(mine.getId(), hits.get(0).getDocument().getId());
+        assertTrue(store.search("tenant3", "secret", 10).isEmpty());
+
+        store.remove(mine.getId());
+        assertTrue(store.search("tenant1", "secret", 10).isEmpty());
+    }
+}
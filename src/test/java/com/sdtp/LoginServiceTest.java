@@ -0,0 +1,116 @@
+package com.sdtp;
+
+import com.sdtp.auth.FileUserRepository;
+import com.sdtp.auth.LoginService;
+import com.sdtp.auth.PasswordHasher;
+import com.sdtp.auth.TokenIssuer;
+import com.sdtp.auth.User;
+import io.smallrye.jwt.algorithm.SignatureAlgorithm;
+import io.smallrye.jwt.util.KeyUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginServiceTest {
+
+    private static final PasswordHasher HASHER = new PasswordHasher(1_000);
+
+    @TempDir
+    Path directory;
+
+    private ExecutorService pool;
+    private FileUserRepository users;
+    private TokenIssuer issuer;
+    private LoginService logins;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = directory.resolve("users.txt");
+        Files.write(file, List.of(
+                "# test accounts",
+                "alice:tenant-1:admin,viewer:" + HASHER.hash("secret"),
+                "",
+                "bob:tenant-2:viewer:" + HASHER.hash("hunter2")));
+        pool = Executors.newSingleThreadExecutor();
+        users = new FileUserRepository(Optional.of(file.toString()));
+        issuer = new TokenIssuer(KeyUtils.generateSecretKey(SignatureAlgorithm.HS256),
+                Duration.ofMinutes(30), Duration.ofDays(1), 1_000);
+        logins = new LoginService(users, issuer, HASHER, pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void hasher_verifiesOnlyTheOriginalPassword() {
+        String hash = HASHER.hash("secret");
+
+        assertNotEquals(hash, HASHER.hash("secret"), "every hash gets its own salt");
+        assertTrue(HASHER.verify("secret", hash));
+        assertTrue(new PasswordHasher(5).verify("secret", hash), "iterations travel with the hash");
+        assertFalse(HASHER.verify("Secret", hash));
+        assertFalse(HASHER.verify("secret", "plaintext"));
+    }
+
+    @Test
+    void repository_indexesUsersFromFile() {
+        User alice = users.findByUsername("alice");
+
+        assertEquals("tenant-1", alice.tenantId());
+        assertEquals(Set.of("admin", "viewer"), alice.roles());
+        assertEquals("tenant-2", users.findByUsername("bob").tenantId());
+        assertNull(users.findByUsername("carol"));
+    }
+
+    @Test
+    void login_validPasswordOnly() {
+        TokenIssuer.Tokens tokens = logins.login("alice", "secret").await().indefinitely();
+
+        assertNotNull(tokens.token());
+        assertNotNull(tokens.refreshToken());
+        assertEquals(1800, tokens.expiresIn());
+        assertNull(logins.login("alice", "hunter2").await().indefinitely());
+        assertNull(logins.login("carol", "secret").await().indefinitely());
+    }
+
+    @Test
+    void refresh_tokenWorksOnceAndRotates() {
+        TokenIssuer.Tokens first = logins.login("bob", "hunter2").await().indefinitely();
+
+        TokenIssuer.Tokens second = logins.refresh(first.refreshToken());
+
+        assertNotNull(second);
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        assertNull(logins.refresh(first.refreshToken()), "a refresh token is single-use");
+        assertNotNull(logins.refresh(second.refreshToken()));
+        assertNull(logins.refresh("forged"));
+    }
+
+    @Test
+    void replicaToken_isReusedUntilNearExpiry() throws Exception {
+        String token = issuer.replicaToken("node-1");
+
+        assertEquals(token, issuer.replicaToken("node-1"));
+        assertNotEquals(token, issuer.replicaToken("node-2"));
+
+        TokenIssuer shortLived = new TokenIssuer(KeyUtils.generateSecretKey(SignatureAlgorithm.HS256),
+                Duration.ofMillis(20), Duration.ofDays(1), 1_000);
+        String first = shortLived.replicaToken("node-1");
+        Thread.sleep(30);
+        assertNotEquals(first, shortLived.replicaToken("node-1"));
+    }
+}
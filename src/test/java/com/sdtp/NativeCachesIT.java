@@ -0,0 +1,68 @@
+package com.sdtp;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every Caffeine cache of the built application, jar or native executable
+ * ({@code ./mvnw verify -Dnative}): a native image without their generated classes registered
+ * (see {@code NativeReflection}) fails on a cache's first use.
+ */
+@QuarkusIntegrationTest
+@TestProfile(NativeCachesIT.TieredBodies.class)
+public class NativeCachesIT {
+
+    public static class TieredBodies implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "document.store.content.storage", "tiered",
+                    "document.store.content.off-heap-threshold", "1",
+                    "document.store.content.directory", "target/native-caches-it");
+        }
+    }
+
+    @Test
+    void everyCache_isUsable() {
+        // TokenIssuer: refresh tokens
+        Response login = given().contentType(ContentType.JSON)
+                .body(Map.of("username", "adminA", "password", "adminApass"))
+                .post("/login");
+        assertEquals(200, login.statusCode());
+        Response refreshed = given().contentType(ContentType.JSON)
+                .body(Map.of("refreshToken", login.path("refreshToken")))
+                .post("/login/refresh");
+        assertEquals(200, refreshed.statusCode());
+        String token = refreshed.path("token");
+
+        // AuthContextCache: the token's caller context; TieredContentStore: the body
+        Response created = given().auth().oauth2(token).contentType(ContentType.JSON)
+                .body(Map.of("title", "Cached", "content", "Body kept in a tiered segment"))
+                .post("/documents");
+        assertEquals(201, created.statusCode());
+        String id = created.path("id");
+
+        // Bodies held off-heap are never cached serialized, so single reads come from the store
+        for (int i = 0; i < 2; i++) {
+            Response read = given().auth().oauth2(token).accept(ContentType.JSON).get("/documents/" + id);
+            assertEquals(200, read.statusCode());
+            assertEquals("Body kept in a tiered segment", read.path("content"));
+        }
+
+        // ResponseCache: the second list is served from the tenant's serialized entry
+        for (int i = 0; i < 2; i++) {
+            Response list = given().auth().oauth2(token).accept(ContentType.JSON).get("/documents/tenant");
+            assertEquals(200, list.statusCode());
+            assertTrue(list.jsonPath().getList("id").contains(id));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sdtp;
+
+import com.sdtp.auth.AuthContext;
+import com.sdtp.changes.ChangeLog;
+import com.sdtp.cluster.Replicas;
+import com.sdtp.cluster.ReplicationSource;
+import com.sdtp.grpc.ReplicationOuterClass.ReplicationEntry;
+import com.sdtp.metrics.DocumentMetrics;
+import com.sdtp.model.Document;
+import com.sdtp.service.DocumentService;
+import com.sdtp.service.StoreExecutor;
+import com.sdtp.store.InMemoryDocumentStore;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+
+    private static final AuthContext ADMIN = new AuthContext("tenant1", "alice", AuthContext.ROLE_ADMIN, 0);
+
+    // Feed the change log's subscribers on the writing thread so replication is synchronous
+    private final ChangeLog changeLog = new ChangeLog(64, Runnable::run);
+    private final InMemoryDocumentStore leaderStore = new InMemoryDocumentStore();
+    private final DocumentService leader =
+            new DocumentService(leaderStore, DocumentMetrics.NOOP, StoreExecutor.INLINE, changeLog);
+    private final ReplicationSource source = new ReplicationSource(leaderStore, changeLog);
+    private final InMemoryDocumentStore followerStore = new InMemoryDocumentStore();
+    private final Replicas follower = new Replicas(followerStore, TimeUnit.SECONDS.toNanos(60));
+
+    @Test
+    void follower_convergesOnSnapshotThenLiveChanges() {
+        Document kept = create("kept");
+        Document removed = create("removed");
+        // Left over from an earlier leader; the snapshot's reset drops it
+        followerStore.put(new Document("stale", "old", "tenant1", "alice"));
+
+        AssertSubscriber<ReplicationEntry> entries = source.entries("tenant1")
+                .onItem().invoke(follower::apply)
+                .subscribe().withSubscriber(AssertSubscriber.create(2));
+        // Mid-snapshot: not current, even though what has arrived is up to date
+        assertFalse(follower.isCurrent("tenant1"));
+
+        entries.request(Long.MAX_VALUE);
+        assertTrue(follower.isCurrent("tenant1"));
+        assertEquals(contents(leaderStore), contents(followerStore));
+
+        update(kept, "edited");
+        leader.deleteDocument(removed.getId(), null, ADMIN).await().indefinitely();
+        Document added = create("added");
+
+        assertEquals(contents(leaderStore), contents(followerStore));
+        assertEquals(2, followerStore.get(kept.getId()).getVersion());
+        assertEquals(added.getId(), followerStore.get(added.getId()).getId());
+        assertEquals(changeLog.lastSequence("tenant1"), follower.sequence("tenant1"));
+        assertTrue(follower.isCurrent("tenant1"));
+    }
+
+    @Test
+    void olderEntries_neverOverwriteNewerState() {
+        Document doc = create("v1");
+        List<ReplicationEntry> snapshot = source.entries("tenant1")
+                .select().first(3)
+                .collect().asList().await().indefinitely();
+        update(doc, "v2");
+
+        source.entries("tenant1").select().first(3).subscribe().with(follower::apply);
+        // A replayed snapshot from before the update arrives late
+        snapshot.stream().filter(e -> e.getKind() == ReplicationEntry.Kind.PUT).forEach(follower::apply);
+
+        assertEquals("v2", followerStore.get(doc.getId()).getContent());
+        assertTrue(follower.isCurrent("tenant1"));
+
+        Replicas stale = new Replicas(new InMemoryDocumentStore(), 0);
+        snapshot.forEach(stale::apply);
+        assertFalse(stale.isCurrent("tenant1"));
+    }
+
+    private Document create(String content) {
+        return leader.createDocument(new Document("Title", content, null, null), ADMIN).await().indefinitely();
+    }
+
+    private void update(Document doc, String content) {
+        Document changes = new Document();
+        changes.setContent(content);
+        leader.updateDocument(doc.getId(), changes, null, true, ADMIN).await().indefinitely();
+    }
+
+    private static Map<String, String> contents(InMemoryDocumentStore store) {
+        return store.findByTenant("tenant1").stream()
+                .collect(Collectors.toMap(doc -> doc.getId().toString(), Document::getContent));
+    }
+}
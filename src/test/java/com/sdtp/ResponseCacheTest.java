@@ -0,0 +1,172 @@
+package com.sdtp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sdtp.model.Document;
+import com.sdtp.rest.ResponseCache;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.SlabContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final ResponseCache cache = new ResponseCache(objectMapper, new SimpleMeterRegistry(), new MemorySize(BigInteger.valueOf(1 << 20)));
+
+    @Test
+    void document_isSerializedOncePerVersion() throws Exception {
+        Document v1 = new Document(UUID.randomUUID(), "T", "C", "tenant1", "alice", 1);
+        Document v2 = new Document(v1.getId(), "T", "C2", "tenant1", "alice", 2);
+
+        ResponseCache.Entry first = entry(cache, v1);
+        assertSame(first, entry(cache, v1));
+        assertArrayEquals(objectMapper.writeValueAsBytes(v1), first.body());
+
+        ResponseCache.Entry second = entry(cache, v2);
+        assertNotEquals(first.etag(), second.etag());
+        assertSame(second, entry(cache, v2));
+        // Same id and version, same tag: the tag is taken from them, not from the bytes
+        assertEquals(second.etag(), entry(new ResponseCache(objectMapper, new SimpleMeterRegistry(),
+                new MemorySize(BigInteger.valueOf(1 << 20))), v2).etag());
+    }
+
+    @Test
+    void document_concurrentReadersShareOneSerialization() throws Exception {
+        AtomicInteger serializations = new AtomicInteger();
+        ObjectMapper counting = new ObjectMapper() {
+            @Override
+            public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+                serializations.incrementAndGet();
+                return super.writeValueAsBytes(value);
+            }
+        };
+        ResponseCache shared = new ResponseCache(counting, new SimpleMeterRegistry(), new MemorySize(BigInteger.valueOf(1 << 20)));
+        Document doc = new Document(UUID.randomUUID(), "Policy", "x".repeat(10_000), "tenant1", "alice", 1);
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<ResponseCache.Entry>> entries = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                entries.add(readers.submit(() -> {
+                    go.await();
+                    return entry(shared, doc);
+                }));
+            }
+            go.countDown();
+            for (Future<ResponseCache.Entry> entry : entries) {
+                assertSame(entries.get(0).get(), entry.get());
+            }
+        } finally {
+            readers.shutdown();
+        }
+        assertEquals(1, serializations.get());
+    }
+
+    private static ResponseCache.Entry entry(ResponseCache cache, Document doc) {
+        return cache.document(doc).await().atMost(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void document_failedSerializationFailsItsSharers() throws Exception {
+        CountDownLatch serializing = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ObjectMapper failing = new ObjectMapper() {
+            @Override
+            public byte[] writeValueAsBytes(Object value) {
+                serializing.countDown();
+                try {
+                    fail.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new OutOfMemoryError("Java heap space");
+            }
+        };
+        ResponseCache shared = new ResponseCache(failing, new SimpleMeterRegistry(), new MemorySize(BigInteger.valueOf(1 << 20)));
+        Document doc = new Document(UUID.randomUUID(), "Policy", "x".repeat(10_000), "tenant1", "alice", 1);
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = reader.submit(() -> shared.document(doc));
+            assertTrue(serializing.await(5, TimeUnit.SECONDS));
+            // Handed the running serialization without waiting for it
+            CompletableFuture<ResponseCache.Entry> second = shared.document(doc).subscribeAsCompletionStage();
+            assertFalse(second.isDone());
+            fail.countDown();
+
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, failed.getCause());
+            failed = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, failed.getCause());
+        } finally {
+            reader.shutdown();
+        }
+    }
+
+    @Test
+    void document_offHeapBodiesAreNotCached() throws Exception {
+        InMemoryDocumentStore store = new InMemoryDocumentStore(new SlabContentStore(null, 1 << 16), 16);
+        Document doc = new Document("Policy", "x".repeat(1_000), "tenant1", "alice");
+        store.put(doc);
+        assertNotNull(doc.getContentHandle());
+
+        ResponseCache.Entry first = entry(cache, doc);
+        assertArrayEquals(objectMapper.writeValueAsBytes(doc), first.body());
+        assertNotSame(first, entry(cache, doc));
+        assertEquals(first.etag(), entry(cache, doc).etag());
+    }
+
+    @Test
+    void tenantList_onlyHitsAtTheSameListVersion() {
+        List<Document> docs = List.of(new Document("T", "C", "tenant1", "alice"));
+        ResponseCache.Entry stored = cache.tenantList("tenant1", 7, docs);
+
+        assertSame(stored, cache.tenantList("tenant1", 7));
+        assertNull(cache.tenantList("tenant1", 8));
+        assertNull(cache.tenantList("tenant2", 7));
+
+        // An older read never replaces a newer entry
+        cache.tenantList("tenant1", 6, List.of());
+        assertSame(stored, cache.tenantList("tenant1", 7));
+
+        cache.invalidateTenant("tenant1");
+        assertNull(cache.tenantList("tenant1", 7));
+    }
+
+    @Test
+    void tenantVersion_movesWithEveryAppliedWrite() {
+        InMemoryDocumentStore store = new InMemoryDocumentStore();
+        Document doc = new Document("T", "C", "tenant1", "alice");
+        store.put(doc);
+        long afterPut = store.tenantVersion("tenant1");
+
+        Document updated = new Document(doc.getId(), "T2", "C", "tenant1", "alice", 2);
+        assertTrue(store.replace(doc, updated));
+        long afterReplace = store.tenantVersion("tenant1");
+        assertFalse(store.replace(doc, new Document(doc.getId(), "T3", "C", "tenant1", "alice", 2)));
+        assertEquals(afterReplace, store.tenantVersion("tenant1"));
+
+        assertTrue(store.remove(updated));
+        assertTrue(afterPut > 0 && afterReplace > afterPut && store.tenantVersion("tenant1") > afterReplace);
+        assertEquals(0, store.tenantVersion("tenant2"));
+    }
+}
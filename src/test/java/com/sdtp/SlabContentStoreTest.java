@@ -0,0 +1,76 @@
+package com.sdtp;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.SlabContentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlabContentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void largeBodies_areMovedOffHeap() {
+        SlabContentStore content = new SlabContentStore(null, 1 << 16);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 100);
+
+        String body = "x".repeat(500) + "é";
+        Document large = new Document("Large", body, "tenant1", "alice");
+        Document small = new Document("Small", "tiny", "tenant1", "alice");
+        store.put(large);
+        store.put(small);
+
+        assertNotNull(large.getContentHandle());
+        assertNull(small.getContentHandle());
+        assertEquals(body, store.get(large.getId()).getContent());
+        assertEquals("tiny", store.get(small.getId()).getContent());
+
+        ByteBuffer bytes = store.get(large.getId()).getContentBytes();
+        assertTrue(bytes.isDirect());
+        assertTrue(bytes.isReadOnly());
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length, bytes.remaining());
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length, content.liveBytes());
+    }
+
+    @Test
+    void mappedSlabs_areReclaimedOnceEmpty() throws Exception {
+        SlabContentStore content = new SlabContentStore(dir, 4096);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 1);
+
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Document doc = new Document("T", "body-" + "y".repeat(200) + i, "tenant1", "alice");
+            store.put(doc);
+            docs.add(doc);
+        }
+        assertTrue(content.slabCount() > 1);
+        Document survivor = docs.get(99);
+        String survivorBody = survivor.getContent();
+
+        // A reader that grabbed the document before removal still sees its body
+        Document held = store.get(docs.get(0).getId());
+        for (int i = 0; i < 99; i++) {
+            store.remove(docs.get(i).getId());
+        }
+        assertEquals(docs.get(0).getTitle(), held.getTitle());
+        assertTrue(held.getContent().startsWith("body-"));
+
+        assertEquals(1, content.slabCount());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(survivorBody, store.get(survivor.getId()).getContent());
+        store.close();
+    }
+}
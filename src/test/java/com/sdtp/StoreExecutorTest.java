@@ -0,0 +1,115 @@
+package com.sdtp;
+
+import com.sdtp.service.StoreExecutor;
+import com.sdtp.store.DocumentStoreConfig.Execution.Mode;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.Test;
+
+import jakarta.ws.rs.ServiceUnavailableException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreExecutorTest {
+
+    @Test
+    void worker_offloadsBlockingWritesAndScansOnly() {
+        StoreExecutor executor = new StoreExecutor(Mode.WORKER, 2, 16, true);
+        StoreExecutor nonBlocking = new StoreExecutor(Mode.WORKER, 2, 16, false);
+        String caller = Thread.currentThread().getName();
+
+        assertTrue(threadOf(executor.write(currentThread())).startsWith("document-store-"));
+        assertTrue(threadOf(executor.scan(currentThread())).startsWith("document-store-"));
+        assertEquals(caller, threadOf(nonBlocking.write(currentThread())));
+        assertEquals(Mode.WORKER, executor.mode());
+    }
+
+    @Test
+    void worker_offloadsReadsOnlyWhenBodiesMayBeOnDisk() {
+        StoreExecutor diskBodies = new StoreExecutor(Mode.WORKER, 2, 16, true, true);
+        StoreExecutor heapBodies = new StoreExecutor(Mode.WORKER, 2, 16, true, false);
+        String caller = Thread.currentThread().getName();
+
+        assertTrue(threadOf(diskBodies.read(currentThread())).startsWith("document-store-"));
+        // Work chained on a read runs where the read ran
+        assertTrue(threadOf(diskBodies.read(currentThread()).map(ignored -> Thread.currentThread().getName()))
+                .startsWith("document-store-"));
+        assertEquals(caller, threadOf(heapBodies.read(currentThread())));
+    }
+
+    @Test
+    void worker_pullsStreamsOffCallerOnlyWhenBodiesMayBeOnDisk() {
+        StoreExecutor diskBodies = new StoreExecutor(Mode.WORKER, 2, 16, true, true);
+        StoreExecutor heapBodies = new StoreExecutor(Mode.WORKER, 2, 16, true, false);
+        String caller = Thread.currentThread().getName();
+
+        // Every item is read where the subscription runs, including those pulled by later requests
+        AssertSubscriber<String> subscriber = diskBodies.stream(threadPerItem()).subscribe()
+                .withSubscriber(AssertSubscriber.create(1));
+        subscriber.awaitItems(1).request(2).awaitCompletion(Duration.ofSeconds(5));
+        List<String> offloaded = subscriber.getItems();
+        assertEquals(3, offloaded.size());
+        assertTrue(offloaded.stream().allMatch(thread -> thread.startsWith("document-store-")), offloaded::toString);
+        assertEquals(List.of(caller, caller, caller),
+                heapBodies.stream(threadPerItem()).collect().asList().await().atMost(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void eventLoop_runsEverythingOnCaller() {
+        StoreExecutor executor = new StoreExecutor(Mode.EVENT_LOOP, 2, 16, true);
+        String caller = Thread.currentThread().getName();
+
+        assertEquals(caller, threadOf(executor.write(currentThread())));
+        assertEquals(caller, threadOf(executor.scan(currentThread())));
+    }
+
+    @Test
+    void auto_prefersVirtualThreadsWhenAvailable() {
+        Mode expected = Runtime.version().feature() >= 21 ? Mode.VIRTUAL : Mode.WORKER;
+        assertEquals(expected, new StoreExecutor(Mode.AUTO, 2, 16, true).mode());
+        assertEquals(expected, new StoreExecutor(Mode.VIRTUAL, 2, 16, true).mode());
+    }
+
+    @Test
+    void worker_fullQueue_serviceUnavailable() throws Exception {
+        StoreExecutor executor = new StoreExecutor(Mode.WORKER, 1, 1, true);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Uni<Boolean> blocker = Uni.createFrom().item(() -> {
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try {
+            executor.write(blocker).subscribe().with(ignored -> { });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.write(blocker).subscribe().with(ignored -> { });
+
+            assertThrows(ServiceUnavailableException.class,
+                    () -> executor.write(currentThread()).await().atMost(Duration.ofSeconds(5)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Uni<String> currentThread() {
+        return Uni.createFrom().item(() -> Thread.currentThread().getName());
+    }
+
+    private static Multi<String> threadPerItem() {
+        return Multi.createFrom().range(0, 3).map(ignored -> Thread.currentThread().getName());
+    }
+
+    private static String threadOf(Uni<String> uni) {
+        return uni.await().atMost(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,102 @@
+package com.sdtp;
+
+import com.sdtp.admission.TenantLimiter;
+import com.sdtp.admission.TenantLimiter.Limits;
+import com.sdtp.admission.TenantOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantLimiterTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rate_admitsBurstThenSheds() {
+        TenantLimiter limiter = new TenantLimiter(true, registry, new Limits(1, 3, 0), Map.of());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("tenant1", 1).release();
+        }
+        TenantOverloadedException shed = assertThrows(TenantOverloadedException.class, () -> limiter.acquire("tenant1", 1));
+        assertTrue(shed.retryAfterSeconds() >= 1);
+
+        // Other tenants have their own bucket
+        limiter.acquire("tenant2", 1).release();
+        assertEquals(3, registry.get("tenant.admission").tags("tenant", "tenant1", "decision", "admitted").counter().count());
+        assertEquals(1, registry.get("tenant.admission").tags("tenant", "tenant1", "decision", "rate-limited").counter().count());
+    }
+
+    @Test
+    void concurrency_capsInFlightUntilReleased() {
+        TenantLimiter limiter = new TenantLimiter(true, registry, new Limits(0, 1, 2),
+                Map.of("big", new Limits(0, 1, 3)));
+
+        TenantLimiter.Permit first = limiter.acquire("tenant1", 1);
+        limiter.acquire("tenant1", 1);
+        assertThrows(TenantOverloadedException.class, () -> limiter.acquire("tenant1", 1));
+
+        first.release();
+        first.release();
+        limiter.acquire("tenant1", 1);
+        assertThrows(TenantOverloadedException.class, () -> limiter.acquire("tenant1", 1));
+
+        for (int i = 0; i < 3; i++) limiter.acquire("big", 1);
+        assertThrows(TenantOverloadedException.class, () -> limiter.acquire("big", 1));
+        assertEquals(3, registry.get("tenant.requests.active").tags("tenant", "big").gauge().value());
+    }
+
+    @Test
+    void rate_concurrentCallersNeverExceedTheBurst() throws Exception {
+        // One token per hour: only the burst can be admitted during the test
+        TenantLimiter limiter = new TenantLimiter(true, registry, new Limits(1.0 / 3600, 1000, 0), Map.of());
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        try {
+                            limiter.acquire("tenant1", 1).release();
+                            admitted.incrementAndGet();
+                        } catch (TenantOverloadedException e) {
+                            // shed
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1000, admitted.get());
+    }
+
+    @Test
+    void disabled_admitsEverything() {
+        TenantLimiter limiter = new TenantLimiter(false, registry, new Limits(1, 1, 1), Map.of());
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("tenant1", 1);
+        }
+    }
+}
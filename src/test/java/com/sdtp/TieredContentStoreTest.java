@@ -0,0 +1,97 @@
+package com.sdtp;
+
+import com.sdtp.model.Document;
+import com.sdtp.store.InMemoryDocumentStore;
+import com.sdtp.store.content.TieredContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredContentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void coldBodies_areEvictedFromHeapAndFaultedBackIn() {
+        TieredContentStore content = new TieredContentStore(dir, 1 << 16, 4096);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        content.bindTo(registry);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 1);
+        // Cold bodies come back from disk, so neither reads nor writes may stay on an event loop
+        assertTrue(store.readsBlock());
+        assertTrue(store.writesBlock());
+
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Document doc = new Document("T" + i, "body-" + "z".repeat(500) + i, "tenant1", "alice");
+            store.put(doc);
+            docs.add(doc);
+        }
+        assertTrue(content.hotBytes() <= 4096);
+        assertEquals(100L * 505 + 10 * 1 + 90 * 2, content.liveBytes());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("body-" + "z".repeat(500) + i, store.get(docs.get(i).getId()).getContent());
+        }
+        assertTrue(registry.get("cache.gets").tag("cache", "documents.bodies").tag("result", "miss")
+                .functionCounter().count() > 0);
+        assertTrue(registry.get("cache.evictions").tag("cache", "documents.bodies")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    void segments_areReclaimedOnceEmpty() throws Exception {
+        TieredContentStore content = new TieredContentStore(dir, 4096, 1 << 20);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 1);
+
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Document doc = new Document("T", "body-" + "y".repeat(200) + i, "tenant1", "alice");
+            store.put(doc);
+            docs.add(doc);
+        }
+        assertTrue(content.segmentCount() > 1);
+        Document survivor = docs.get(99);
+        String survivorBody = survivor.getContent();
+
+        for (int i = 0; i < 99; i++) {
+            store.remove(docs.get(i).getId());
+        }
+        assertEquals(1, content.segmentCount());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(survivorBody, store.get(survivor.getId()).getContent());
+        store.close();
+    }
+
+    @Test
+    void releasedBodies_areReadWithoutCachingThemAgain() throws Exception {
+        TieredContentStore content = new TieredContentStore(dir, 4096, 1 << 20);
+        InMemoryDocumentStore store = new InMemoryDocumentStore(content, 1);
+        String body = "x".repeat(2000);
+        // Large enough for a segment of its own, which is reclaimed as soon as the body is released
+        Document doc = new Document("T", body, "tenant1", "alice");
+        store.put(doc);
+        assertEquals(2, content.segmentCount());
+
+        store.remove(doc.getId());
+        assertEquals(0, content.hotBytes());
+        assertEquals(1, content.segmentCount());
+
+        // A reader that fetched the document before the delete can still read it
+        assertEquals(body, doc.getContent());
+        assertEquals(body, doc.getContent());
+        assertEquals(0, content.hotBytes());
+        assertEquals(1, content.segmentCount());
+        store.close();
+    }
+}